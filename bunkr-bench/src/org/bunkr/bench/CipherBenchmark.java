@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.bench;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bunkr.core.crypto.CipherProviders;
+import org.bunkr.core.crypto.ICipherProvider;
+import org.bunkr.core.crypto.ParallelCTRCipher;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.utils.RandomMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Throughput of each cipher provider for each file encryption, on the caller's thread and sliced across the common
+ * pool by ParallelCTRCipher. A combination the provider does not support in this JVM fails in setup.
+ *
+ * Each benchmark encrypts BUFFER_SIZE bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CipherBenchmark
+{
+    public static final int BUFFER_SIZE = 4 * 1024 * 1024;
+
+    @Param({"AES128_CTR", "AES256_CTR", "TWOFISH128_CTR", "TWOFISH256_CTR"})
+    public Encryption encryption;
+
+    @Param({"JCE", "BouncyCastle"})
+    public String provider;
+
+    private SkippingStreamCipher serialCipher;
+    private SkippingStreamCipher parallelCipher;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        ICipherProvider cipherProvider = null;
+        for (ICipherProvider p : CipherProviders.getProviders())
+        {
+            if (p.getName().equals(this.provider)) cipherProvider = p;
+        }
+        if (cipherProvider == null) throw new IllegalStateException("No cipher provider named " + this.provider);
+        if (! cipherProvider.supports(this.encryption))
+            throw new IllegalStateException(String.format("%s does not support %s", this.provider, this.encryption));
+
+        ParametersWithIV params = new ParametersWithIV(
+                new KeyParameter(RandomMaker.get(this.encryption.keyByteLength * 8)),
+                RandomMaker.get(this.encryption.ivByteLength * 8)
+        );
+        final ICipherProvider chosen = cipherProvider;
+        this.serialCipher = chosen.buildCipher(this.encryption);
+        this.serialCipher.init(true, params);
+        this.parallelCipher = new ParallelCTRCipher(() -> chosen.buildCipher(this.encryption),
+                                                    ForkJoinPool.commonPool());
+        this.parallelCipher.init(true, params);
+
+        this.input = RandomMaker.get(BUFFER_SIZE * 8);
+        this.output = new byte[BUFFER_SIZE];
+    }
+
+    @Benchmark
+    public byte[] serial()
+    {
+        this.serialCipher.processBytes(this.input, 0, BUFFER_SIZE, this.output, 0);
+        return this.output;
+    }
+
+    @Benchmark
+    public byte[] parallel()
+    {
+        this.parallelCipher.processBytes(this.input, 0, BUFFER_SIZE, this.output, 0);
+        return this.output;
+    }
+}
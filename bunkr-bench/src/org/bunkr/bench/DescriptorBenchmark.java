@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.bench;
+
+import org.bunkr.core.descriptor.DescriptorBuilder;
+import org.bunkr.core.descriptor.IDescriptor;
+import org.bunkr.core.descriptor.PBKDF2Descriptor;
+import org.bunkr.core.descriptor.ScryptDescriptor;
+import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.RandomMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Cost of the key derivation descriptors. openArchive and createArchive build a new descriptor for every invocation, so
+ * they pay for the key derivation, like opening an archive or changing its security does. saveArchive reuses one
+ * descriptor, so it measures an ordinary save once the inventory key is known.
+ *
+ * The cost parameter is the PBKDF2 iteration count or the scrypt N, and lanes is the scrypt p, where "max" means one
+ * lane per thread that can run at once. PBKDF2 ignores lanes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DescriptorBenchmark
+{
+    @Param({"pbkdf2", "scrypt"})
+    public String kdf;
+
+    @Param({"8192", "65536"})
+    public int cost;
+
+    @Param({"1", "max"})
+    public String lanes;
+
+    private UserSecurityProvider usp;
+    private Inventory inventory;
+    private IDescriptor savingDescriptor;
+    private String savedDescriptorJSON;
+    private byte[] savedInventory;
+
+    @Setup
+    public void setup() throws BaseBunkrException
+    {
+        PasswordProvider passwordProvider = new PasswordProvider();
+        passwordProvider.setArchivePassword("benchmark password".getBytes());
+        this.usp = new UserSecurityProvider(passwordProvider);
+        this.inventory = InventoryCodecBenchmark.makeInventory(100);
+
+        this.savingDescriptor = makeDescriptor();
+        this.savedInventory = this.savingDescriptor.writeInventoryToBytes(this.inventory, this.usp);
+        this.savedDescriptorJSON = DescriptorBuilder.toJSON(this.savingDescriptor);
+    }
+
+    private IDescriptor makeDescriptor()
+    {
+        if (this.kdf.equals(PBKDF2Descriptor.IDENTIFIER))
+        {
+            return new PBKDF2Descriptor(
+                    Encryption.AES256_CTR, this.cost, RandomMaker.get(PBKDF2Descriptor.SALT_LENGTH)
+            );
+        }
+        int p = this.lanes.equals("max") ? ForkJoinPool.commonPool().getParallelism() + 1 : Integer.parseInt(this.lanes);
+        return new ScryptDescriptor(
+                Encryption.AES256_CTR, this.cost, RandomMaker.get(ScryptDescriptor.SALT_LENGTH),
+                ScryptDescriptor.DEFAULT_SCRYPT_R, p
+        );
+    }
+
+    @Benchmark
+    public Inventory openArchive() throws BaseBunkrException
+    {
+        return DescriptorBuilder.fromJSON(this.savedDescriptorJSON).readInventoryFromBytes(this.savedInventory, this.usp);
+    }
+
+    @Benchmark
+    public byte[] createArchive() throws BaseBunkrException
+    {
+        return makeDescriptor().writeInventoryToBytes(this.inventory, this.usp);
+    }
+
+    @Benchmark
+    public byte[] saveArchive() throws BaseBunkrException
+    {
+        return this.savingDescriptor.writeInventoryToBytes(this.inventory, this.usp);
+    }
+}
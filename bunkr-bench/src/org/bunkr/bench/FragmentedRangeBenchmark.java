@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.bench;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Cost of the FragmentedRange operations at large fragment counts. The ranges are built from every other block, so
+ * they hold exactly the given number of fragments, which is the worst case for the allocator's view of a busy archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FragmentedRangeBenchmark
+{
+    @Param({"1000", "10000", "100000"})
+    public int fragments;
+
+    // blocks 0, 2, 4, ...
+    private FragmentedRange evens;
+    // blocks 1, 3, 5, ...
+    private FragmentedRange odds;
+    // every block covered by either
+    private FragmentedRange all;
+
+    @Setup
+    public void setup()
+    {
+        this.evens = makeInterleaved(0, this.fragments);
+        this.odds = makeInterleaved(1, this.fragments);
+        this.all = new FragmentedRange(0, this.fragments * 2);
+    }
+
+    private static FragmentedRange makeInterleaved(int offset, int fragments)
+    {
+        FragmentedRange r = new FragmentedRange();
+        for (int i = 0; i < fragments; i++) r.add(offset + i * 2, 1);
+        return r;
+    }
+
+    @Benchmark
+    public FragmentedRange build()
+    {
+        return makeInterleaved(0, this.fragments);
+    }
+
+    /**
+     * Fill the gap in the middle of the range, joining two fragments, then open it again.
+     */
+    @Benchmark
+    public FragmentedRange addRemoveMiddle()
+    {
+        int gap = (this.fragments / 2) * 2 + 1;
+        this.evens.add(gap, 1);
+        this.evens.remove(gap, 1);
+        return this.evens;
+    }
+
+    /**
+     * Extend the last fragment and take the extension back off.
+     */
+    @Benchmark
+    public FragmentedRange addRemoveEnd()
+    {
+        int end = this.fragments * 2;
+        this.evens.add(end, 1);
+        this.evens.remove(end, 1);
+        return this.evens;
+    }
+
+    @Benchmark
+    public boolean contains()
+    {
+        return this.evens.contains(this.fragments);
+    }
+
+    @Benchmark
+    public FragmentedRange union()
+    {
+        return FragmentedRange.union(this.evens, this.odds);
+    }
+
+    @Benchmark
+    public FragmentedRange subtract()
+    {
+        return FragmentedRange.subtract(this.all, this.odds);
+    }
+
+    @Benchmark
+    public FragmentedRange invert()
+    {
+        return this.evens.invert();
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.bench;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryBinary;
+import org.bunkr.core.inventory.InventoryJSON;
+import org.bunkr.core.inventory.MediaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Cost of encoding and decoding the inventory in the JSON and binary formats at 10k to 1M files. The generated tree
+ * has FILES_PER_FOLDER encrypted files in each folder and FOLDERS_PER_GROUP folders under each top level folder, which
+ * is roughly the shape of a large imported directory. The binary format is measured both on the caller's thread and
+ * with the common pool, as the descriptors use it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class InventoryCodecBenchmark
+{
+    public static final int FILES_PER_FOLDER = 100;
+    public static final int FOLDERS_PER_GROUP = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private Inventory inventory;
+    private String encodedJSON;
+    private byte[] encodedBinary;
+
+    @Setup
+    public void setup()
+    {
+        this.inventory = makeInventory(this.entries);
+        this.encodedJSON = InventoryJSON.encode(this.inventory);
+        this.encodedBinary = InventoryBinary.encode(this.inventory);
+    }
+
+    /**
+     * Build an inventory holding the given number of files, generated from a fixed seed.
+     */
+    static Inventory makeInventory(int files)
+    {
+        Random random = new Random(42);
+        Inventory inventory = new Inventory(new ArrayList<>(), new ArrayList<>(), Encryption.AES256_CTR);
+        FolderInventoryItem group = null;
+        FolderInventoryItem folder = null;
+        int nextBlock = 0;
+        for (int i = 0; i < files; i++)
+        {
+            if (i % (FILES_PER_FOLDER * FOLDERS_PER_GROUP) == 0)
+            {
+                group = new FolderInventoryItem(String.format("group-%d", i / (FILES_PER_FOLDER * FOLDERS_PER_GROUP)));
+                inventory.addFolder(group);
+            }
+            if (i % FILES_PER_FOLDER == 0)
+            {
+                folder = new FolderInventoryItem(String.format("folder-%d", i / FILES_PER_FOLDER));
+                group.addFolder(folder);
+            }
+
+            long size = 1 + random.nextInt(1024 * 1024);
+            int blockCount = (int) ((size + 1023) / 1024);
+            byte[] encryptionData = new byte[Encryption.AES256_CTR.keyByteLength + Encryption.AES256_CTR.ivByteLength];
+            byte[] integrityHash = new byte[32];
+            random.nextBytes(encryptionData);
+            random.nextBytes(integrityHash);
+            FileInventoryItem file = new FileInventoryItem(
+                    String.format("file-%d.dat", i),
+                    new UUID(random.nextLong(), random.nextLong()),
+                    new FragmentedRange(nextBlock, blockCount),
+                    blockCount * 1024L,
+                    size,
+                    1476662400000L + random.nextInt(),
+                    encryptionData,
+                    Encryption.AES256_CTR,
+                    integrityHash,
+                    MediaType.UNKNOWN
+            );
+            nextBlock += blockCount;
+            folder.addFile(file);
+        }
+        return inventory;
+    }
+
+    @Benchmark
+    public String encodeJSON()
+    {
+        return InventoryJSON.encode(this.inventory);
+    }
+
+    @Benchmark
+    public Inventory decodeJSON()
+    {
+        return InventoryJSON.decode(this.encodedJSON);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary()
+    {
+        return InventoryBinary.encode(this.inventory);
+    }
+
+    @Benchmark
+    public Inventory decodeBinary()
+    {
+        return InventoryBinary.decode(this.encodedBinary);
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryParallel()
+    {
+        return InventoryBinary.encode(this.inventory, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public Inventory decodeBinaryParallel()
+    {
+        return InventoryBinary.decode(this.encodedBinary, ForkJoinPool.commonPool());
+    }
+}
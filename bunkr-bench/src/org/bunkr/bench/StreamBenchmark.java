@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.bench;
+
+import org.bunkr.core.ArchiveBuilder;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.descriptor.PlaintextDescriptor;
+import org.bunkr.core.inventory.Algorithms.Compression;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Throughput of writing and reading a whole file through the multilayered streams, for each file encryption, block
+ * size and compression, both on the caller's thread and with the parallel paths on the common pool.
+ *
+ * Each benchmark moves FILE_SIZE bytes, so the score in operations per second times FILE_SIZE is the throughput.
+ *
+ * The block cache of the archive is disabled: FILE_SIZE fits in BlockCache.DEFAULT_CAPACITY, so with it every read
+ * after the first warmup pass would be served from memory, and the benchmark would measure the cache rather than the
+ * extent reads from the archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamBenchmark
+{
+    public static final int FILE_SIZE = 16 * 1024 * 1024;
+
+    @Param({"NONE", "AES128_CTR", "AES256_CTR", "TWOFISH128_CTR", "TWOFISH256_CTR"})
+    public Encryption encryption;
+
+    @Param({"1024", "4096", "65536"})
+    public int blockSize;
+
+    @Param({"NONE", "DEFLATE"})
+    public Compression compression;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private File archiveFile;
+    private ArchiveInfoContext context;
+    private FileInventoryItem readTarget;
+    private ForkJoinPool pool;
+    private byte[] payload;
+    private byte[] buffer;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        this.archiveFile = File.createTempFile("bunkr-bench", ".bunkr");
+        this.context = ArchiveBuilder.createNewEmptyArchive(
+                this.archiveFile, new PlaintextDescriptor(), new UserSecurityProvider(), this.blockSize
+        );
+        this.context.getInventory().setDefaultEncryption(this.encryption);
+        this.context.getBlockCache().setCapacity(0);
+        this.pool = this.parallel ? ForkJoinPool.commonPool() : null;
+        this.payload = makePayload(FILE_SIZE);
+        this.buffer = new byte[64 * 1024];
+
+        this.readTarget = new FileInventoryItem("read");
+        this.context.getInventory().addFile(this.readTarget);
+        try (MultilayeredOutputStream out = new MultilayeredOutputStream(
+                this.context, this.readTarget, this.compression, 0, this.pool
+        ))
+        {
+            out.write(this.payload);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        this.context.releaseMappedRegions();
+        if (! this.archiveFile.delete()) throw new IOException("Could not delete " + this.archiveFile);
+    }
+
+    /**
+     * Write a new file, then drop it from the inventory so that the next invocation reuses the same blocks.
+     *
+     * Since the same blocks are rewritten every time, after the first invocation they are already allocated on disk
+     * and usually resident in the page cache. This measures the write path into an archive that does not grow, not
+     * the cost of extending the file.
+     */
+    @Benchmark
+    public FileInventoryItem write() throws IOException
+    {
+        FileInventoryItem item = new FileInventoryItem("write");
+        this.context.getInventory().addFile(item);
+        try (MultilayeredOutputStream out = new MultilayeredOutputStream(
+                this.context, item, this.compression, 0, this.pool
+        ))
+        {
+            out.write(this.payload);
+        }
+        this.context.getInventory().removeFile(item);
+        return item;
+    }
+
+    @Benchmark
+    public long read() throws IOException
+    {
+        long total = 0;
+        try (MultilayeredInputStream in = new MultilayeredInputStream(this.context, this.readTarget, 0, this.pool))
+        {
+            int n;
+            while ((n = in.read(this.buffer)) != -1) total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Build a payload that compresses to about half its size, drawn from a fixed seed so that runs are comparable.
+     */
+    static byte[] makePayload(int size)
+    {
+        Random random = new Random(42);
+        byte[] payload = new byte[size];
+        random.nextBytes(payload);
+        for (int i = 0; i < size; i += 2) payload[i] = (byte) ('a' + (payload[i] & 0x0F));
+        for (int i = 1; i < size; i += 2) payload[i] = (byte) ('a' + (i & 0x07));
+        return payload;
+    }
+}
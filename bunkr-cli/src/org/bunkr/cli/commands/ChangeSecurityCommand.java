@@ -50,6 +50,7 @@ public class ChangeSecurityCommand implements ICLICommand
     public static final String ARG_INV_SECURITY = "inventorysecurity";
     public static final String ARG_ITERATIONS_TIME = "pbkdf2iterationstime";
     public static final String ARG_MEMORY_USAGE = "scryptmemoryusage";
+    public static final String ARG_SCRYPT_TIME = "scrypttimetarget";
 
     private final LinkedHashMap<String, Integer> pbkdf2IterTimeChoices;
     private final LinkedHashMap<String, Integer> scryptNChoices;
@@ -121,6 +122,11 @@ public class ChangeSecurityCommand implements ICLICommand
                 .setDefault(scryptNChoices.keySet().iterator().next())
                 .choices(scryptNChoices.keySet())
                 .help("set the scrypt N parameter");
+        p2.addArgument("--time-target")
+                .dest(ARG_SCRYPT_TIME)
+                .choices(pbkdf2IterTimeChoices.keySet())
+                .help("calibrate N and p for this machine to take the given time, using at most the memory set by " +
+                      "--memory-use");
     }
 
     @Override
@@ -159,7 +165,7 @@ public class ChangeSecurityCommand implements ICLICommand
                                      context.getDescriptor().getIdentifier(),
                                      context.getInventory().getDefaultEncryption());
 
-        MetadataWriter.write(context, usp);
+        MetadataWriter.checkpoint(context, usp);
         System.out.println("Successfully changed security settings for achive.");
         System.out.println(String.format("Before: %s", before));
         System.out.println(String.format("After: %s", after));
@@ -180,8 +186,22 @@ public class ChangeSecurityCommand implements ICLICommand
     public void applyScryptSecuritySettings(ArchiveInfoContext archive, Namespace args)
     {
         archive.getInventory().setDefaultEncryption(args.get(ARG_FILE_SECURITY));
-        archive.setDescriptor(ScryptDescriptor.make(
-                args.get(ARG_INV_SECURITY), scryptNChoices.get(args.getString(ARG_MEMORY_USAGE))
-        ));
+        int scryptN = scryptNChoices.get(args.getString(ARG_MEMORY_USAGE));
+        if (args.getString(ARG_SCRYPT_TIME) != null)
+        {
+            int ms = pbkdf2IterTimeChoices.get(args.getString(ARG_SCRYPT_TIME));
+            System.out.println(String.format("Calibrating scrypt for %s milliseconds...", ms));
+            ScryptDescriptor descriptor = (ScryptDescriptor) ScryptDescriptor.calibrate(
+                    args.get(ARG_INV_SECURITY), ms, ScryptDescriptor.calculateMemoryUsage(scryptN)
+            );
+            System.out.println(String.format(
+                    "Got N=%d r=%d p=%d.", descriptor.scryptN, descriptor.scryptR, descriptor.scryptP
+            ));
+            archive.setDescriptor(descriptor);
+        }
+        else
+        {
+            archive.setDescriptor(ScryptDescriptor.make(args.get(ARG_INV_SECURITY), scryptN));
+        }
     }
 }
@@ -32,6 +32,8 @@ import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.IFFTraversalTarget;
 import org.bunkr.core.inventory.InventoryPather;
 import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.input.PrefetchingInputStream;
+import org.bunkr.core.streams.input.StoredFileTransfer;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
@@ -40,7 +42,9 @@ import org.bunkr.core.utils.Units;
 import java.io.*;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created At: 2015-12-08
@@ -92,17 +96,36 @@ public class ExportFileCommand implements ICLICommand
 
             File inputFile = args.get(ARG_DESTINATION_FILE);
             boolean checkHash = (!args.getBoolean(ARG_IGNORE_INTEGRITY_CHECK));
+            boolean stored = StoredFileTransfer.isTransferable(targetFile);
             if (inputFile.getPath().equals("-"))
             {
-                writeBlockFileToStream(aic, targetFile, System.out, checkHash, false);
+                if (stored)
+                {
+                    System.out.flush();
+                    transferStoredFile(aic, targetFile, new FileOutputStream(FileDescriptor.out).getChannel(), checkHash, false);
+                }
+                else
+                {
+                    writeBlockFileToStream(aic, targetFile, System.out, checkHash, false);
+                }
             }
             else
             {
                 if (inputFile.exists()) throw new CLIException("'%s' already exists. Will not overwrite.", inputFile.getCanonicalPath());
                 FileChannel fc = new RandomAccessFile(inputFile, "rw").getChannel();
-                try (OutputStream contentOutputStream = Channels.newOutputStream(fc))
+                if (stored)
                 {
-                    writeBlockFileToStream(aic, targetFile, contentOutputStream, checkHash, !args.getBoolean(ARG_NO_PROGRESS));
+                    try (FileChannel contentChannel = fc)
+                    {
+                        transferStoredFile(aic, targetFile, contentChannel, checkHash, !args.getBoolean(ARG_NO_PROGRESS));
+                    }
+                }
+                else
+                {
+                    try (OutputStream contentOutputStream = Channels.newOutputStream(fc))
+                    {
+                        writeBlockFileToStream(aic, targetFile, contentOutputStream, checkHash, !args.getBoolean(ARG_NO_PROGRESS));
+                    }
                 }
             }
         }
@@ -112,6 +135,19 @@ public class ExportFileCommand implements ICLICommand
         }
     }
 
+    private void transferStoredFile(ArchiveInfoContext ctxt, FileInventoryItem targetFile, WritableByteChannel channel,
+                                    boolean checkHash, boolean showProgress) throws IOException
+    {
+        ProgressBar pb = new ProgressBar(120, targetFile.getActualSize(), "Exporting file: ");
+        pb.setEnabled(showProgress);
+        pb.setUnitIsBytes(true);
+        pb.startFresh();
+
+        StoredFileTransfer.transfer(ctxt, targetFile, channel, checkHash, pb::inc);
+
+        pb.finish();
+    }
+
     private void writeBlockFileToStream(ArchiveInfoContext ctxt, FileInventoryItem targetFile, OutputStream os, boolean checkHash, boolean showProgress)
             throws IOException
     {
@@ -120,7 +156,9 @@ public class ExportFileCommand implements ICLICommand
         pb.setUnitIsBytes(true);
         pb.startFresh();
 
-        try (MultilayeredInputStream ms = new MultilayeredInputStream(ctxt, targetFile))
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(
+                ctxt, targetFile, PrefetchingInputStream.DEFAULT_DEPTH, ForkJoinPool.commonPool()
+        ))
         {
             ms.setCheckHashOnFinish(checkHash);
             byte[] buffer = new byte[(int) Units.MEBIBYTE];
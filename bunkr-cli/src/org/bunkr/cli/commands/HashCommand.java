@@ -32,6 +32,7 @@ import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.IFFTraversalTarget;
 import org.bunkr.core.inventory.InventoryPather;
 import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.input.PrefetchingInputStream;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
 import org.bouncycastle.crypto.digests.*;
@@ -40,6 +41,7 @@ import org.bunkr.core.utils.Units;
 import javax.xml.bind.DatatypeConverter;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created At: 2015-12-13
@@ -94,7 +96,9 @@ public class HashCommand implements ICLICommand
         pb.startFresh();
         GeneralDigest digest = getDigest(algorithm);
         digest.reset();
-        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, target))
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(
+                context, target, PrefetchingInputStream.DEFAULT_DEPTH, ForkJoinPool.commonPool()
+        ))
         {
             byte[] buffer = new byte[(int) Units.MEBIBYTE];
             int n;
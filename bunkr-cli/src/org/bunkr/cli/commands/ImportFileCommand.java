@@ -25,11 +25,14 @@ package org.bunkr.cli.commands;
 import org.bunkr.core.inventory.*;
 import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.ArchiveTransaction;
 import org.bunkr.core.MetadataWriter.ProtectedMetadataWrite;
 import org.bunkr.cli.CLI;
 import org.bunkr.cli.ProgressBar;
 import org.bunkr.core.exceptions.CLIException;
+import org.bunkr.core.operations.ImportDirectoryOp;
 import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.streams.output.PipelinedOutputStream;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
@@ -39,6 +42,7 @@ import java.io.*;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created At: 2015-12-08
@@ -49,6 +53,8 @@ public class ImportFileCommand implements ICLICommand
     public static final String ARG_SOURCE_FILE = "source";
     public static final String ARG_MEDIA_TYPE = "mediatype";
     public static final String ARG_NO_PROGRESS = "noprogress";
+    public static final String ARG_NO_COMPRESSION = "nocompression";
+    public static final String ARG_RECURSIVE = "recursive";
 
 
     @Override
@@ -69,6 +75,18 @@ public class ImportFileCommand implements ICLICommand
                 .setDefault(false)
                 .type(Boolean.class)
                 .help("don't display a progress bar while importing the file");
+        target.addArgument("--no-compression")
+                .dest(ARG_NO_COMPRESSION)
+                .action(Arguments.storeTrue())
+                .setDefault(false)
+                .type(Boolean.class)
+                .help("store the file without compressing it, for data that is already compressed");
+        target.addArgument("-r", "--recursive")
+                .dest(ARG_RECURSIVE)
+                .action(Arguments.storeTrue())
+                .setDefault(false)
+                .type(Boolean.class)
+                .help("import the contents of the source directory into the folder at path, creating it if needed");
         target.addArgument("-t", "--mediatype")
                 .dest(ARG_MEDIA_TYPE)
                 .choices(MediaType.ALL_TYPES)
@@ -82,6 +100,12 @@ public class ImportFileCommand implements ICLICommand
         UserSecurityProvider usp = new UserSecurityProvider(makeCLIPasswordProvider(args.get(CLI.ARG_PASSWORD_FILE)));
         ArchiveInfoContext aic = new ArchiveInfoContext(args.get(CLI.ARG_ARCHIVE_PATH), usp);
 
+        if (args.getBoolean(ARG_RECURSIVE))
+        {
+            this.handleRecursive(args, aic, usp);
+            return;
+        }
+
         if (args.getString(ARG_PATH).equals("/")) throw new CLIException("Cannot import as /.");
 
         IFFTraversalTarget parent = InventoryPather.traverse(aic.getInventory(),
@@ -105,28 +129,87 @@ public class ImportFileCommand implements ICLICommand
         targetFile.setMediaType(args.getString(ARG_MEDIA_TYPE));
 
         File inputFile = args.get(ARG_SOURCE_FILE);
+        Algorithms.Compression compression = args.getBoolean(ARG_NO_COMPRESSION) ?
+                Algorithms.Compression.NONE : Algorithms.Compression.DEFLATE;
 
 
         try(ProtectedMetadataWrite ignored = new ProtectedMetadataWrite(aic, usp))
         {
             if (inputFile.getPath().equals("-"))
             {
-                importFileFromStream(aic, targetFile, System.in);
+                importFileFromStream(aic, targetFile, compression, System.in);
             }
             else
             {
                 FileChannel fc = new RandomAccessFile(inputFile, "r").getChannel();
                 try (InputStream fis = Channels.newInputStream(fc))
                 {
-                    importFileFromStream(aic, targetFile, fis, inputFile.length(), !args.getBoolean(ARG_NO_PROGRESS));
+                    importFileFromStream(aic, targetFile, compression, fis, inputFile.length(),
+                                         !args.getBoolean(ARG_NO_PROGRESS));
                 }
             }
         }
     }
 
-    private void importFileFromStream(ArchiveInfoContext context, FileInventoryItem target, InputStream is) throws IOException
+    private void handleRecursive(Namespace args, ArchiveInfoContext aic, UserSecurityProvider usp) throws Exception
+    {
+        File inputDirectory = args.get(ARG_SOURCE_FILE);
+        if (! inputDirectory.isDirectory()) throw new CLIException("Recursive import requires a source directory.");
+        if (args.getString(ARG_MEDIA_TYPE) != null)
+            throw new CLIException("Cannot set a media type for a recursive import.");
+
+        // the transaction saves the metadata once at the end, or leaves the archive as it was if the import fails
+        ImportDirectoryOp op;
+        try (ArchiveTransaction transaction = new ArchiveTransaction(aic, usp))
+        {
+            IFFContainer destination = resolveDestination(aic, args.getString(ARG_PATH));
+            op = new ImportDirectoryOp(aic, inputDirectory, destination);
+            op.setTransaction(transaction);
+            if (args.getBoolean(ARG_NO_COMPRESSION)) op.setCompression(Algorithms.Compression.NONE);
+
+            op.scan();
+            ProgressBar pb = new ProgressBar(120, op.getTotalBytes(), "Importing files: ");
+            pb.setEnabled(!args.getBoolean(ARG_NO_PROGRESS));
+            pb.setUnitIsBytes(true);
+            pb.startFresh();
+            op.setProgressUpdate(o -> {
+                synchronized (pb)
+                {
+                    pb.tick(o.getBytesImported());
+                }
+            });
+            op.run();
+            pb.finish();
+            transaction.commit();
+        }
+        System.out.println(String.format(
+                "Imported %d files and created %d folders.", op.getFilesImported(), op.getFoldersCreated()
+        ));
+    }
+
+    private static IFFContainer resolveDestination(ArchiveInfoContext aic, String path) throws Exception
+    {
+        if (path.equals("/")) return aic.getInventory();
+
+        IFFTraversalTarget parent = InventoryPather.traverse(aic.getInventory(), InventoryPather.dirname(path));
+        if (parent.isAFile()) throw new CLIException("Cannot create folder as a child of a file.");
+        IFFTraversalTarget target = ((IFFContainer) parent).findFileOrFolder(InventoryPather.baseName(path));
+        if (target == null)
+        {
+            FolderInventoryItem folder = new FolderInventoryItem(InventoryPather.baseName(path));
+            ((IFFContainer) parent).addFolder(folder);
+            return folder;
+        }
+        if (target.isAFile()) throw new CLIException("Cannot import a directory over a file.");
+        return (IFFContainer) target;
+    }
+
+    private void importFileFromStream(ArchiveInfoContext context, FileInventoryItem target,
+                                      Algorithms.Compression compression, InputStream is) throws IOException
     {
-        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, target))
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(
+                context, target, compression, PipelinedOutputStream.DEFAULT_DEPTH, ForkJoinPool.commonPool()
+        ))
         {
             byte[] buffer = new byte[(int) Units.MEBIBYTE];
             int n;
@@ -139,15 +222,19 @@ public class ImportFileCommand implements ICLICommand
     }
 
     private void importFileFromStream(ArchiveInfoContext context, FileInventoryItem target,
-                                      InputStream is, long expectedBytes, boolean showProgress) throws IOException
+                                      Algorithms.Compression compression, InputStream is, long expectedBytes,
+                                      boolean showProgress) throws IOException
     {
         ProgressBar pb = new ProgressBar(120, expectedBytes, "Importing file: ");
         pb.setEnabled(showProgress);
         pb.setUnitIsBytes(true);
         pb.startFresh();
 
-        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, target))
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(
+                context, target, compression, PipelinedOutputStream.DEFAULT_DEPTH, ForkJoinPool.commonPool()
+        ))
         {
+            bwos.reserve(expectedBytes);
             byte[] buffer = new byte[(int) Units.MEBIBYTE];
             int n;
             while ((n = is.read(buffer)) != -1)
@@ -35,10 +35,14 @@ import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.IFFTraversalTarget;
 import org.bunkr.core.inventory.InventoryPather;
 import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.input.PrefetchingInputStream;
 import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.streams.output.PipelinedOutputStream;
 import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.utils.Units;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Created At: 2016-01-23
  */
@@ -79,11 +83,16 @@ public class ReencryptFileCommand implements ICLICommand
 
         Algorithms.Encryption algorithmBefore = targetFile.getEncryptionAlgorithm();
 
-        try (MultilayeredInputStream mis = new MultilayeredInputStream(archive, targetFile))
+        try (MultilayeredInputStream mis = new MultilayeredInputStream(
+                archive, targetFile, PrefetchingInputStream.DEFAULT_DEPTH, ForkJoinPool.commonPool()
+        ))
         {
             try(ProtectedMetadataWrite ignored = new ProtectedMetadataWrite(archive, usp))
             {
-                try (MultilayeredOutputStream mos = new MultilayeredOutputStream(archive, targetFile))
+                try (MultilayeredOutputStream mos = new MultilayeredOutputStream(
+                        archive, targetFile, targetFile.getCompression(), PipelinedOutputStream.DEFAULT_DEPTH,
+                        ForkJoinPool.commonPool()
+                ))
                 {
                     byte[] buffer = new byte[(int) Units.MEBIBYTE];
                     int n;
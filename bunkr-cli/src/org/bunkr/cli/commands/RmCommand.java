@@ -91,7 +91,7 @@ public class RmCommand implements ICLICommand
         // now attempt wipe of those blocks if required
         if (!args.getBoolean(ARG_NOWIPE) && !wipeblocks.isEmpty())
         {
-            WipeBlocksOp op = new WipeBlocksOp(aic.filePath, aic.getBlockSize(), wipeblocks, true);
+            WipeBlocksOp op = new WipeBlocksOp(aic, wipeblocks, true);
             ProgressBar pb = new ProgressBar(120, op.getTotalBlocks(), "Wiping file blocks: ");
             pb.setEnabled(!args.getBoolean(ARG_NOPROGRESS));
             pb.startFresh();
@@ -52,6 +52,7 @@ public class ShowFileMetadataCommand implements ICLICommand
             System.out.printf("UUID:                  %s\n", file.getUuid());
             System.out.printf("Actual size:           %d (%s)\n", file.getActualSize(), Formatters.formatBytes(file.getActualSize()));
             System.out.printf("Size on disk:          %d (%s)\n", file.getSizeOnDisk(), Formatters.formatBytes(file.getSizeOnDisk()));
+            System.out.printf("Compression:           %s\n", file.getCompression());
             float compression = 1 - (file.getSizeOnDisk()) / (float)(file.getActualSize());
             System.out.printf("Compression saving:    %.2f%%\n", compression * 100);
             System.out.printf("Modified at:           %s\n", Formatters.formatPrettyDate(file.getModifiedAt()));
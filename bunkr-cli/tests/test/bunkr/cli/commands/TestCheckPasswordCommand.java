@@ -114,7 +114,7 @@ public class TestCheckPasswordCommand
         }
         catch(BaseBunkrException e)
         {
-            assertThat(e.getMessage(), is(equalTo("org.bouncycastle.crypto.InvalidCipherTextException: pad block corrupted")));
+            assertThat(e.getMessage(), is(equalTo("Could not unwrap the inventory key, the password may be incorrect")));
         }
     }
 
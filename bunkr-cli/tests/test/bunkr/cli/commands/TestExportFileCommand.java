@@ -32,8 +32,10 @@ import org.bunkr.cli.CLI;
 import org.bunkr.cli.commands.ExportFileCommand;
 import org.bunkr.core.usersec.PasswordProvider;
 import org.bunkr.core.exceptions.CLIException;
+import org.bunkr.core.inventory.Algorithms;
 import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.streams.input.StoredFileTransfer;
 import org.bunkr.core.streams.output.MultilayeredOutputStream;
 import test.bunkr.core.XTemporaryFolder;
 import test.bunkr.cli.OutputCapture;
@@ -43,6 +45,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -131,6 +134,44 @@ public class TestExportFileCommand
         assertThat(outputFile.length(), is(equalTo(50L)));
     }
 
+    @Test
+    public void testExportStoredFile() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        byte[] content = RandomMaker.get(4444 * 8);
+        FileInventoryItem file = new FileInventoryItem("c.bin");
+        context.getInventory().addFile(file);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, file, Algorithms.Compression.NONE))
+        {
+            bwos.write(content);
+        }
+        MetadataWriter.write(context, usp);
+        assertTrue(StoredFileTransfer.isTransferable(file));
+
+        File outputFile = folder.newFilePath();
+        Map<String, Object> args = new HashMap<>();
+        args.put(CLI.ARG_ARCHIVE_PATH, archiveFile);
+        args.put(ExportFileCommand.ARG_PATH, "/c.bin");
+        args.put(ExportFileCommand.ARG_DESTINATION_FILE, outputFile);
+        args.put(ExportFileCommand.ARG_IGNORE_INTEGRITY_CHECK, false);
+        args.put(ExportFileCommand.ARG_NO_PROGRESS, true);
+        new ExportFileCommand().handle(new Namespace(args));
+        assertThat(Files.readAllBytes(outputFile.toPath()), is(equalTo(content)));
+
+        // break the integrity hash, the transfer must now be reported as failed
+        file.setIntegrityHash(new byte[file.getIntegrityHash().length]);
+        MetadataWriter.write(context, usp);
+        args.put(ExportFileCommand.ARG_DESTINATION_FILE, folder.newFilePath());
+        try
+        {
+            new ExportFileCommand().handle(new Namespace(args));
+            fail("Should have raised an integrity error");
+        }
+        catch (CLIException ignored) {}
+    }
+
     @Test
     public void testExportAFolder() throws Exception
     {
@@ -34,7 +34,9 @@ import org.bunkr.core.usersec.PasswordProvider;
 import org.bunkr.core.exceptions.CLIException;
 import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.streams.input.MultilayeredInputStream;
 import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.utils.IO;
 import test.bunkr.core.XTemporaryFolder;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -45,6 +47,7 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -53,6 +56,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created At: 2015-12-11
@@ -87,6 +91,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/a.txt");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, fileToImport);
         args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         try (OutputCapture ignored = new OutputCapture())
         {
@@ -114,6 +120,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/sub/b.txt");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, new File("-"));
         args.put(ImportFileCommand.ARG_NO_PROGRESS, false);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         ByteArrayInputStream bais = new ByteArrayInputStream(
                 "01234567890123456789012345678901234567890123456789012345678901234567890123456789".getBytes());
@@ -145,6 +153,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/b.txt");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, new File("-"));
         args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         ByteArrayInputStream bais = new ByteArrayInputStream(
                 "01234567890123456789012345678901234567890123456789012345678901234567890123456789".getBytes());
@@ -176,6 +186,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, new File("-"));
         args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         System.setIn(new ByteArrayInputStream("0123456789012345678901234567890123456789".getBytes()));
         try
@@ -214,6 +226,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/a.txt/something");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, new File("-"));
         args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         System.setIn(new ByteArrayInputStream("0123456789012345678901234567890123456789".getBytes()));
         try
@@ -252,6 +266,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/a.txt");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, new File("-"));
         args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         System.setIn(new ByteArrayInputStream("0123456789012345678901234567890123456789".getBytes()));
         try (OutputCapture ignored = new OutputCapture())
@@ -288,6 +304,8 @@ public class TestImportFileCommand
         args.put(ImportFileCommand.ARG_PATH, "/folder");
         args.put(ImportFileCommand.ARG_SOURCE_FILE, new File("-"));
         args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, false);
 
         System.setIn(new ByteArrayInputStream("0123456789012345678901234567890123456789".getBytes()));
         try (OutputCapture ignored = new OutputCapture())
@@ -299,4 +317,82 @@ public class TestImportFileCommand
         System.setIn(null);
     }
 
+    @Test
+    public void testImportRecursive() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+
+        File sourceDir = folder.newFolder();
+        File subDir = new File(sourceDir, "sub");
+        assertTrue(subDir.mkdir());
+        assertTrue(new File(sourceDir, "empty").mkdir());
+        byte[] bigContent = RandomMaker.get(40000 * 8);
+        try(FileOutputStream fos = new FileOutputStream(new File(sourceDir, "big.bin")))
+        {
+            fos.write(bigContent);
+        }
+        try(FileOutputStream fos = new FileOutputStream(new File(subDir, "small.txt")))
+        {
+            fos.write("hello world".getBytes());
+        }
+
+        Map<String, Object> args = new HashMap<>();
+        args.put(CLI.ARG_ARCHIVE_PATH, archiveFile);
+        args.put(ImportFileCommand.ARG_PATH, "/dest");
+        args.put(ImportFileCommand.ARG_SOURCE_FILE, sourceDir);
+        args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, true);
+
+        try (OutputCapture ignored = new OutputCapture())
+        {
+            new ImportFileCommand().handle(new Namespace(args));
+        }
+
+        ArchiveInfoContext context = new ArchiveInfoContext(archiveFile, usp);
+        FolderInventoryItem dest = (FolderInventoryItem) context.getInventory().findFolder("dest");
+        assertThat(dest.getFolders().size(), is(equalTo(2)));
+        FileInventoryItem big = dest.findFile("big.bin");
+        assertThat(big.getActualSize(), is(equalTo((long) bigContent.length)));
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, big))
+        {
+            byte[] buffer = new byte[bigContent.length];
+            assertThat(IO.reliableRead(ms, buffer), is(equalTo(bigContent.length)));
+            assertTrue(Arrays.equals(buffer, bigContent));
+        }
+        FileInventoryItem small = ((FolderInventoryItem) dest.findFolder("sub")).findFile("small.txt");
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, small))
+        {
+            assertThat(IO.readNByteString(ms, 11), is(equalTo("hello world")));
+        }
+    }
+
+    @Test
+    public void testImportRecursiveOverFile() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(
+                archiveFile, new PlaintextDescriptor(), usp
+        );
+        context.getInventory().addFile(new FileInventoryItem("dest"));
+        MetadataWriter.write(context, usp);
+
+        Map<String, Object> args = new HashMap<>();
+        args.put(CLI.ARG_ARCHIVE_PATH, archiveFile);
+        args.put(ImportFileCommand.ARG_PATH, "/dest");
+        args.put(ImportFileCommand.ARG_SOURCE_FILE, folder.newFolder());
+        args.put(ImportFileCommand.ARG_NO_PROGRESS, true);
+        args.put(ImportFileCommand.ARG_NO_COMPRESSION, false);
+        args.put(ImportFileCommand.ARG_RECURSIVE, true);
+
+        try (OutputCapture ignored = new OutputCapture())
+        {
+            new ImportFileCommand().handle(new Namespace(args));
+            fail("Should fail");
+        }
+        catch(CLIException ignored) {}
+    }
 }
@@ -42,6 +42,14 @@ public class ArchiveBuilder
     public static ArchiveInfoContext createNewEmptyArchive(File path, IDescriptor descriptor, UserSecurityProvider uic)
             throws IOException, BaseBunkrException
     {
+        return createNewEmptyArchive(path, descriptor, uic, DEFAULT_BLOCK_SIZE);
+    }
+
+    public static ArchiveInfoContext createNewEmptyArchive(File path, IDescriptor descriptor, UserSecurityProvider uic,
+                                                           int blockSize)
+            throws IOException, BaseBunkrException
+    {
+        if (blockSize <= 0) throw new IllegalArgumentException("Block size must be positive");
         Inventory blankInventory = new Inventory(
                 new ArrayList<>(),
                 new ArrayList<>(),
@@ -56,11 +64,11 @@ public class ArchiveBuilder
                 dos.write(Version.versionMajor);
                 dos.write(Version.versionMinor);
                 dos.write(Version.versionBugfix);
-                dos.writeInt(DEFAULT_BLOCK_SIZE);
+                dos.writeInt(blockSize);
                 dos.writeLong(0);
             }
         }
-        MetadataWriter.write(path, blankInventory, descriptor, uic, DEFAULT_BLOCK_SIZE);
+        MetadataWriter.write(path, blankInventory, descriptor, uic, blockSize);
         return new ArchiveInfoContext(path, uic);
     }
 }
@@ -43,6 +43,12 @@ public class ArchiveInfoContext implements IArchiveInfoContext
     private int blockSize;
     // the length of the block data section in bytes
     private long blockDataLength;
+    // memory mapped windows over the block data section, shared by the writers of this archive
+    private MappedRegionManager mappedRegions = null;
+    // recently read raw blocks, shared by the readers of this archive
+    private BlockCache blockCache = null;
+    // the inventory changes appended after the metadata section
+    private final MetadataJournal journal = new MetadataJournal();
 
     public ArchiveInfoContext(File filePath, UserSecurityProvider uic) throws IOException, BaseBunkrException
     {
@@ -53,6 +59,8 @@ public class ArchiveInfoContext implements IArchiveInfoContext
     @Override
     public void refresh(UserSecurityProvider uic) throws IOException, BaseBunkrException
     {
+        this.releaseMappedRegions();
+        if (this.blockCache != null) this.blockCache.clear();
         try(FileInputStream fis = new FileInputStream(this.filePath))
         {
             try(DataInputStream dis = new DataInputStream(fis))
@@ -64,11 +72,51 @@ public class ArchiveInfoContext implements IArchiveInfoContext
                 this.blockDataLength = dis.readLong();
                 IO.reliableSkip(dis, this.blockDataLength);
                 this.descriptor = DescriptorBuilder.fromJSON(IO.readString(dis));
-                this.inventory = this.descriptor.readInventoryFromBytes(IO.readNBytes(dis, dis.readInt()), uic);
+                this.inventory = this.descriptor.readInventoryFromStream(dis, dis.readInt(), uic);
+                this.journal.replay(
+                        this.descriptor, this.inventory, this.blockDataLength, dis, fis.getChannel().position(),
+                        fis.getChannel().size()
+                );
             }
         }
     }
 
+    /**
+     * @return the journal of inventory changes saved since the last full metadata write
+     */
+    public MetadataJournal getJournal()
+    {
+        return this.journal;
+    }
+
+    /**
+     * @return the shared manager of mapped windows over the block data section of this archive
+     */
+    public synchronized MappedRegionManager getMappedRegions()
+    {
+        if (this.mappedRegions == null) this.mappedRegions = new MappedRegionManager(this.filePath);
+        return this.mappedRegions;
+    }
+
+    /**
+     * Unmap all windows and close the shared region manager. This must happen before the archive is truncated. A new
+     * manager is created the next time one is requested.
+     */
+    public synchronized void releaseMappedRegions() throws IOException
+    {
+        if (this.mappedRegions != null) this.mappedRegions.close();
+        this.mappedRegions = null;
+    }
+
+    /**
+     * @return the shared cache of raw blocks read from this archive
+     */
+    public synchronized BlockCache getBlockCache()
+    {
+        if (this.blockCache == null) this.blockCache = new BlockCache(this.blockSize);
+        return this.blockCache;
+    }
+
     @Override
     public int getBlockSize()
     {
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core;
+
+import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.Algorithms;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryBinary;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.AbortableShutdownHook;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * An ArchiveTransaction groups any number of changes to an archive so that they are saved with a single metadata
+ * write, or not at all. Even with the metadata journal, every write walks the whole inventory to find what changed,
+ * and one made after file data has grown the archive is a full checkpoint that encodes, encrypts and rewrites all of
+ * it. A script making thousands of changes should make them all inside one transaction.
+ *
+ * Inventory changes are made directly on getInventory() as usual. File data must be written through
+ * openOutputStream(), whose blocks are never taken from the files that existed when the transaction began. This means
+ * that rollback() can restore the inventory as it was and leave every old file readable. Blocks freed by the
+ * transaction are only reused once it has been committed.
+ *
+ * A transaction that is closed without being committed is rolled back. Nothing else may write file data to the
+ * archive while a transaction is open, but openOutputStream() may be called from several threads at once.
+ */
+public class ArchiveTransaction implements AutoCloseable
+{
+    private final ArchiveInfoContext context;
+    private final UserSecurityProvider usp;
+    private final byte[] inventorySnapshot;
+    private final FragmentedRange committedBlocks = new FragmentedRange();
+    private final SharedBlockAllocator allocator;
+    private final RecoveryWriter shutdownHook;
+
+    private volatile boolean open = true;
+    private volatile boolean dataWritten = false;
+
+    public ArchiveTransaction(ArchiveInfoContext context, UserSecurityProvider usp)
+    {
+        this.context = context;
+        this.usp = usp;
+        this.inventorySnapshot = InventoryBinary.encode(context.getInventory());
+        Iterator<FileInventoryItem> fileIterator = context.getInventory().getIterator();
+        while (fileIterator.hasNext()) this.committedBlocks.union(fileIterator.next().getBlocks());
+        this.allocator = new SharedBlockAllocator(context.getInventory());
+        this.shutdownHook = new RecoveryWriter();
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    public Inventory getInventory()
+    {
+        return this.context.getInventory();
+    }
+
+    public boolean isOpen()
+    {
+        return this.open;
+    }
+
+    /**
+     * Open a stream that replaces the contents of the given file. The blocks and sizes of the file are only updated
+     * when the stream is closed.
+     *
+     * @param target the file to write, which must already be in the inventory
+     * @param compression the compression to apply to the new contents
+     * @return a stream to write the new contents to
+     * @throws IOException if the archive could not be opened for writing
+     */
+    public MultilayeredOutputStream openOutputStream(FileInventoryItem target, Algorithms.Compression compression)
+            throws IOException
+    {
+        this.assertOpen();
+        // only blocks written earlier in this transaction may be reused, older ones must survive a rollback
+        FragmentedRange reusable = target.getBlocks().copy();
+        reusable.subtract(this.committedBlocks);
+        this.dataWritten = true;
+        return new MultilayeredOutputStream(
+                this.context, target, compression, 0, null, this.allocator.forFile(reusable)
+        );
+    }
+
+    /**
+     * Save all of the changes made in this transaction with a single metadata write.
+     */
+    public void commit() throws IOException, BaseBunkrException
+    {
+        this.assertOpen();
+        MetadataWriter.write(this.context, this.usp);
+        this.finish();
+    }
+
+    /**
+     * Discard all of the changes made in this transaction. The inventory is restored to the state it was in when the
+     * transaction began and any blocks allocated since then are released. The metadata is only rewritten if file data
+     * was written, since the new blocks may have extended the archive over the old metadata.
+     */
+    public void rollback() throws IOException, BaseBunkrException
+    {
+        this.assertOpen();
+        restoreInventory(this.context.getInventory(), InventoryBinary.decode(this.inventorySnapshot));
+        if (this.dataWritten) MetadataWriter.write(this.context, this.usp);
+        this.finish();
+    }
+
+    @Override
+    public void close() throws IOException, BaseBunkrException
+    {
+        if (this.open) this.rollback();
+    }
+
+    private void assertOpen()
+    {
+        if (! this.open) throw new IllegalStateException("Transaction has already been committed or rolled back");
+    }
+
+    private void finish()
+    {
+        this.open = false;
+        this.shutdownHook.abort();
+        Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+    }
+
+    /**
+     * Replace the contents of the live inventory with those of the snapshot. The inventory object itself is kept,
+     * since other parts of the program may be holding on to it.
+     */
+    private static void restoreInventory(Inventory live, Inventory snapshot)
+    {
+        live.getFiles().clear();
+        live.getFolders().clear();
+        for (FileInventoryItem item : new ArrayList<>(snapshot.getFiles())) live.addFile(item);
+        for (FolderInventoryItem item : new ArrayList<>(snapshot.getFolders())) live.addFolder(item);
+        live.setDefaultEncryption(snapshot.getDefaultEncryption());
+    }
+
+    /**
+     * If the program exits while the transaction is open, write the metadata as it was before the transaction so
+     * that the archive can still be read.
+     */
+    private class RecoveryWriter extends AbortableShutdownHook
+    {
+        @Override
+        public void innerRun()
+        {
+            if (! dataWritten) return;
+            try
+            {
+                System.err.println("Performing emergency metadata write for future recovery.");
+                MetadataWriter.write(
+                        context.filePath, InventoryBinary.decode(inventorySnapshot), context.getDescriptor(), usp,
+                        context.getBlockSize()
+                );
+            }
+            catch (IOException | BaseBunkrException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -31,9 +31,13 @@ import java.util.Iterator;
 public class BlockAllocationManager implements IBlockAllocationManager
 {
     private final FragmentedRange currentAllocation = new FragmentedRange();
-    private final FragmentedRange unallocatedBlocks = new FragmentedRange();
+    private final FreeExtentIndex freeExtents;
     private int highestKnownBlockId = -1;
 
+    // the run of blocks that allocateNextBlock should hand out before falling back to the lowest free block
+    private int reservedNext = -1;
+    private int reservedRemaining = 0;
+
     public BlockAllocationManager(Inventory inv, FragmentedRange startingAllocation)
     {
         currentAllocation.union(startingAllocation);
@@ -50,8 +54,9 @@ public class BlockAllocationManager implements IBlockAllocationManager
             }
         }
 
-        unallocatedBlocks.add(0, highestKnownBlockId + 1);
+        FragmentedRange unallocatedBlocks = new FragmentedRange(0, highestKnownBlockId + 1);
         unallocatedBlocks.subtract(usedBlocks);
+        this.freeExtents = new FreeExtentIndex(unallocatedBlocks);
     }
 
     @Override
@@ -69,36 +74,101 @@ public class BlockAllocationManager implements IBlockAllocationManager
     @Override
     public int getNextAllocatableBlockId()
     {
-        if (this.unallocatedBlocks.isEmpty())
+        if (this.hasReservation())
+        {
+            return this.reservedNext;
+        }
+        else if (this.freeExtents.isEmpty())
         {
             // this will give you the id of the logical 'next' block that will extend the data section
             return this.getTotalBlocks();
         }
         else
         {
-            return this.unallocatedBlocks.getMin();
+            return this.freeExtents.getLowest();
         }
     }
 
     @Override
     public int allocateBlock(int blockId)
     {
-        if (!this.unallocatedBlocks.isEmpty() && !this.unallocatedBlocks.contains(blockId))
+        boolean free = this.freeExtents.contains(blockId);
+        if (!this.freeExtents.isEmpty() && !free && blockId != this.getNextAllocatableBlockId())
             throw new IllegalArgumentException("There are unallocated blocks that have not been allocated yet");
-        if (this.unallocatedBlocks.isEmpty() && blockId != this.getNextAllocatableBlockId())
+        if (this.freeExtents.isEmpty() && blockId != this.getNextAllocatableBlockId())
             throw new IllegalArgumentException("The next block you're allowed to allocate is " + this.getNextAllocatableBlockId());
 
-        this.unallocatedBlocks.remove(blockId);
+        boolean reserved = this.hasReservation() && blockId == this.reservedNext;
+        if (free) this.freeExtents.remove(blockId, 1);
+        if (reserved)
+        {
+            this.reservedNext++;
+            this.reservedRemaining--;
+        }
         this.currentAllocation.add(blockId);
         this.highestKnownBlockId = Math.max(this.highestKnownBlockId, blockId);
         return blockId;
     }
 
+    /**
+     * Allocate a contiguous run of blocks. The smallest free extent that can hold the whole run is used, and if no
+     * free extent is long enough the run is placed at the end of the data section.
+     */
+    @Override
+    public FragmentedRange allocateRun(int numBlocks)
+    {
+        if (numBlocks < 1) throw new IllegalArgumentException("Cannot allocate a run of less than 1 block");
+        int start = this.findRun(numBlocks);
+        if (start < this.getTotalBlocks()) this.freeExtents.remove(start, numBlocks);
+        this.currentAllocation.add(start, numBlocks);
+        this.highestKnownBlockId = Math.max(this.highestKnownBlockId, start + numBlocks - 1);
+        return new FragmentedRange(start, numBlocks);
+    }
+
+    /**
+     * Pick a contiguous run for the given number of blocks, chosen the same way as allocateRun, and hand its blocks
+     * out from allocateNextBlock. The blocks stay unallocated until they are asked for, so a file that turns out
+     * smaller than expected leaves the rest of the run free.
+     */
+    @Override
+    public void reserve(int numBlocks)
+    {
+        if (numBlocks < 1)
+        {
+            this.reservedRemaining = 0;
+            return;
+        }
+        this.reservedNext = this.findRun(numBlocks);
+        this.reservedRemaining = numBlocks;
+    }
+
     @Override
     public void clearAllocation()
     {
-        this.unallocatedBlocks.union(this.currentAllocation);
+        this.currentAllocation.iteratePairs().forEachRemaining(p -> this.freeExtents.add(p.getKey(), p.getValue()));
         this.currentAllocation.clear();
+        this.reservedRemaining = 0;
+    }
+
+    /**
+     * @return the index of the free extents below the end of the data section
+     */
+    public FreeExtentIndex getFreeExtents()
+    {
+        return this.freeExtents;
+    }
+
+    private int findRun(int numBlocks)
+    {
+        int start = this.freeExtents.findBestFit(numBlocks);
+        return (start < 0) ? this.getTotalBlocks() : start;
+    }
+
+    private boolean hasReservation()
+    {
+        // blocks of the reservation may have been taken by allocateRun or allocateBlock in the meantime
+        return this.reservedRemaining > 0 &&
+                (this.reservedNext == this.getTotalBlocks() || this.freeExtents.contains(this.reservedNext));
     }
 
     /**
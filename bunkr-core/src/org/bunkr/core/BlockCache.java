@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.utils.Units;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A bounded cache of raw block data, keyed by block id. It holds the blocks exactly as they are stored in the archive,
+ * so encrypted files stay encrypted in memory. Blocks are evicted in least-recently-used order once the configured
+ * number of bytes is exceeded, and every evicted buffer is zeroed and then reused for the next block put in.
+ *
+ * The cache is opt-in for readers. It pays off for blocks that are read again, such as random access through a
+ * MultilayeredSeekableChannel or files open in the GUI, but a file that is streamed once only pays for the extra copy.
+ *
+ * Anything that rewrites blocks must invalidate them here after the write, otherwise readers will be served stale
+ * data. Every invalidation moves the cache to a new generation. A reader takes the generation before it reads blocks
+ * from disk and passes it to put(), which drops the data if anything was invalidated in between, since the blocks it
+ * read may have been overwritten since.
+ */
+public class BlockCache
+{
+    public static final long DEFAULT_CAPACITY = 32 * Units.MEBIBYTE;
+
+    private final int blockSize;
+    private final LinkedHashMap<Integer, byte[]> blocks;
+
+    private int maxBlocks;
+    private long hits = 0;
+    private long misses = 0;
+    private long generation = 0;
+    // the last evicted buffer, zeroed, to be reused by the next put
+    private byte[] spare = null;
+
+    public BlockCache(int blockSize)
+    {
+        this(blockSize, DEFAULT_CAPACITY);
+    }
+
+    public BlockCache(int blockSize, long capacity)
+    {
+        if (blockSize < 1) throw new IllegalArgumentException("blockSize must be positive");
+        this.blockSize = blockSize;
+        this.blocks = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest)
+            {
+                if (this.size() <= maxBlocks) return false;
+                Arrays.fill(eldest.getValue(), (byte) 0);
+                spare = eldest.getValue();
+                return true;
+            }
+        };
+        this.setCapacity(capacity);
+    }
+
+    /**
+     * Change the number of bytes of block data the cache may hold. A capacity smaller than one block disables the
+     * cache. Blocks over the new capacity are evicted immediately.
+     */
+    public synchronized void setCapacity(long capacity)
+    {
+        if (capacity < 0) throw new IllegalArgumentException("Cannot set capacity < 0");
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, capacity / this.blockSize);
+        Iterator<byte[]> it = this.blocks.values().iterator();
+        while (this.blocks.size() > this.maxBlocks && it.hasNext())
+        {
+            Arrays.fill(it.next(), (byte) 0);
+            it.remove();
+        }
+        if (this.maxBlocks == 0) this.spare = null;
+    }
+
+    public synchronized long getCapacity()
+    {
+        return ((long) this.maxBlocks) * this.blockSize;
+    }
+
+    /**
+     * Copy a cached block into the destination array.
+     *
+     * @return true if the block was cached and copied, false on a miss
+     */
+    public synchronized boolean get(int blockId, byte[] dst, int off)
+    {
+        byte[] block = this.blocks.get(blockId);
+        if (block == null)
+        {
+            this.misses++;
+            return false;
+        }
+        this.hits++;
+        System.arraycopy(block, 0, dst, off, this.blockSize);
+        return true;
+    }
+
+    /**
+     * Copy a run of consecutive cached blocks into the destination array, stopping at the first block that is not
+     * cached.
+     *
+     * @param firstBlockId the block id at which the run starts
+     * @param count the maximum number of blocks to copy
+     * @return the number of blocks copied, 0 if the first block is not cached
+     */
+    public synchronized int getRun(int firstBlockId, int count, byte[] dst, int off)
+    {
+        int n = 0;
+        while (n < count)
+        {
+            byte[] block = this.blocks.get(firstBlockId + n);
+            if (block == null) break;
+            System.arraycopy(block, 0, dst, off + n * this.blockSize, this.blockSize);
+            n++;
+        }
+        this.hits += n;
+        if (n == 0) this.misses++;
+        return n;
+    }
+
+    /**
+     * @return the current generation, to be taken before reading blocks from disk that will be put in the cache
+     */
+    public synchronized long getGeneration()
+    {
+        return this.generation;
+    }
+
+    /**
+     * Store a copy of one block of data read from the archive.
+     */
+    public synchronized void put(int blockId, byte[] src, int off)
+    {
+        this.putRun(blockId, 1, src, off, this.generation);
+    }
+
+    /**
+     * Store a copy of a run of consecutive blocks read from the archive, unless a block was invalidated since the
+     * given generation was taken.
+     *
+     * @param generation the value of getGeneration() from before the blocks were read
+     * @return true if the blocks were stored
+     */
+    public synchronized boolean putRun(int firstBlockId, int count, byte[] src, int off, long generation)
+    {
+        if (this.maxBlocks == 0 || generation != this.generation) return false;
+        for (int i = 0; i < count; i++)
+        {
+            byte[] block = this.blocks.get(firstBlockId + i);
+            if (block == null)
+            {
+                block = (this.spare != null) ? this.spare : new byte[this.blockSize];
+                this.spare = null;
+                this.blocks.put(firstBlockId + i, block);
+            }
+            System.arraycopy(src, off + i * this.blockSize, block, 0, this.blockSize);
+        }
+        return true;
+    }
+
+    public synchronized void invalidate(int blockId)
+    {
+        this.generation++;
+        byte[] block = this.blocks.remove(blockId);
+        if (block != null) Arrays.fill(block, (byte) 0);
+    }
+
+    public synchronized void invalidate(FragmentedRange blockIds)
+    {
+        Iterator<Integer> it = blockIds.iterate();
+        while (it.hasNext()) this.invalidate(it.next());
+    }
+
+    /**
+     * Drop and zero every cached block. Counters are not reset.
+     */
+    public synchronized void clear()
+    {
+        this.generation++;
+        for (byte[] block : this.blocks.values()) Arrays.fill(block, (byte) 0);
+        this.blocks.clear();
+        this.spare = null;
+    }
+
+    public synchronized int getCachedBlockCount()
+    {
+        return this.blocks.size();
+    }
+
+    public synchronized long getHits()
+    {
+        return this.hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return this.misses;
+    }
+}
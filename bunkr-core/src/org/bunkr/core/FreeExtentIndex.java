@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * An index of the free extents (runs of unallocated blocks) in an archive. Extents are kept both by start block, so
+ * that neighbours coalesce when blocks are freed, and by length, so that the smallest extent that fits a request
+ * (best fit) or all extents of a given size class can be found without scanning.
+ */
+public class FreeExtentIndex
+{
+    // start block -> length
+    private final TreeMap<Integer, Integer> byStart = new TreeMap<>();
+    // length -> start blocks of extents with that length
+    private final TreeMap<Integer, TreeSet<Integer>> byLength = new TreeMap<>();
+    private long freeBlocks = 0;
+
+    public FreeExtentIndex()
+    {
+    }
+
+    public FreeExtentIndex(FragmentedRange free)
+    {
+        free.iteratePairs().forEachRemaining(p -> this.add(p.getKey(), p.getValue()));
+    }
+
+    /**
+     * Mark a run of blocks as free, merging it with any free extents it touches. The blocks must not already be free.
+     */
+    public void add(int start, int length)
+    {
+        if (length < 1) return;
+        if (start < 0) throw new IllegalArgumentException("Cannot free negative block ids");
+
+        Map.Entry<Integer, Integer> before = this.byStart.floorEntry(start);
+        if (before != null && before.getKey() + before.getValue() > start)
+            throw new IllegalArgumentException("Block " + start + " is already free");
+        Map.Entry<Integer, Integer> after = this.byStart.ceilingEntry(start);
+        if (after != null && after.getKey() < start + length)
+            throw new IllegalArgumentException("Block " + after.getKey() + " is already free");
+
+        this.freeBlocks += length;
+        if (before != null && before.getKey() + before.getValue() == start)
+        {
+            this.unlink(before.getKey(), before.getValue());
+            length += start - before.getKey();
+            start = before.getKey();
+        }
+        if (after != null && after.getKey() == start + length)
+        {
+            this.unlink(after.getKey(), after.getValue());
+            length += after.getValue();
+        }
+        this.link(start, length);
+    }
+
+    /**
+     * Mark a run of free blocks as used. The run must lie within a single free extent.
+     */
+    public void remove(int start, int length)
+    {
+        if (length < 1) return;
+        Map.Entry<Integer, Integer> containing = this.byStart.floorEntry(start);
+        if (containing == null || containing.getKey() + containing.getValue() < start + length)
+            throw new IllegalArgumentException(String.format("Blocks %d-%d are not free", start, start + length));
+
+        int extentStart = containing.getKey();
+        int extentLength = containing.getValue();
+        this.unlink(extentStart, extentLength);
+        if (start > extentStart) this.link(extentStart, start - extentStart);
+        int tail = extentStart + extentLength - (start + length);
+        if (tail > 0) this.link(start + length, tail);
+        this.freeBlocks -= length;
+    }
+
+    public boolean contains(int blockId)
+    {
+        Map.Entry<Integer, Integer> e = this.byStart.floorEntry(blockId);
+        return e != null && e.getKey() + e.getValue() > blockId;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.byStart.isEmpty();
+    }
+
+    /**
+     * @return the lowest free block id, or -1 if there are no free blocks
+     */
+    public int getLowest()
+    {
+        return this.byStart.isEmpty() ? -1 : this.byStart.firstKey();
+    }
+
+    /**
+     * Find the smallest free extent with at least the given number of blocks. Among extents of the same length the
+     * lowest one is chosen.
+     *
+     * @return the start of the extent, or -1 if no extent is long enough
+     */
+    public int findBestFit(int length)
+    {
+        Map.Entry<Integer, TreeSet<Integer>> e = this.byLength.ceilingEntry(length);
+        return (e == null) ? -1 : e.getValue().first();
+    }
+
+    /**
+     * @return the number of free extents with a length in the given range, inclusive
+     */
+    public int countExtents(int minLength, int maxLength)
+    {
+        int n = 0;
+        for (TreeSet<Integer> starts : this.byLength.subMap(minLength, true, maxLength, true).values()) n += starts.size();
+        return n;
+    }
+
+    /**
+     * @return the length of the longest free extent, or 0 if there are no free blocks
+     */
+    public int getLongestLength()
+    {
+        return this.byLength.isEmpty() ? 0 : this.byLength.lastKey();
+    }
+
+    public int getExtentCount()
+    {
+        return this.byStart.size();
+    }
+
+    public long getFreeBlockCount()
+    {
+        return this.freeBlocks;
+    }
+
+    public int getLengthAt(int start)
+    {
+        Integer l = this.byStart.get(start);
+        return (l == null) ? 0 : l;
+    }
+
+    private void link(int start, int length)
+    {
+        this.byStart.put(start, length);
+        this.byLength.computeIfAbsent(length, k -> new TreeSet<>()).add(start);
+    }
+
+    private void unlink(int start, int length)
+    {
+        this.byStart.remove(start);
+        TreeSet<Integer> starts = this.byLength.get(length);
+        starts.remove(start);
+        if (starts.isEmpty()) this.byLength.remove(length);
+    }
+}
@@ -69,4 +69,33 @@ public interface IBlockAllocationManager
         return this.allocateBlock(this.getNextAllocatableBlockId());
     }
 
+    /**
+     * Allocate a run of blocks to the file, contiguous where the allocation manager can manage it.
+     * @param numBlocks the number of blocks to allocate
+     * @return the blocks allocated
+     */
+    default FragmentedRange allocateRun(int numBlocks)
+    {
+        FragmentedRange run = new FragmentedRange();
+        for (int i = 0; i < numBlocks; i++) run.add(this.allocateNextBlock());
+        return run;
+    }
+
+    /**
+     * Hint that roughly the given number of blocks are about to be allocated one at a time, so that they can be
+     * handed out from one contiguous run.
+     * @param numBlocks the expected number of blocks
+     */
+    default void reserve(int numBlocks)
+    {
+    }
+
+    /**
+     * Give back any blocks that were set aside by reserve() but never allocated. Called once the file has been
+     * written.
+     */
+    default void releaseReservation()
+    {
+    }
+
 }
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core;
+
+import org.bunkr.core.utils.Logging;
+import org.bunkr.core.utils.Units;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * The MappedRegionManager maps the block data section of an archive in large aligned windows instead of mapping each
+ * block on its own. Windows are kept in least-recently-used order, a bounded number are held at a time, and every
+ * window is explicitly unmapped when it is evicted, when unmapAll() is called, or when the manager is closed, rather
+ * than whenever the garbage collector gets around to it.
+ *
+ * Mapped buffers are never handed out directly. Callers read and write through the manager, which copies the bytes
+ * while holding its lock, so a window can never be unmapped underneath someone still using it.
+ *
+ * Windows are never mapped past the current end of the file unless a write requires it, so mapping alone does not
+ * grow the archive.
+ */
+public class MappedRegionManager implements AutoCloseable
+{
+    public static final long DEFAULT_WINDOW_SIZE = 16 * Units.MEBIBYTE;
+    public static final int DEFAULT_MAX_WINDOWS = 8;
+    private static final long DATABLOCKS_START = MetadataWriter.DBL_DATA_POS + Long.BYTES;
+
+    private final File filePath;
+    private final long windowSize;
+    private final Map<Long, MappedByteBuffer> windows;
+
+    private FileChannel channel = null;
+
+    public MappedRegionManager(File filePath)
+    {
+        this(filePath, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_WINDOWS);
+    }
+
+    public MappedRegionManager(File filePath, long windowSize, int maxWindows)
+    {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Window size must be between 1 and Integer.MAX_VALUE");
+        if (maxWindows < 1) throw new IllegalArgumentException("Must allow at least one window");
+        this.filePath = filePath;
+        this.windowSize = windowSize;
+        this.windows = new LinkedHashMap<Long, MappedByteBuffer>(maxWindows + 1, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest)
+            {
+                if (this.size() <= maxWindows) return false;
+                unmap(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Copy bytes into the block data section.
+     *
+     * @param blockId the block at which to start writing
+     * @param blockSize the block size of the archive
+     * @param src the source array
+     * @param off offset into the source array
+     * @param len number of bytes to write
+     * @throws IOException if the archive could not be opened or mapped
+     */
+    public synchronized void writeBlocks(int blockId, int blockSize, byte[] src, int off, int len) throws IOException
+    {
+        long offset = ((long) blockId) * blockSize;
+        while (len > 0)
+        {
+            int chunk = (int) Math.min(len, this.windowSize - (offset % this.windowSize));
+            ByteBuffer w = this.windowFor(offset, chunk).duplicate();
+            w.position((int) (offset % this.windowSize));
+            w.put(src, off, chunk);
+            offset += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Write a contiguous run of blocks with a positional gather write on the archive's channel rather than through a
+     * mapped window. This suits large sequential writes, which gain nothing from a mapping. The page cache is shared,
+     * so any mapped window over the same blocks sees the new data.
+     *
+     * @param blockId the block at which to start writing
+     * @param blockSize the block size of the archive
+     * @param srcs the buffers to write, in order, from their positions to their limits
+     * @throws IOException if the archive could not be written
+     */
+    public synchronized void writeBlocksDirect(int blockId, int blockSize, ByteBuffer... srcs) throws IOException
+    {
+        FileChannel c = this.getChannel();
+        c.position(DATABLOCKS_START + ((long) blockId) * blockSize);
+        long remaining = 0;
+        for (ByteBuffer src : srcs) remaining += src.remaining();
+        while (remaining > 0) remaining -= c.write(srcs);
+    }
+
+    /**
+     * Copy bytes out of the block data section.
+     *
+     * @param blockId the block at which to start reading
+     * @param blockSize the block size of the archive
+     * @param dst the destination array
+     * @param off offset into the destination array
+     * @param len number of bytes to read
+     * @throws IOException if the archive could not be opened or mapped
+     */
+    public synchronized void readBlocks(int blockId, int blockSize, byte[] dst, int off, int len) throws IOException
+    {
+        long offset = ((long) blockId) * blockSize;
+        while (len > 0)
+        {
+            int chunk = (int) Math.min(len, this.windowSize - (offset % this.windowSize));
+            ByteBuffer w = this.windowFor(offset, chunk).duplicate();
+            w.position((int) (offset % this.windowSize));
+            w.get(dst, off, chunk);
+            offset += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Update the block data length stored in the archive header. This is a plain positional write, the header is never
+     * mapped.
+     *
+     * @param length the new length of the block data section in bytes
+     * @throws IOException if the archive could not be written
+     */
+    public synchronized void writeBlockDataLength(long length) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        buf.putLong(length);
+        buf.flip();
+        while (buf.hasRemaining()) this.getChannel().write(buf, MetadataWriter.DBL_DATA_POS + buf.position());
+    }
+
+    /**
+     * Unmap all windows but keep the archive open. Windows will be mapped again as needed.
+     */
+    public synchronized void unmapAll()
+    {
+        Iterator<MappedByteBuffer> it = this.windows.values().iterator();
+        while (it.hasNext())
+        {
+            unmap(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * @return the number of windows currently mapped
+     */
+    public synchronized int getMappedWindowCount()
+    {
+        return this.windows.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        this.unmapAll();
+        if (this.channel != null) this.channel.close();
+        this.channel = null;
+    }
+
+    private FileChannel getChannel() throws IOException
+    {
+        if (this.channel == null)
+            this.channel = FileChannel.open(this.filePath.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return this.channel;
+    }
+
+    /**
+     * Find or map the window containing the given range of the block data section. The range must not cross a window
+     * boundary. An existing window that is too short (because the file has grown since it was mapped) is remapped.
+     */
+    private MappedByteBuffer windowFor(long offset, int length) throws IOException
+    {
+        long index = offset / this.windowSize;
+        long windowStart = index * this.windowSize;
+        long requiredLength = offset + length - windowStart;
+
+        MappedByteBuffer w = this.windows.get(index);
+        if (w != null && w.capacity() >= requiredLength) return w;
+        if (w != null) unmap(this.windows.remove(index));
+
+        long fileStart = DATABLOCKS_START + windowStart;
+        long available = this.getChannel().size() - fileStart;
+        long mapLength = Math.max(requiredLength, Math.min(this.windowSize, available));
+        w = this.getChannel().map(FileChannel.MapMode.READ_WRITE, fileStart, mapLength);
+        this.windows.put(index, w);
+        return w;
+    }
+
+    /**
+     * Release the given mapping immediately. Uses Unsafe.invokeCleaner on Java 9+ and the buffer's cleaner on Java 8.
+     * If neither is available the mapping is left for the garbage collector. Also used for short lived mappings made
+     * outside of a manager; the buffer must not be touched afterwards.
+     */
+    public static void unmap(MappedByteBuffer buffer)
+    {
+        try
+        {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try
+            {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            }
+            catch (NoSuchMethodException e)
+            {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            Logging.warn("Could not explicitly unmap region: %s", e.getMessage());
+        }
+    }
+}
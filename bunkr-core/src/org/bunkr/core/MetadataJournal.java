@@ -0,0 +1,495 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core;
+
+import org.bunkr.core.descriptor.IDescriptor;
+import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FileInventoryItemJSON;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.IFFContainer;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryItem;
+import org.bunkr.core.utils.Logging;
+import org.bunkr.core.utils.Units;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * The MetadataJournal is an append-only list of inventory changes stored after the metadata section of the archive.
+ * Saving a small change appends one record holding just the items that were added, changed or removed since the last
+ * save, instead of encoding, encrypting and rewriting the whole inventory. The records are replayed over the inventory
+ * when the archive is opened.
+ *
+ * Changes are found by comparing every item against a fingerprint of its state at the last save, so changes made
+ * anywhere in the program are picked up. The fingerprints are hashed straight from the fields of each item; only the
+ * items that have changed are encoded as JSON. A full metadata write (a checkpoint) folds the journal back into the
+ * inventory. One is needed when:
+ * - the journal has reached its record or size limit
+ * - the descriptor has been replaced, since the records are encrypted under its key
+ * - file data has been written past the end of the block data section, which overwrites the metadata
+ * - blocks at the end of the archive are no longer used and can be truncated
+ *
+ * Each record is stored as [int length][int crc32][bytes]. A torn record at the end of the file is ignored, as is a
+ * length that runs past the end of the file.
+ */
+public class MetadataJournal
+{
+    public static final int DEFAULT_MAX_RECORDS = 1000;
+    public static final long DEFAULT_MAX_BYTES = 4 * Units.MEBIBYTE;
+
+    private static final String KEY_PUT = "put";
+    private static final String KEY_REMOVE = "remove";
+    private static final String KEY_PARENT = "parent";
+    private static final String KEY_FILE = "file";
+    private static final String KEY_FOLDER = "folder";
+    private static final String KEY_NAME = "name";
+    private static final String KEY_UUID = "uuid";
+    private static final String KEY_DEFAULT_ENCRYPTION = "defaultEncryptionAlgorithm";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private int maxRecords = DEFAULT_MAX_RECORDS;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    // the state of the archive on disk as of the last checkpoint or record
+    private IDescriptor descriptor = null;
+    private long blockDataLength = -1;
+    private long appendPosition = -1;
+    private int recordCount = 0;
+    private long recordBytes = 0;
+    private Map<UUID, Long> fingerprints = new HashMap<>();
+    private Encryption defaultEncryption = null;
+
+    public int getMaxRecords()
+    {
+        return maxRecords;
+    }
+
+    public void setMaxRecords(int maxRecords)
+    {
+        if (maxRecords < 0) throw new IllegalArgumentException("Cannot set maxRecords < 0");
+        this.maxRecords = maxRecords;
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes)
+    {
+        if (maxBytes < 0) throw new IllegalArgumentException("Cannot set maxBytes < 0");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the number of records appended since the last checkpoint
+     */
+    public int getRecordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * Forget the journal after a checkpoint has been written.
+     *
+     * @param descriptor the descriptor the checkpoint was written with
+     * @param inventory the inventory that was written
+     * @param blockDataLength the length of the block data section in bytes
+     * @param appendPosition the end of the metadata section, where the first record will go
+     */
+    void reset(IDescriptor descriptor, Inventory inventory, long blockDataLength, long appendPosition)
+    {
+        this.descriptor = descriptor;
+        this.blockDataLength = blockDataLength;
+        this.appendPosition = appendPosition;
+        this.recordCount = 0;
+        this.recordBytes = 0;
+        this.fingerprints = new HashMap<>();
+        fingerprint(inventory, this.fingerprints);
+        this.defaultEncryption = inventory.getDefaultEncryption();
+    }
+
+    /**
+     * Read the records that follow the metadata section and apply them to the inventory.
+     *
+     * @param descriptor the descriptor that has just read the inventory
+     * @param inventory the inventory read from the metadata section
+     * @param blockDataLength the length of the block data section in bytes
+     * @param input the archive, positioned at the end of the metadata section
+     * @param position the position of input in the archive
+     * @param end the length of the archive in bytes
+     */
+    void replay(IDescriptor descriptor, Inventory inventory, long blockDataLength, DataInputStream input, long position,
+                long end) throws IOException, BaseBunkrException
+    {
+        int records = 0;
+        long bytes = 0;
+        while (true)
+        {
+            byte[] payload;
+            try
+            {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length <= 0) break;
+                if (length > end - position - 2 * Integer.BYTES)
+                {
+                    Logging.warn("Ignoring torn metadata journal record at %d", position);
+                    break;
+                }
+                payload = new byte[length];
+                input.readFully(payload);
+                if (checksum != crc(payload))
+                {
+                    Logging.warn("Ignoring corrupt metadata journal record at %d", position);
+                    break;
+                }
+            }
+            catch (EOFException e)
+            {
+                break;
+            }
+
+            byte[] plain = descriptor.readJournalRecord(payload);
+            apply(inventory, (JSONObject) JSONValue.parse(new String(plain, StandardCharsets.UTF_8)));
+            position += 2 * Integer.BYTES + payload.length;
+            bytes += 2 * Integer.BYTES + payload.length;
+            records++;
+        }
+
+        this.reset(descriptor, inventory, blockDataLength, position);
+        this.recordCount = records;
+        this.recordBytes = bytes;
+    }
+
+    /**
+     * Append a record of the changes made to the inventory since the last save, if the archive allows it.
+     *
+     * @return false if a checkpoint must be written instead
+     */
+    boolean tryAppend(File filePath, int blockSize, Inventory inventory, IDescriptor descriptor)
+            throws IOException, BaseBunkrException
+    {
+        if (this.appendPosition < 0 || descriptor != this.descriptor) return false;
+        if (this.recordCount >= this.maxRecords) return false;
+
+        try(RandomAccessFile raf = new RandomAccessFile(filePath, "rw"))
+        {
+            try(FileChannel fc = raf.getChannel())
+            {
+                // any writer that went past the end of the block data section will have changed this
+                ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+                while (buf.hasRemaining())
+                {
+                    if (fc.read(buf, MetadataWriter.DBL_DATA_POS + buf.position()) < 0) return false;
+                }
+                buf.flip();
+                if (buf.getLong() != this.blockDataLength) return false;
+                if (BlockAllocationManager.calculateUsedBlocks(inventory) * blockSize != this.blockDataLength)
+                    return false;
+
+                Map<UUID, Long> current = new HashMap<>();
+                JSONObject record = this.diff(inventory, current);
+                if (record == null) return true;
+
+                byte[] payload = descriptor.writeJournalRecord(record.toJSONString().getBytes(StandardCharsets.UTF_8));
+                long length = 2 * Integer.BYTES + payload.length;
+                if (this.recordBytes + length > this.maxBytes) return false;
+
+                buf = ByteBuffer.allocate((int) length);
+                buf.putInt(payload.length);
+                buf.putInt(crc(payload));
+                buf.put(payload);
+                buf.flip();
+                while (buf.hasRemaining()) fc.write(buf, this.appendPosition + buf.position());
+                raf.setLength(this.appendPosition + length);
+                // readers from before the journal would silently drop the record
+                MetadataWriter.stampFeaturesVersion(fc);
+
+                this.appendPosition += length;
+                this.recordBytes += length;
+                this.recordCount++;
+                this.fingerprints = current;
+                this.defaultEncryption = inventory.getDefaultEncryption();
+            }
+        }
+        Logging.info("Appended metadata journal record %d.", this.recordCount);
+        return true;
+    }
+
+    /**
+     * Build a record of the differences between the inventory and the fingerprints of the last save. Parents are
+     * always put before their children, and removals come after every put so that an item moved out of a removed
+     * folder survives.
+     *
+     * @param current filled with the fingerprints of the inventory as it is now
+     * @return the record, or null if nothing has changed
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject diff(Inventory inventory, Map<UUID, Long> current)
+    {
+        JSONArray puts = new JSONArray();
+        this.diffContainer(inventory, current, puts);
+
+        JSONArray removes = new JSONArray();
+        for (UUID uuid : this.fingerprints.keySet())
+        {
+            if (! current.containsKey(uuid)) removes.add(uuid.toString());
+        }
+
+        boolean encryptionChanged = inventory.getDefaultEncryption() != this.defaultEncryption;
+        if (puts.isEmpty() && removes.isEmpty() && ! encryptionChanged) return null;
+
+        JSONObject record = new JSONObject();
+        record.put(KEY_PUT, puts);
+        record.put(KEY_REMOVE, removes);
+        if (encryptionChanged) record.put(KEY_DEFAULT_ENCRYPTION, inventory.getDefaultEncryption().toString());
+        return record;
+    }
+
+    /**
+     * Walk the tree with an explicit stack, so that deep folder trees don't overflow the thread's stack. A folder's put
+     * is always added before it is walked, so parents still come before their children.
+     */
+    @SuppressWarnings("unchecked")
+    private void diffContainer(IFFContainer root, Map<UUID, Long> current, JSONArray puts)
+    {
+        Deque<IFFContainer> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (! stack.isEmpty())
+        {
+            IFFContainer container = stack.pop();
+            String parentString = parentString(container);
+            for (FolderInventoryItem item : container.getFolders())
+            {
+                long f = fingerprintFolder(item, parentString);
+                current.put(item.getUuid(), f);
+                if (! Long.valueOf(f).equals(this.fingerprints.get(item.getUuid())))
+                {
+                    JSONObject folder = new JSONObject();
+                    folder.put(KEY_NAME, item.getName());
+                    folder.put(KEY_UUID, item.getUuid().toString());
+                    JSONObject put = new JSONObject();
+                    put.put(KEY_PARENT, parentString);
+                    put.put(KEY_FOLDER, folder);
+                    puts.add(put);
+                }
+                stack.push(item);
+            }
+            for (FileInventoryItem item : container.getFiles())
+            {
+                long f = fingerprintFile(item, parentString);
+                current.put(item.getUuid(), f);
+                if (! Long.valueOf(f).equals(this.fingerprints.get(item.getUuid())))
+                {
+                    JSONObject put = new JSONObject();
+                    put.put(KEY_PARENT, parentString);
+                    put.put(KEY_FILE, FileInventoryItemJSON.encodeO(item));
+                    puts.add(put);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the uuid of the folder as it is written in records, or null for the root of the inventory
+     */
+    private static String parentString(IFFContainer container)
+    {
+        if (container instanceof FolderInventoryItem) return ((FolderInventoryItem) container).getUuid().toString();
+        return null;
+    }
+
+    /**
+     * Apply one record to the inventory. Items are looked up through the inventory's uuid index, which follows the
+     * changes as they are made.
+     */
+    private static void apply(Inventory inventory, JSONObject record)
+    {
+        for (Object o : (JSONArray) record.get(KEY_PUT))
+        {
+            JSONObject put = (JSONObject) o;
+            IFFContainer parent = inventory;
+            if (put.get(KEY_PARENT) != null)
+                parent = (IFFContainer) inventory.findByUuid(UUID.fromString((String) put.get(KEY_PARENT)));
+            if (parent == null) throw new IllegalStateException("Journal record refers to a missing folder");
+
+            if (put.get(KEY_FILE) != null)
+            {
+                FileInventoryItem item = FileInventoryItemJSON.decodeO((JSONObject) put.get(KEY_FILE));
+                InventoryItem existing = inventory.findByUuid(item.getUuid());
+                if (existing != null && existing.getParent() != null)
+                    existing.getParent().removeFile((FileInventoryItem) existing);
+                parent.addFile(item);
+            }
+            else
+            {
+                JSONObject folder = (JSONObject) put.get(KEY_FOLDER);
+                UUID uuid = UUID.fromString((String) folder.get(KEY_UUID));
+                FolderInventoryItem item = (FolderInventoryItem) inventory.findByUuid(uuid);
+                if (item == null)
+                {
+                    item = new FolderInventoryItem((String) folder.get(KEY_NAME), uuid, new ArrayList<>(), new ArrayList<>());
+                }
+                else
+                {
+                    item.setName((String) folder.get(KEY_NAME));
+                    if (item.getParent() != null) item.getParent().removeFolder(item);
+                }
+                parent.addFolder(item);
+            }
+        }
+
+        for (Object o : (JSONArray) record.get(KEY_REMOVE))
+        {
+            InventoryItem item = inventory.findByUuid(UUID.fromString((String) o));
+            if (item == null || item.getParent() == null) continue;
+            if (item instanceof FileInventoryItem) item.getParent().removeFile((FileInventoryItem) item);
+            else item.getParent().removeFolder((FolderInventoryItem) item);
+        }
+
+        if (record.get(KEY_DEFAULT_ENCRYPTION) != null)
+            inventory.setDefaultEncryption(Encryption.valueOf((String) record.get(KEY_DEFAULT_ENCRYPTION)));
+    }
+
+    private static void fingerprint(IFFContainer root, Map<UUID, Long> output)
+    {
+        Deque<IFFContainer> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (! stack.isEmpty())
+        {
+            IFFContainer container = stack.pop();
+            String parent = parentString(container);
+            for (FolderInventoryItem item : container.getFolders())
+            {
+                output.put(item.getUuid(), fingerprintFolder(item, parent));
+                stack.push(item);
+            }
+            for (FileInventoryItem item : container.getFiles())
+            {
+                output.put(item.getUuid(), fingerprintFile(item, parent));
+            }
+        }
+    }
+
+    private static long fingerprintFolder(FolderInventoryItem item, String parent)
+    {
+        long hash = fingerprint(FNV_OFFSET, parent);
+        return fingerprint(hash, item.getName());
+    }
+
+    /**
+     * Hash every field that FileInventoryItemJSON writes, along with the parent, without building the JSON.
+     */
+    private static long fingerprintFile(FileInventoryItem item, String parent)
+    {
+        long hash = fingerprint(FNV_OFFSET, parent);
+        hash = fingerprint(hash, item.getName());
+        hash = fingerprint(hash, item.getUuid().getMostSignificantBits());
+        hash = fingerprint(hash, item.getUuid().getLeastSignificantBits());
+        int[] blocks = item.getBlocks().toRepr();
+        hash = fingerprint(hash, blocks.length);
+        for (int b : blocks) hash = fingerprint(hash, b);
+        hash = fingerprint(hash, item.getSizeOnDisk());
+        hash = fingerprint(hash, item.getActualSize());
+        hash = fingerprint(hash, item.getModifiedAt());
+        hash = fingerprint(hash, item.getEncryptionAlgorithm().ordinal());
+        hash = fingerprint(hash, item.getEncryptionData());
+        hash = fingerprint(hash, item.getIntegrityHash());
+        hash = fingerprint(hash, item.getMediaType());
+        hash = fingerprint(hash, item.getCompression().ordinal());
+        hash = fingerprint(hash, item.getFrameSize());
+        int[] frames = item.getFrameLengths();
+        hash = fingerprint(hash, (frames == null) ? -1 : frames.length);
+        if (frames != null) for (int f : frames) hash = fingerprint(hash, f);
+        return hash;
+    }
+
+    /**
+     * The fingerprints are 64 bit FNV-1a hashes, fed one byte at a time. Strings and arrays are prefixed with their
+     * length, or -1 for null, so that neighbouring fields can't run into each other.
+     */
+    private static long fingerprint(long hash, long value)
+    {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE)
+        {
+            hash ^= (value >>> shift) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long fingerprint(long hash, String value)
+    {
+        if (value == null) return fingerprint(hash, -1);
+        hash = fingerprint(hash, value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            hash = ((hash ^ (c & 0xFF)) * FNV_PRIME ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long fingerprint(long hash, byte[] value)
+    {
+        if (value == null) return fingerprint(hash, -1);
+        hash = fingerprint(hash, value.length);
+        for (byte b : value)
+        {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static int crc(byte[] payload)
+    {
+        CRC32 c = new CRC32();
+        c.update(payload, 0, payload.length);
+        return (int) c.getValue();
+    }
+}
@@ -25,6 +25,9 @@ package org.bunkr.core;
 import org.bunkr.core.descriptor.DescriptorBuilder;
 import org.bunkr.core.descriptor.IDescriptor;
 import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.inventory.Algorithms.Compression;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.IFFContainer;
 import org.bunkr.core.inventory.Inventory;
 import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.utils.AbortableShutdownHook;
@@ -33,6 +36,7 @@ import org.bunkr.core.utils.Logging;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Iterator;
 
 /**
  * Created At: 2015-11-08
@@ -45,9 +49,33 @@ public class MetadataWriter
             Integer.BYTES
     );
 
+    /**
+     * Save the inventory of the archive. Where possible only the changes since the last save are appended to the
+     * metadata journal, otherwise this falls back to a checkpoint.
+     */
     public static void write(ArchiveInfoContext context, UserSecurityProvider uic) throws IOException, BaseBunkrException
     {
+        if (context.getJournal().tryAppend(
+                context.filePath, context.getBlockSize(), context.getInventory(), context.getDescriptor()
+        )) return;
+        checkpoint(context, uic);
+    }
+
+    /**
+     * Rewrite the whole metadata section, folding in and clearing the metadata journal. This also truncates any
+     * unused blocks off of the end of the archive.
+     */
+    public static void checkpoint(ArchiveInfoContext context, UserSecurityProvider uic)
+            throws IOException, BaseBunkrException
+    {
+        // the file may be truncated below, so no mapped windows may outlive this point
+        context.releaseMappedRegions();
         write(context.filePath, context.getInventory(), context.getDescriptor(), uic, context.getBlockSize());
+        context.getJournal().reset(
+                context.getDescriptor(), context.getInventory(),
+                BlockAllocationManager.calculateUsedBlocks(context.getInventory()) * context.getBlockSize(),
+                context.filePath.length()
+        );
     }
 
     public static void write(File filePath, Inventory inventory, IDescriptor descriptor, UserSecurityProvider uic, int blockSize)
@@ -68,15 +96,13 @@ public class MetadataWriter
                 long dataBlocksLength = BlockAllocationManager.calculateUsedBlocks(inventory) * blockSize;
 
                 // also means we need to rewrite this value at the beginning of the file
-                ByteBuffer buf = fc.map(FileChannel.MapMode.READ_WRITE, DBL_DATA_POS, Long.BYTES);
+                ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
                 buf.putLong(dataBlocksLength);
+                buf.flip();
+                writeFully(fc, buf, DBL_DATA_POS);
 
-                // now map the metadata section
-                buf = fc.map(
-                        FileChannel.MapMode.READ_WRITE,
-                        DBL_DATA_POS + Long.BYTES + dataBlocksLength,
-                        metaLength
-                );
+                // now build the metadata section
+                buf = ByteBuffer.allocate((int) metaLength);
                 // write plaintext descriptor
                 buf.putInt(descriptorJsonBytes.length);
                 buf.put(descriptorJsonBytes);
@@ -84,14 +110,63 @@ public class MetadataWriter
                 // now write inventory
                 buf.putInt(inventoryJsonBytes.length);
                 buf.put(inventoryJsonBytes);
+                buf.flip();
+                writeFully(fc, buf, DBL_DATA_POS + Long.BYTES + dataBlocksLength);
 
                 // truncate file if required
                 raf.setLength(DBL_DATA_POS + Long.BYTES + dataBlocksLength + metaLength);
+
+                if (descriptor.requiresFeaturesVersion() || usesNewFileFeatures(inventory)) stampFeaturesVersion(fc);
             }
         }
         Logging.info("Saved Archive Metadata.");
     }
 
+    /**
+     * Raise the version in the header of the archive to the features version, so that readers from before the format
+     * changes listed in Version refuse the archive instead of misreading it. A newer version is left as it is.
+     */
+    static void stampFeaturesVersion(FileChannel fc) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.allocate(3);
+        while (buf.hasRemaining())
+        {
+            if (fc.read(buf, ArchiveBuilder.FORMAT_SIG.length + buf.position()) < 0)
+                throw new IOException("Archive header is truncated");
+        }
+        buf.flip();
+        int current = (buf.get() * Version.BYTE + buf.get()) * Version.BYTE + buf.get();
+        if (current >= Version.getFeaturesVersion()) return;
+
+        buf.clear();
+        buf.put(Version.featuresVersionMajor).put(Version.featuresVersionMinor).put(Version.featuresVersionBugfix);
+        buf.flip();
+        writeFully(fc, buf, ArchiveBuilder.FORMAT_SIG.length);
+    }
+
+    /**
+     * A file with a single frame is one complete deflate stream, which older readers inflate correctly, and an empty
+     * file is never inflated, so neither needs the features version.
+     *
+     * @return true if any file has more than one frame, or has content and is stored with the NONE compression
+     */
+    private static boolean usesNewFileFeatures(IFFContainer container)
+    {
+        Iterator<FileInventoryItem> files = container.getIterator();
+        while (files.hasNext())
+        {
+            FileInventoryItem file = files.next();
+            if (file.isFramed() && file.getFrameLengths().length > 1) return true;
+            if (file.getCompression() == Compression.NONE && file.getActualSize() > 0) return true;
+        }
+        return false;
+    }
+
+    private static void writeFully(FileChannel fc, ByteBuffer buf, long position) throws IOException
+    {
+        while (buf.hasRemaining()) fc.write(buf, position + buf.position());
+    }
+
     private static class EnsuredMetadataWriter extends AbortableShutdownHook
     {
         private final ArchiveInfoContext context;
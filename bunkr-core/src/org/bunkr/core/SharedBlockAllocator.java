@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+
+import java.util.Iterator;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A thread safe block allocator shared by several files that are written at the same time.
+ *
+ * The BlockAllocationManager assumes it is the only writer and hands out the lowest free block, so two of them
+ * working on the same archive would hand out the same blocks. Instead, each file written through this allocator gets
+ * its own IBlockAllocationManager from forFile(). A file takes a contiguous run of blocks from the shared pool for its
+ * exclusive use and hands them out one at a time, returning the rest of the run once it is finished.
+ *
+ * The allocator only knows about the inventory as it was when it was created, so nothing else may allocate or free
+ * blocks while it is in use.
+ */
+public class SharedBlockAllocator
+{
+    public static final int DEFAULT_RUN_BLOCKS = 256;
+
+    private final FreeExtentIndex freeExtents;
+    private final int runBlocks;
+    private int highestKnownBlockId = -1;
+
+    public SharedBlockAllocator(Inventory inv, int runBlocks)
+    {
+        if (runBlocks < 1) throw new IllegalArgumentException("runBlocks must be positive");
+        this.runBlocks = runBlocks;
+        FragmentedRange usedBlocks = new FragmentedRange();
+        Iterator<FileInventoryItem> fileIterator = inv.getIterator();
+        while (fileIterator.hasNext())
+        {
+            FileInventoryItem item = fileIterator.next();
+            usedBlocks.union(item.getBlocks());
+            if (!item.getBlocks().isEmpty())
+            {
+                highestKnownBlockId = Math.max(highestKnownBlockId, item.getBlocks().getMax());
+            }
+        }
+
+        FragmentedRange unallocatedBlocks = new FragmentedRange(0, highestKnownBlockId + 1);
+        unallocatedBlocks.subtract(usedBlocks);
+        this.freeExtents = new FreeExtentIndex(unallocatedBlocks);
+    }
+
+    public SharedBlockAllocator(Inventory inv)
+    {
+        this(inv, DEFAULT_RUN_BLOCKS);
+    }
+
+    /**
+     * @param startingAllocation the blocks the file currently holds, which are freed when its writer starts
+     * @return an allocation manager for a single file, which must only be used by one thread at a time
+     */
+    public IBlockAllocationManager forFile(FragmentedRange startingAllocation)
+    {
+        return new FileAllocation(startingAllocation);
+    }
+
+    public synchronized int getTotalBlocks()
+    {
+        return this.highestKnownBlockId + 1;
+    }
+
+    public synchronized long getFreeBlockCount()
+    {
+        return this.freeExtents.getFreeBlockCount();
+    }
+
+    /**
+     * Take a contiguous run of blocks out of the pool, best fit from the free extents or else off the end.
+     *
+     * @return the first block of the run
+     */
+    private synchronized int takeRun(int numBlocks)
+    {
+        int start = this.freeExtents.findBestFit(numBlocks);
+        if (start < 0)
+        {
+            start = this.highestKnownBlockId + 1;
+            this.highestKnownBlockId += numBlocks;
+        }
+        else
+        {
+            this.freeExtents.remove(start, numBlocks);
+        }
+        return start;
+    }
+
+    /**
+     * Return a run of blocks to the pool. A run at the end of the archive shrinks the archive rather than leaving
+     * unwritten blocks behind.
+     */
+    private synchronized void giveBack(int start, int numBlocks)
+    {
+        if (start + numBlocks - 1 == this.highestKnownBlockId) this.highestKnownBlockId = start - 1;
+        else this.freeExtents.add(start, numBlocks);
+    }
+
+    private class FileAllocation implements IBlockAllocationManager
+    {
+        private final FragmentedRange currentAllocation = new FragmentedRange();
+        private int reservedNext = -1;
+        private int reservedRemaining = 0;
+
+        FileAllocation(FragmentedRange startingAllocation)
+        {
+            this.currentAllocation.union(startingAllocation);
+        }
+
+        @Override
+        public FragmentedRange getCurrentAllocation()
+        {
+            return this.currentAllocation;
+        }
+
+        @Override
+        public void clearAllocation()
+        {
+            this.currentAllocation.iteratePairs().forEachRemaining(p -> giveBack(p.getKey(), p.getValue()));
+            this.currentAllocation.clear();
+            this.releaseReservation();
+        }
+
+        @Override
+        public int getTotalBlocks()
+        {
+            return SharedBlockAllocator.this.getTotalBlocks();
+        }
+
+        /**
+         * The next block always comes from this file's own run, so a new run is taken if the current one is used up.
+         */
+        @Override
+        public int getNextAllocatableBlockId()
+        {
+            if (this.reservedRemaining == 0) this.reserve(runBlocks);
+            return this.reservedNext;
+        }
+
+        @Override
+        public int allocateBlock(int blockId)
+        {
+            if (blockId != this.getNextAllocatableBlockId())
+                throw new IllegalArgumentException("The next block you're allowed to allocate is " + this.reservedNext);
+            this.reservedNext++;
+            this.reservedRemaining--;
+            this.currentAllocation.add(blockId);
+            return blockId;
+        }
+
+        @Override
+        public FragmentedRange allocateRun(int numBlocks)
+        {
+            if (numBlocks < 1) throw new IllegalArgumentException("Cannot allocate a run of less than 1 block");
+            int start = takeRun(numBlocks);
+            this.currentAllocation.add(start, numBlocks);
+            return new FragmentedRange(start, numBlocks);
+        }
+
+        @Override
+        public void reserve(int numBlocks)
+        {
+            this.releaseReservation();
+            if (numBlocks < 1) return;
+            this.reservedNext = takeRun(numBlocks);
+            this.reservedRemaining = numBlocks;
+        }
+
+        @Override
+        public void releaseReservation()
+        {
+            if (this.reservedRemaining > 0) giveBack(this.reservedNext, this.reservedRemaining);
+            this.reservedRemaining = 0;
+        }
+    }
+}
@@ -41,6 +41,13 @@ public final class Version
     private static final byte compatibleVersionMajor;
     private static final byte compatibleVersionMinor;
     private static final byte compatibleVersionBugfix;
+
+    // Archives that depend on a file with more than one compression frame, a non-empty file stored with the NONE
+    // compression, the metadata journal or the wrapped scrypt inventory key are stamped with at least this version by
+    // MetadataWriter, since readers from before these format changes would misread them.
+    public static final byte featuresVersionMajor = 0;
+    public static final byte featuresVersionMinor = 13;
+    public static final byte featuresVersionBugfix = 0;
     public static final String gitDate;
     public static final String gitHash;
     public static final String builtDate;
@@ -88,15 +95,30 @@ public final class Version
      *
      * The Boolean 'strict' will cause the function to return false when the file was created with a newer version of
      * the software. This is optional since the user may want to just try to open the file anyway.
+     *
+     * Format changes are only made in a new minor version, and an archive that depends on one has its header raised
+     * to that version (see the features version above). So even when not strict, a file from a newer major or minor
+     * version than this one knows is refused, since opening it anyway would misread it. Files from a newer bugfix
+     * version of a known minor version can still be tried.
      */
     public static boolean isCompatible(byte major, byte minor, byte bugfix, boolean strict)
     {
         int currentVersion = (versionMajor * BYTE + versionMinor) * BYTE + versionBugfix;
         int inputVersion = (major * BYTE + minor) * BYTE + bugfix;
         int earliestVersion = (compatibleVersionMajor * BYTE + compatibleVersionMinor) * BYTE + compatibleVersionBugfix;
+        int knownVersion = Math.max(currentVersion, getFeaturesVersion());
+        if (inputVersion / BYTE > knownVersion / BYTE) return false;
         return inputVersion >= earliestVersion && !(strict && inputVersion > currentVersion);
     }
 
+    /**
+     * @return the features version packed in the same way as isCompatible() packs versions
+     */
+    public static int getFeaturesVersion()
+    {
+        return (featuresVersionMajor * BYTE + featuresVersionMinor) * BYTE + featuresVersionBugfix;
+    }
+
     /**
      * Similar to isCompatible() but as an assertion.
      * @throws IOException if not compatible.
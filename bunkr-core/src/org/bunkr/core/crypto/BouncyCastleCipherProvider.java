@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.TwofishEngine;
+import org.bunkr.core.inventory.Algorithms;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * The pure Java BouncyCastle engines. These support every algorithm we use and are always available.
+ */
+public class BouncyCastleCipherProvider implements ICipherProvider
+{
+    @Override
+    public String getName()
+    {
+        return "BouncyCastle";
+    }
+
+    @Override
+    public boolean supports(Encryption alg)
+    {
+        return Algorithms.SYMMETRIC_MODE.CTR.equals(alg.m) && (
+                Algorithms.SYMMETRIC_CIPHER.AES.equals(alg.c) || Algorithms.SYMMETRIC_CIPHER.TWOFISH.equals(alg.c)
+        );
+    }
+
+    @Override
+    public SkippingStreamCipher buildCipher(Encryption alg)
+    {
+        if (Algorithms.SYMMETRIC_MODE.CTR.equals(alg.m))
+        {
+            if (Algorithms.SYMMETRIC_CIPHER.AES.equals(alg.c)) return new SeekableCTRCipher(new AESEngine());
+            if (Algorithms.SYMMETRIC_CIPHER.TWOFISH.equals(alg.c)) return new SeekableCTRCipher(new TwofishEngine());
+        }
+        throw new IllegalArgumentException(String.format("Unsupported algorithm: %s", alg));
+    }
+}
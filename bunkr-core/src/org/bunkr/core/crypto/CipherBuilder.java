@@ -23,6 +23,7 @@
 package org.bunkr.core.crypto;
 
 import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.SkippingStreamCipher;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.engines.TwofishEngine;
 import org.bouncycastle.crypto.modes.SICBlockCipher;
@@ -34,6 +35,7 @@ import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.utils.RandomMaker;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created At: 2016-01-20
@@ -95,6 +97,74 @@ public class CipherBuilder
         throw new IllegalArgumentException(String.format("Unsupported algorithm: %s", alg));
     }
 
+    /**
+     * Build a stream cipher for encrypting or decrypting the target file, using the preferred ICipherProvider for its
+     * algorithm. The output is identical to that of the cipher from buildCipherForFile.
+     *
+     * As with buildCipherForFile, the encryption data for the file is reinitialized from random when encrypting.
+     *
+     * @param file the target FileInventoryItem
+     * @param encrypting boolean indicating encryption (true) or decryption (false)
+     * @return a SkippingStreamCipher initialized at offset 0
+     */
+    public static SkippingStreamCipher buildStreamCipherForFile(FileInventoryItem file, boolean encrypting)
+    {
+        Encryption alg = file.getEncryptionAlgorithm();
+        SkippingStreamCipher fileCipher = CipherProviders.forAlgorithm(alg).buildCipher(alg);
+        fileCipher.init(encrypting, buildParametersForFile(file, encrypting));
+        return fileCipher;
+    }
+
+    /**
+     * Build a decrypting cipher for the target file that can be positioned at any byte offset of the ciphertext.
+     *
+     * All of the supported modes are counter modes, so the keystream for an offset can be computed directly from the
+     * IV without processing the data before it.
+     *
+     * @param file the target FileInventoryItem
+     * @return a SkippingStreamCipher initialized for decryption at offset 0
+     */
+    public static SkippingStreamCipher buildSeekableCipherForFile(FileInventoryItem file)
+    {
+        return buildStreamCipherForFile(file, false);
+    }
+
+    /**
+     * Build a cipher for encrypting or decrypting the target file that processes large buffers in parallel slices on
+     * the given pool. The output is identical to that of the cipher from buildCipherForFile.
+     *
+     * As with buildCipherForFile, the encryption data for the file is reinitialized from random when encrypting.
+     *
+     * @param file the target FileInventoryItem
+     * @param encrypting boolean indicating encryption (true) or decryption (false)
+     * @param pool the pool to process slices on
+     * @return a SkippingStreamCipher initialized at offset 0
+     */
+    public static SkippingStreamCipher buildParallelCipherForFile(FileInventoryItem file, boolean encrypting,
+                                                                  ForkJoinPool pool)
+    {
+        Encryption alg = file.getEncryptionAlgorithm();
+        ICipherProvider provider = CipherProviders.forAlgorithm(alg);
+        ParallelCTRCipher fileCipher = new ParallelCTRCipher(() -> provider.buildCipher(alg), pool);
+        fileCipher.init(encrypting, buildParametersForFile(file, encrypting));
+        return fileCipher;
+    }
+
+    private static ParametersWithIV buildParametersForFile(FileInventoryItem file, boolean encrypting)
+    {
+        Encryption alg = file.getEncryptionAlgorithm();
+        byte[] edata = file.getEncryptionData();
+        if (encrypting)
+        {
+            edata = new byte[alg.keyByteLength + alg.ivByteLength];
+            RandomMaker.fill(edata);
+            file.setEncryptionData(edata);
+        }
+        byte[] ekey = Arrays.copyOfRange(edata, 0, alg.keyByteLength);
+        byte[] eiv = Arrays.copyOfRange(edata, alg.keyByteLength, alg.keyByteLength + alg.ivByteLength);
+        return new ParametersWithIV(new KeyParameter(ekey), eiv);
+    }
+
     /**
      * Simple version of buildCipherForFile, this time without the encryption data manipulation or file object.
      *
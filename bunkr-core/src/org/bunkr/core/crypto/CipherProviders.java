@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bunkr.core.inventory.Algorithms.Encryption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * The ordered list of cipher providers used to encrypt and decrypt file contents. The first provider that supports
+ * an algorithm is used, so the accelerated JCE provider is tried before BouncyCastle, which supports everything.
+ */
+public class CipherProviders
+{
+    private static volatile List<ICipherProvider> providers = Collections.unmodifiableList(Arrays.asList(
+            new JCECipherProvider(), new BouncyCastleCipherProvider()
+    ));
+
+    /**
+     * @return the provider to use for the given algorithm
+     */
+    public static ICipherProvider forAlgorithm(Encryption alg)
+    {
+        for (ICipherProvider provider : providers)
+        {
+            if (provider.supports(alg)) return provider;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported algorithm: %s", alg));
+    }
+
+    public static List<ICipherProvider> getProviders()
+    {
+        return providers;
+    }
+
+    /**
+     * Replace the providers, in order of preference.
+     */
+    public static void setProviders(List<ICipherProvider> newProviders)
+    {
+        if (newProviders.isEmpty()) throw new IllegalArgumentException("At least one cipher provider is required");
+        providers = Collections.unmodifiableList(new ArrayList<>(newProviders));
+    }
+}
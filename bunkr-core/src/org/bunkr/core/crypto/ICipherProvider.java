@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A source of cipher implementations for file contents. Every supported file encryption is a counter mode, so a
+ * provider hands out seekable stream ciphers, and different providers must produce identical output for the same key
+ * and IV.
+ */
+public interface ICipherProvider
+{
+    /**
+     * @return a short name for the provider, used in logs and error messages
+     */
+    String getName();
+
+    /**
+     * @return true if this provider can build ciphers for the given algorithm in this JVM
+     */
+    boolean supports(Encryption alg);
+
+    /**
+     * Build a new cipher for the given algorithm. The cipher still has to be initialised with a key and IV.
+     * @param alg the encryption algorithm, which must be supported by this provider
+     * @return an uninitialised cipher
+     */
+    SkippingStreamCipher buildCipher(Encryption alg);
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bunkr.core.inventory.Algorithms;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * AES-CTR from the JDK's javax.crypto, which is much faster than the BouncyCastle engine on CPUs with AES
+ * instructions. Only AES is provided, and only key lengths permitted by the installed JCE policy; older JDKs without
+ * the unlimited strength policy files only allow 128 bit AES keys.
+ */
+public class JCECipherProvider implements ICipherProvider
+{
+    private static final int MAX_KEY_BITS = findMaxKeyBits();
+
+    @Override
+    public String getName()
+    {
+        return "JCE";
+    }
+
+    @Override
+    public boolean supports(Encryption alg)
+    {
+        return Algorithms.SYMMETRIC_MODE.CTR.equals(alg.m) &&
+                Algorithms.SYMMETRIC_CIPHER.AES.equals(alg.c) &&
+                alg.keyByteLength * 8 <= MAX_KEY_BITS;
+    }
+
+    @Override
+    public SkippingStreamCipher buildCipher(Encryption alg)
+    {
+        if (! this.supports(alg)) throw new IllegalArgumentException(String.format("Unsupported algorithm: %s", alg));
+        try
+        {
+            return new JCECTRCipher();
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalStateException("JCE AES-CTR is no longer available", e);
+        }
+    }
+
+    /**
+     * @return the longest AES key the JCE will accept, or 0 if AES-CTR is not available at all
+     */
+    private static int findMaxKeyBits()
+    {
+        try
+        {
+            Cipher.getInstance(JCECTRCipher.TRANSFORMATION);
+            return Cipher.getMaxAllowedKeyLength("AES");
+        }
+        catch (GeneralSecurityException e)
+        {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.SkippingStreamCipher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A CTR mode cipher that encrypts or decrypts large buffers in parallel.
+ *
+ * In CTR mode the keystream for any byte offset depends only on the key, the IV and the offset, so a large buffer can
+ * be cut into slices that are each processed by their own seekable cipher positioned at the slice's offset. The
+ * slices run on the given ForkJoinPool, and the result is byte for byte the same as running a single cipher over the
+ * whole stream. Buffers smaller than two slices are processed on the caller's thread.
+ *
+ * Each slice builds its own cipher from the cipher factory, since the ciphers are not thread safe.
+ */
+public class ParallelCTRCipher implements SkippingStreamCipher
+{
+    public static final int DEFAULT_SLICE_SIZE = 64 * 1024;
+    // all of the supported counter mode ciphers use 128 bit blocks
+    private static final int COUNTER_BLOCK_SIZE = 16;
+
+    private final Supplier<SkippingStreamCipher> cipherFactory;
+    private final ForkJoinPool pool;
+    private final int sliceSize;
+    private final SkippingStreamCipher serial;
+
+    private CipherParameters params = null;
+    private boolean encrypting;
+    private long position = 0;
+    private boolean serialInSync = true;
+
+    /**
+     * @param cipherFactory builds a new uninitialised cipher for each slice, usually from an ICipherProvider
+     */
+    public ParallelCTRCipher(Supplier<SkippingStreamCipher> cipherFactory, ForkJoinPool pool, int sliceSize)
+    {
+        if (sliceSize < 1) throw new IllegalArgumentException("sliceSize must be positive");
+        this.cipherFactory = cipherFactory;
+        this.pool = pool;
+        this.serial = cipherFactory.get();
+        // keep slices on cipher block boundaries so that no slice starts part way through a counter block
+        this.sliceSize = Math.max(COUNTER_BLOCK_SIZE, sliceSize - sliceSize % COUNTER_BLOCK_SIZE);
+    }
+
+    public ParallelCTRCipher(Supplier<SkippingStreamCipher> cipherFactory, ForkJoinPool pool)
+    {
+        this(cipherFactory, pool, DEFAULT_SLICE_SIZE);
+    }
+
+    @Override
+    public void init(boolean forEncryption, CipherParameters params) throws IllegalArgumentException
+    {
+        this.serial.init(forEncryption, params);
+        this.encrypting = forEncryption;
+        this.params = params;
+        this.position = 0;
+        this.serialInSync = true;
+    }
+
+    @Override
+    public String getAlgorithmName()
+    {
+        return this.serial.getAlgorithmName();
+    }
+
+    @Override
+    public byte returnByte(byte in)
+    {
+        this.syncSerial();
+        this.position++;
+        return this.serial.returnByte(in);
+    }
+
+    @Override
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) throws DataLengthException
+    {
+        if (inOff + len > in.length) throw new DataLengthException("input buffer too short");
+        if (outOff + len > out.length) throw new OutputLengthException("output buffer too short");
+        if (len < 2 * this.sliceSize)
+        {
+            this.syncSerial();
+            int n = this.serial.processBytes(in, inOff, len, out, outOff);
+            this.position += n;
+            return n;
+        }
+
+        final long base = this.position;
+        // the first slice runs up to a slice boundary of the stream, so that all the others start on one
+        int first = this.sliceSize - (int) (base % this.sliceSize);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(len / this.sliceSize + 2);
+        for (int start = 0; start < len; )
+        {
+            final int sliceStart = start;
+            final int sliceLength = Math.min((start == 0) ? first : this.sliceSize, len - start);
+            tasks.add(this.pool.submit(() -> this.processSlice(
+                    base + sliceStart, in, inOff + sliceStart, sliceLength, out, outOff + sliceStart
+            )));
+            start += sliceLength;
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+
+        this.position += len;
+        this.serialInSync = false;
+        return len;
+    }
+
+    @Override
+    public void reset()
+    {
+        this.serial.reset();
+        this.position = 0;
+        this.serialInSync = true;
+    }
+
+    @Override
+    public long skip(long numberOfBytes)
+    {
+        this.seekTo(this.position + numberOfBytes);
+        return numberOfBytes;
+    }
+
+    @Override
+    public long seekTo(long position)
+    {
+        if (position < 0) throw new IllegalArgumentException("Cannot seek to negative position");
+        this.position = position;
+        this.serialInSync = false;
+        return position;
+    }
+
+    @Override
+    public long getPosition()
+    {
+        return this.position;
+    }
+
+    private void processSlice(long sliceStart, byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        SkippingStreamCipher c = this.cipherFactory.get();
+        c.init(this.encrypting, this.params);
+        c.seekTo(sliceStart);
+        c.processBytes(in, inOff, len, out, outOff);
+    }
+
+    private void syncSerial()
+    {
+        if (this.serialInSync) return;
+        this.serial.seekTo(this.position);
+        this.serialInSync = true;
+    }
+}
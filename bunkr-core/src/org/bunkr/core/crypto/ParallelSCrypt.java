@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.Salsa20Engine;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Pack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * An implementation of scrypt (RFC 7914) that runs its p lanes on separate threads.
+ *
+ * After the first PBKDF2 pass the p blocks of 128 * r bytes are mixed by ROMix completely independently of each
+ * other, so they can run in parallel without changing the result. The output is byte for byte the same as
+ * org.bouncycastle.crypto.generators.SCrypt. Each lane holds 128 * r * N bytes while it runs, so the number of lanes
+ * that run at the same time is capped: that many workers (one on the caller's thread and the rest on the given pool)
+ * take lanes one after another until all p are done.
+ */
+public final class ParallelSCrypt
+{
+    private ParallelSCrypt() {}
+
+    /**
+     * @return the number of lanes that run at the same time on the given pool
+     */
+    public static int getConcurrentLanes(ForkJoinPool pool)
+    {
+        return pool.getParallelism() + 1;
+    }
+
+    /**
+     * @return the number of lanes of the given size that fit in the given amount of memory, at least 1
+     */
+    public static int getLanesThatFit(long memory, int n, int r)
+    {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, memory / (128L * r * n)));
+    }
+
+    public static byte[] generate(byte[] password, byte[] salt, int n, int r, int p, int dkLen, ForkJoinPool pool)
+    {
+        return generate(password, salt, n, r, p, dkLen, pool, getConcurrentLanes(pool));
+    }
+
+    /**
+     * @param maxConcurrentLanes the most lanes to run at the same time, which bounds the memory used to
+     *                           maxConcurrentLanes * 128 * r * N bytes
+     */
+    public static byte[] generate(byte[] password, byte[] salt, int n, int r, int p, int dkLen, ForkJoinPool pool,
+                                  int maxConcurrentLanes)
+    {
+        if (maxConcurrentLanes < 1) throw new IllegalArgumentException("Must run at least one lane at a time");
+        if (n <= 1 || (n & (n - 1)) != 0) throw new IllegalArgumentException("N must be a power of 2 greater than 1");
+        if (r == 1 && n >= 65536) throw new IllegalArgumentException("N must be less than 65536 when r is 1");
+        if (r < 1) throw new IllegalArgumentException("r must be at least 1");
+        if (p < 1 || p > Integer.MAX_VALUE / (128 * r * 8))
+            throw new IllegalArgumentException("p must be between 1 and " + Integer.MAX_VALUE / (128 * r * 8));
+        if (dkLen < 1) throw new IllegalArgumentException("dkLen must be at least 1");
+
+        int laneBytes = 128 * r;
+        byte[] b = singleIterationPBKDF2(password, salt, p * laneBytes);
+        try
+        {
+            AtomicInteger nextLane = new AtomicInteger();
+            Runnable worker = () -> {
+                for (int lane = nextLane.getAndIncrement(); lane < p; lane = nextLane.getAndIncrement())
+                    romix(b, lane * laneBytes, n, r);
+            };
+            int workers = Math.min(p, maxConcurrentLanes);
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(workers - 1);
+            for (int i = 1; i < workers; i++) tasks.add(pool.submit(worker));
+            worker.run();
+            for (ForkJoinTask<?> task : tasks) task.join();
+
+            return singleIterationPBKDF2(password, b, dkLen);
+        }
+        finally
+        {
+            Arrays.fill(b, (byte) 0);
+        }
+    }
+
+    private static byte[] singleIterationPBKDF2(byte[] password, byte[] salt, int dkLen)
+    {
+        PKCS5S2ParametersGenerator g = new PKCS5S2ParametersGenerator(new SHA256Digest());
+        g.init(password, salt, 1);
+        return ((KeyParameter) g.generateDerivedMacParameters(dkLen * 8)).getKey();
+    }
+
+    /**
+     * Run ROMix over the lane of 128 * r bytes at the given offset, in place.
+     */
+    private static void romix(byte[] b, int offset, int n, int r)
+    {
+        int laneInts = 32 * r;
+        int[] x = new int[laneInts];
+        int[] v = new int[n * laneInts];
+        int[] x1 = new int[16];
+        int[] x2 = new int[16];
+        int[] y = new int[laneInts];
+        Pack.littleEndianToInt(b, offset, x);
+
+        try
+        {
+            for (int i = 0; i < n; i++)
+            {
+                System.arraycopy(x, 0, v, i * laneInts, laneInts);
+                blockMix(x, x1, x2, y, r);
+            }
+
+            int mask = n - 1;
+            for (int i = 0; i < n; i++)
+            {
+                int j = x[laneInts - 16] & mask;
+                int vOff = j * laneInts;
+                for (int k = 0; k < laneInts; k++) x[k] ^= v[vOff + k];
+                blockMix(x, x1, x2, y, r);
+            }
+
+            Pack.intToLittleEndian(x, b, offset);
+        }
+        finally
+        {
+            Arrays.fill(v, 0);
+            Arrays.fill(x, 0);
+            Arrays.fill(y, 0);
+        }
+    }
+
+    private static void blockMix(int[] b, int[] x1, int[] x2, int[] y, int r)
+    {
+        System.arraycopy(b, b.length - 16, x1, 0, 16);
+
+        int bOff = 0;
+        int yOff = 0;
+        int halfLen = b.length >>> 1;
+
+        for (int i = 2 * r; i > 0; i--)
+        {
+            for (int k = 0; k < 16; k++) x2[k] = x1[k] ^ b[bOff + k];
+            Salsa20Engine.salsaCore(8, x2, x1);
+            System.arraycopy(x1, 0, y, yOff, 16);
+
+            // even blocks go to the first half of the output and odd blocks to the second
+            yOff = halfLen + bOff - yOff;
+            bOff += 16;
+        }
+
+        System.arraycopy(y, 0, b, 0, y.length);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.crypto;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A CTR mode cipher that can be positioned at any byte offset of the stream.
+ *
+ * The seekTo() of the SICBlockCipher shipped with our version of BouncyCastle miscalculates the counter whenever the
+ * addition carries between bytes, so this class computes the counter block for an offset itself. The counter is the
+ * IV treated as a 128 bit big endian integer plus the block number, which is exactly how the SICBlockCipher steps
+ * the counter when used as a plain stream.
+ */
+public class SeekableCTRCipher implements SkippingStreamCipher
+{
+    private final SICBlockCipher cipher;
+    private final int blockSize;
+    private byte[] key;
+    private byte[] iv;
+    private boolean encrypting;
+    private long position = 0;
+
+    public SeekableCTRCipher(BlockCipher engine)
+    {
+        this.cipher = new SICBlockCipher(engine);
+        this.blockSize = engine.getBlockSize();
+    }
+
+    @Override
+    public void init(boolean forEncryption, CipherParameters params) throws IllegalArgumentException
+    {
+        if (! (params instanceof ParametersWithIV)) throw new IllegalArgumentException("CTR mode requires an IV");
+        ParametersWithIV ivParams = (ParametersWithIV) params;
+        if (ivParams.getIV().length != this.blockSize) throw new IllegalArgumentException(
+                String.format("Supplied iv length %s != required iv length %s", ivParams.getIV().length, this.blockSize)
+        );
+        this.encrypting = forEncryption;
+        this.key = ((KeyParameter) ivParams.getParameters()).getKey();
+        this.iv = ivParams.getIV();
+        this.cipher.init(forEncryption, ivParams);
+        this.position = 0;
+    }
+
+    @Override
+    public String getAlgorithmName()
+    {
+        return this.cipher.getAlgorithmName();
+    }
+
+    @Override
+    public byte returnByte(byte in)
+    {
+        this.position++;
+        return this.cipher.returnByte(in);
+    }
+
+    @Override
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) throws DataLengthException
+    {
+        int n = this.cipher.processBytes(in, inOff, len, out, outOff);
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public void reset()
+    {
+        this.cipher.reset();
+        this.position = 0;
+    }
+
+    @Override
+    public long skip(long numberOfBytes)
+    {
+        this.seekTo(this.position + numberOfBytes);
+        return numberOfBytes;
+    }
+
+    @Override
+    public long seekTo(long position)
+    {
+        if (position < 0) throw new IllegalArgumentException("Cannot seek to negative position");
+        this.cipher.init(this.encrypting, new ParametersWithIV(new KeyParameter(this.key), counterFor(position)));
+        int skew = (int) (position % this.blockSize);
+        for (int i = 0; i < skew; i++) this.cipher.returnByte((byte) 0);
+        this.position = position;
+        return position;
+    }
+
+    @Override
+    public long getPosition()
+    {
+        return this.position;
+    }
+
+    public int getBlockSize()
+    {
+        return this.blockSize;
+    }
+
+    private byte[] counterFor(long position)
+    {
+        return counterFor(this.iv, position / this.blockSize);
+    }
+
+    /**
+     * @return the counter block for the given block number of a stream starting at the given IV
+     */
+    static byte[] counterFor(byte[] iv, long blockNumber)
+    {
+        byte[] counter = iv.clone();
+        long carry = blockNumber;
+        for (int i = counter.length - 1; i >= 0 && carry != 0; i--)
+        {
+            long v = (counter[i] & 0xFF) + (carry & 0xFF);
+            counter[i] = (byte) v;
+            carry = (carry >>> 8) + (v >>> 8);
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.descriptor;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.RFC3394WrapEngine;
+import org.bouncycastle.crypto.engines.TwofishEngine;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.inventory.Algorithms;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Wraps the random inventory data key of a descriptor with the key-encryption key derived from the user's password,
+ * using the RFC 3394 key wrap over the descriptor's block cipher. Unwrapping checks the integrity of the key, so a
+ * wrong password is detected here rather than when the inventory fails to parse.
+ */
+class DataKeyWrapper
+{
+    static byte[] wrap(Encryption algorithm, byte[] kek, byte[] dataKey)
+    {
+        RFC3394WrapEngine engine = new RFC3394WrapEngine(buildEngine(algorithm));
+        engine.init(true, new KeyParameter(kek));
+        return engine.wrap(dataKey, 0, dataKey.length);
+    }
+
+    static byte[] unwrap(Encryption algorithm, byte[] kek, byte[] wrappedKey) throws BaseBunkrException
+    {
+        RFC3394WrapEngine engine = new RFC3394WrapEngine(buildEngine(algorithm));
+        engine.init(false, new KeyParameter(kek));
+        try
+        {
+            return engine.unwrap(wrappedKey, 0, wrappedKey.length);
+        }
+        catch (InvalidCipherTextException e)
+        {
+            throw new BaseBunkrException(e, "Could not unwrap the inventory key, the password may be incorrect");
+        }
+    }
+
+    private static BlockCipher buildEngine(Encryption algorithm)
+    {
+        if (algorithm.c == Algorithms.SYMMETRIC_CIPHER.AES) return new AESEngine();
+        if (algorithm.c == Algorithms.SYMMETRIC_CIPHER.TWOFISH) return new TwofishEngine();
+        throw new IllegalArgumentException("Unsupported key wrap algorithm " + algorithm);
+    }
+}
@@ -25,8 +25,12 @@ package org.bunkr.core.descriptor;
 import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.exceptions.BaseBunkrException;
 import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.utils.IO;
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Created At: 2015-10-25
  *
@@ -41,4 +45,41 @@ public interface IDescriptor
     Inventory readInventoryFromBytes(byte[] source, UserSecurityProvider usp) throws BaseBunkrException;
 
     byte[] writeInventoryToBytes(Inventory source, UserSecurityProvider usp) throws BaseBunkrException;
+
+    /**
+     * Read the inventory from the next 'length' bytes of the source. Descriptors that can decode the inventory as it is
+     * read override this so that the metadata section is never held in memory as a whole. Either way the source is
+     * left positioned directly after the inventory.
+     */
+    default Inventory readInventoryFromStream(InputStream source, int length, UserSecurityProvider usp)
+            throws IOException, BaseBunkrException
+    {
+        return this.readInventoryFromBytes(IO.readNBytes(source, length), usp);
+    }
+
+    /**
+     * @return true if the metadata last written by this descriptor can only be read by Version's features version or
+     * later. Only called after writeInventoryToBytes.
+     */
+    default boolean requiresFeaturesVersion()
+    {
+        return false;
+    }
+
+    /**
+     * Encrypt a record of the metadata journal. Encrypted descriptors use the key derived by the last call to
+     * readInventoryFromBytes or writeInventoryToBytes, so appending a record does not run the key derivation again.
+     */
+    default byte[] writeJournalRecord(byte[] record) throws BaseBunkrException
+    {
+        return record;
+    }
+
+    /**
+     * Decrypt a record of the metadata journal written by writeJournalRecord.
+     */
+    default byte[] readJournalRecord(byte[] source) throws BaseBunkrException
+    {
+        return source;
+    }
 }
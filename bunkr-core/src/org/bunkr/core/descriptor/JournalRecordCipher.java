@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.descriptor;
+
+import org.bouncycastle.crypto.CryptoException;
+import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.utils.RandomMaker;
+import org.bunkr.core.utils.SimpleBlockCipher;
+
+import java.util.Arrays;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Encrypts the records of the metadata journal for the encrypted descriptors. Every record is encrypted under the
+ * descriptor's derived key with its own random iv, which is stored in front of the ciphertext.
+ */
+class JournalRecordCipher
+{
+    static byte[] encrypt(Encryption algorithm, byte[] key, byte[] record) throws BaseBunkrException
+    {
+        if (key == null) throw new IllegalStateException("No key has been derived for the metadata journal");
+        try
+        {
+            byte[] iv = RandomMaker.get(algorithm.ivByteLength * 8);
+            byte[] encrypted = SimpleBlockCipher.encrypt(algorithm, record, key, iv);
+            byte[] output = new byte[iv.length + encrypted.length];
+            System.arraycopy(iv, 0, output, 0, iv.length);
+            System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+            return output;
+        }
+        catch (CryptoException e)
+        {
+            throw new BaseBunkrException(e);
+        }
+    }
+
+    static byte[] decrypt(Encryption algorithm, byte[] key, byte[] source) throws BaseBunkrException
+    {
+        if (key == null) throw new IllegalStateException("No key has been derived for the metadata journal");
+        if (source.length < algorithm.ivByteLength) throw new BaseBunkrException("Journal record is too short");
+        try
+        {
+            byte[] iv = Arrays.copyOfRange(source, 0, algorithm.ivByteLength);
+            byte[] encrypted = Arrays.copyOfRange(source, algorithm.ivByteLength, source.length);
+            return SimpleBlockCipher.decrypt(algorithm, encrypted, key, iv);
+        }
+        catch (CryptoException e)
+        {
+            throw new BaseBunkrException(e);
+        }
+    }
+}
@@ -33,7 +33,8 @@ import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.exceptions.BaseBunkrException;
 import org.bunkr.core.exceptions.IllegalPasswordException;
 import org.bunkr.core.inventory.Inventory;
-import org.bunkr.core.inventory.InventoryJSON;
+import org.bunkr.core.inventory.InventoryBinary;
+import org.bunkr.core.streams.input.BoundedInputStream;
 import org.bunkr.core.utils.Logging;
 import org.bunkr.core.utils.RandomMaker;
 import org.bunkr.core.utils.SimpleBlockCipher;
@@ -41,9 +42,12 @@ import org.bunkr.core.utils.Units;
 import org.json.simple.JSONObject;
 
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created At: 2015-12-20
@@ -62,6 +66,15 @@ public class PBKDF2Descriptor implements IDescriptor
     public final int pbkdf2Iterations;
     public final byte[] pbkdf2Salt;
 
+    // the random inventory key wrapped with the key derived from the password, and the iv of the last inventory
+    // written with it. Both are null for archives written before the inventory key was introduced.
+    private byte[] wrappedKey = null;
+    private byte[] inventoryIV = null;
+    // the unwrapped inventory key, known once the password has been used in this session
+    private byte[] dataKey = null;
+    // key used for the metadata journal
+    private byte[] journalKey = null;
+
     public PBKDF2Descriptor(Encryption encryptionAlgorithm, int pbkdf2Iterations, byte[] pbkdf2Salt)
     {
         this.encryptionAlgorithm = encryptionAlgorithm;
@@ -77,6 +90,11 @@ public class PBKDF2Descriptor implements IDescriptor
         encryptionAlgorithm = Encryption.valueOf((String) params.get("encryptionAlgorithm"));
         pbkdf2Iterations = ((Long) params.get("timeComboBox")).intValue();
         pbkdf2Salt =  DatatypeConverter.parseBase64Binary((String) params.get("salt"));
+        if (params.get("wrappedKey") != null)
+        {
+            wrappedKey = DatatypeConverter.parseBase64Binary((String) params.get("wrappedKey"));
+            inventoryIV = DatatypeConverter.parseBase64Binary((String) params.get("inventoryIV"));
+        }
 
         if (pbkdf2Iterations < MINIMUM_PBKD2_ITERS)
             throw new IllegalArgumentException(String.format("pbkdf2Iterations must be at least %d", MINIMUM_PBKD2_ITERS));
@@ -96,6 +114,11 @@ public class PBKDF2Descriptor implements IDescriptor
         out.put("encryptionAlgorithm", this.encryptionAlgorithm.toString());
         out.put("timeComboBox", this.pbkdf2Iterations);
         out.put("salt", DatatypeConverter.printBase64Binary(this.pbkdf2Salt));
+        if (this.wrappedKey != null)
+        {
+            out.put("wrappedKey", DatatypeConverter.printBase64Binary(this.wrappedKey));
+            out.put("inventoryIV", DatatypeConverter.printBase64Binary(this.inventoryIV));
+        }
         return out;
     }
 
@@ -107,20 +130,29 @@ public class PBKDF2Descriptor implements IDescriptor
             if (this.encryptionAlgorithm == Encryption.NONE)
                 throw new IllegalArgumentException("PBKDF2Descriptor requires an active encryption mode");
 
-            PKCS5S2ParametersGenerator g = new PKCS5S2ParametersGenerator(new SHA256Digest());
-            g.init(usp.getHashedPassword(), this.pbkdf2Salt, this.pbkdf2Iterations);
-            ParametersWithIV kp = (ParametersWithIV) g.generateDerivedParameters(
-                    this.encryptionAlgorithm.keyByteLength * 8,
-                    this.encryptionAlgorithm.ivByteLength * 8);
-
-            byte[] decryptedInv = SimpleBlockCipher.decrypt(
-                    this.encryptionAlgorithm,
-                    source,
-                    ((KeyParameter) kp.getParameters()).getKey(),
-                    kp.getIV()
-            );
+            byte[] decryptedInv;
+            if (this.wrappedKey == null)
+            {
+                // older archives encrypt the inventory with the derived key and iv directly
+                ParametersWithIV kp = this.deriveKey(usp);
+                decryptedInv = SimpleBlockCipher.decrypt(
+                        this.encryptionAlgorithm,
+                        source,
+                        ((KeyParameter) kp.getParameters()).getKey(),
+                        kp.getIV()
+                );
+                this.journalKey = ((KeyParameter) kp.getParameters()).getKey();
+            }
+            else
+            {
+                if (this.dataKey == null) this.dataKey = this.unwrapDataKey(usp);
+                decryptedInv = SimpleBlockCipher.decrypt(
+                        this.encryptionAlgorithm, source, this.dataKey, this.inventoryIV
+                );
+                this.journalKey = this.dataKey;
+            }
 
-            return InventoryJSON.decode(new String(decryptedInv));
+            return InventoryBinary.decodeAnyFormat(decryptedInv, ForkJoinPool.commonPool());
         }
         catch (IllegalPasswordException | CryptoException e)
         {
@@ -128,33 +160,66 @@ public class PBKDF2Descriptor implements IDescriptor
         }
     }
 
+    /**
+     * Archives with a wrapped data key are decrypted and decoded as they are read. Older archives are read whole so
+     * that a wrong password is still reported by the padding check before anything is parsed.
+     */
+    @Override
+    public Inventory readInventoryFromStream(InputStream source, int length, UserSecurityProvider usp)
+            throws IOException, BaseBunkrException
+    {
+        if (this.wrappedKey == null) return IDescriptor.super.readInventoryFromStream(source, length, usp);
+        if (this.encryptionAlgorithm == Encryption.NONE)
+            throw new IllegalArgumentException("PBKDF2Descriptor requires an active encryption mode");
+        try
+        {
+            if (this.dataKey == null) this.dataKey = this.unwrapDataKey(usp);
+        }
+        catch (IllegalPasswordException e)
+        {
+            throw new BaseBunkrException(e);
+        }
+        BoundedInputStream section = new BoundedInputStream(source, length);
+        Inventory inventory = InventoryBinary.decodeAnyFormat(SimpleBlockCipher.decryptingStream(
+                this.encryptionAlgorithm, section, this.dataKey, this.inventoryIV
+        ), ForkJoinPool.commonPool());
+        section.drain();
+        this.journalKey = this.dataKey;
+        return inventory;
+    }
+
+    /**
+     * The inventory is encrypted with a random data key, which is wrapped with a key-encryption key derived from the
+     * password. The key derivation only runs on the first save of a session, when a new data key is generated and
+     * wrapped under a fresh salt. Later saves just encrypt the inventory with the data key under a new iv.
+     */
     @Override
     public byte[] writeInventoryToBytes(Inventory source, UserSecurityProvider usp) throws BaseBunkrException
     {
         try
         {
-            byte[] inventoryJsonBytes = InventoryJSON.encode(source).getBytes();
+            byte[] inventoryBytes = InventoryBinary.encode(source, ForkJoinPool.commonPool());
 
             if (this.encryptionAlgorithm == Encryption.NONE)
                 throw new IllegalArgumentException("PBKDF2Descriptor requires an active encryption mode");
 
-            // first refresh the salt
-            RandomMaker.fill(this.pbkdf2Salt);
-
-            PKCS5S2ParametersGenerator g = new PKCS5S2ParametersGenerator(new SHA256Digest());
-            g.init(usp.getHashedPassword(), this.pbkdf2Salt, this.pbkdf2Iterations);
-            ParametersWithIV kp = (ParametersWithIV) g.generateDerivedParameters(
-                    this.encryptionAlgorithm.keyByteLength * 8,
-                    this.encryptionAlgorithm.ivByteLength * 8);
+            if (this.dataKey == null)
+            {
+                // first refresh the salt
+                RandomMaker.fill(this.pbkdf2Salt);
+                byte[] kek = ((KeyParameter) this.deriveKey(usp).getParameters()).getKey();
+                this.dataKey = RandomMaker.get(this.encryptionAlgorithm.keyByteLength * 8);
+                this.wrappedKey = DataKeyWrapper.wrap(this.encryptionAlgorithm, kek, this.dataKey);
+                Arrays.fill(kek, (byte) 0);
+            }
+            this.inventoryIV = RandomMaker.get(this.encryptionAlgorithm.ivByteLength * 8);
 
             // encrypt the inventory
             byte[] encryptedInv = SimpleBlockCipher.encrypt(
-                    this.encryptionAlgorithm,
-                    inventoryJsonBytes,
-                    ((KeyParameter) kp.getParameters()).getKey(),
-                    kp.getIV()
+                    this.encryptionAlgorithm, inventoryBytes, this.dataKey, this.inventoryIV
             );
-            Arrays.fill(inventoryJsonBytes, (byte) 0);
+            Arrays.fill(inventoryBytes, (byte) 0);
+            this.journalKey = this.dataKey;
 
             return encryptedInv;
         }
@@ -164,6 +229,40 @@ public class PBKDF2Descriptor implements IDescriptor
         }
     }
 
+    private byte[] unwrapDataKey(UserSecurityProvider usp) throws BaseBunkrException
+    {
+        byte[] kek = ((KeyParameter) this.deriveKey(usp).getParameters()).getKey();
+        try
+        {
+            return DataKeyWrapper.unwrap(this.encryptionAlgorithm, kek, this.wrappedKey);
+        }
+        finally
+        {
+            Arrays.fill(kek, (byte) 0);
+        }
+    }
+
+    private ParametersWithIV deriveKey(UserSecurityProvider usp) throws IllegalPasswordException
+    {
+        PKCS5S2ParametersGenerator g = new PKCS5S2ParametersGenerator(new SHA256Digest());
+        g.init(usp.getHashedPassword(), this.pbkdf2Salt, this.pbkdf2Iterations);
+        return (ParametersWithIV) g.generateDerivedParameters(
+                this.encryptionAlgorithm.keyByteLength * 8,
+                this.encryptionAlgorithm.ivByteLength * 8);
+    }
+
+    @Override
+    public byte[] writeJournalRecord(byte[] record) throws BaseBunkrException
+    {
+        return JournalRecordCipher.encrypt(this.encryptionAlgorithm, this.journalKey, record);
+    }
+
+    @Override
+    public byte[] readJournalRecord(byte[] source) throws BaseBunkrException
+    {
+        return JournalRecordCipher.decrypt(this.encryptionAlgorithm, this.journalKey, source);
+    }
+
     public static IDescriptor make(Encryption algorithm, int iterations)
     {
         return new PBKDF2Descriptor(algorithm, iterations, RandomMaker.get(SALT_LENGTH));
@@ -24,9 +24,14 @@ package org.bunkr.core.descriptor;
 
 import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryBinary;
 import org.bunkr.core.inventory.InventoryJSON;
+import org.bunkr.core.streams.input.BoundedInputStream;
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Created At: 2015-12-20
  */
@@ -54,9 +59,22 @@ public class PlaintextDescriptor implements IDescriptor
     @Override
     public Inventory readInventoryFromBytes(byte[] source, UserSecurityProvider usp)
     {
-        return InventoryJSON.decode(new String(source));
+        return InventoryBinary.decodeAnyFormat(source);
+    }
+
+    @Override
+    public Inventory readInventoryFromStream(InputStream source, int length, UserSecurityProvider usp)
+            throws IOException
+    {
+        BoundedInputStream section = new BoundedInputStream(source, length);
+        Inventory inventory = InventoryBinary.decodeAnyFormat(section);
+        section.drain();
+        return inventory;
     }
 
+    /**
+     * Plaintext archives keep the JSON inventory so that they stay readable with a text editor.
+     */
     @Override
     public byte[] writeInventoryToBytes(Inventory source, UserSecurityProvider usp)
     {
@@ -23,20 +23,25 @@
 package org.bunkr.core.descriptor;
 
 import org.bouncycastle.crypto.CryptoException;
-import org.bouncycastle.crypto.generators.SCrypt;
+import org.bunkr.core.crypto.ParallelSCrypt;
 import org.bunkr.core.exceptions.BaseBunkrException;
 import org.bunkr.core.exceptions.IllegalPasswordException;
 import org.bunkr.core.inventory.Algorithms.Encryption;
 import org.bunkr.core.inventory.Inventory;
-import org.bunkr.core.inventory.InventoryJSON;
+import org.bunkr.core.inventory.InventoryBinary;
+import org.bunkr.core.streams.input.BoundedInputStream;
 import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.Logging;
 import org.bunkr.core.utils.RandomMaker;
 import org.bunkr.core.utils.SimpleBlockCipher;
 import org.json.simple.JSONObject;
 
 import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -64,14 +69,32 @@ public class ScryptDescriptor implements IDescriptor
     public final byte[] scryptSalt;
     public final int scryptR;
     public final int scryptP;
+    // the most lanes to run at the same time, chosen by calibrate() to fit its memory budget, or 0 if not set
+    public final int scryptLanes;
+
+    // the random inventory key wrapped with the key derived from the password, and the iv of the last inventory
+    // written with it. Both are null for archives written before the inventory key was introduced.
+    private byte[] wrappedKey = null;
+    private byte[] inventoryIV = null;
+    // the unwrapped inventory key, known once the password has been used in this session
+    private byte[] dataKey = null;
+    // key used for the metadata journal
+    private byte[] journalKey = null;
 
     public ScryptDescriptor(Encryption encryptionAlgorithm, int scryptN, byte[] scryptSalt, int scryptR, int scryptP)
+    {
+        this(encryptionAlgorithm, scryptN, scryptSalt, scryptR, scryptP, 0);
+    }
+
+    public ScryptDescriptor(Encryption encryptionAlgorithm, int scryptN, byte[] scryptSalt, int scryptR, int scryptP,
+                            int scryptLanes)
     {
         this.encryptionAlgorithm = encryptionAlgorithm;
         this.scryptN = scryptN;
         this.scryptSalt = scryptSalt;
         this.scryptR = scryptR;
         this.scryptP = scryptP;
+        this.scryptLanes = scryptLanes;
     }
 
     public ScryptDescriptor(JSONObject o)
@@ -81,6 +104,12 @@ public class ScryptDescriptor implements IDescriptor
         this.scryptN = ((Long) o.get("scryptN")).intValue();
         this.scryptR = ((Long) o.get("scryptR")).intValue();
         this.scryptP = ((Long) o.get("scryptP")).intValue();
+        this.scryptLanes = (o.get("scryptLanes") != null) ? ((Long) o.get("scryptLanes")).intValue() : 0;
+        if (o.get("wrappedKey") != null)
+        {
+            this.wrappedKey = DatatypeConverter.parseBase64Binary((String) o.get("wrappedKey"));
+            this.inventoryIV = DatatypeConverter.parseBase64Binary((String) o.get("inventoryIV"));
+        }
     }
 
     @Override
@@ -99,6 +128,12 @@ public class ScryptDescriptor implements IDescriptor
         out.put("scryptN", this.scryptN);
         out.put("scryptR", this.scryptR);
         out.put("scryptP", this.scryptP);
+        if (this.scryptLanes > 0) out.put("scryptLanes", this.scryptLanes);
+        if (this.wrappedKey != null)
+        {
+            out.put("wrappedKey", DatatypeConverter.printBase64Binary(this.wrappedKey));
+            out.put("inventoryIV", DatatypeConverter.printBase64Binary(this.inventoryIV));
+        }
         return out;
     }
 
@@ -107,22 +142,31 @@ public class ScryptDescriptor implements IDescriptor
     {
         try
         {
-            // generate the encryption key and iv using scrypt
-            byte[] data = SCrypt.generate(
-                    usp.getHashedPassword(),
-                    this.scryptSalt, this.scryptN, this.scryptR, this.scryptP,
-                    this.encryptionAlgorithm.keyByteLength + this.encryptionAlgorithm.ivByteLength
-            );
+            byte[] decryptedInv;
+            if (this.wrappedKey == null)
+            {
+                // older archives encrypt the inventory with the derived key and iv directly
+                byte[] data = this.deriveKey(usp);
 
-            // pull key and iv out of the data
-            byte[] key = Arrays.copyOfRange(data, 0, this.encryptionAlgorithm.keyByteLength);
-            byte[] iv = Arrays.copyOfRange(data, this.encryptionAlgorithm.keyByteLength, data.length);
+                // pull key and iv out of the data
+                byte[] key = Arrays.copyOfRange(data, 0, this.encryptionAlgorithm.keyByteLength);
+                byte[] iv = Arrays.copyOfRange(data, this.encryptionAlgorithm.keyByteLength, data.length);
 
-            byte[] decryptedInv = SimpleBlockCipher.decrypt(this.encryptionAlgorithm, source, key, iv);
-            Arrays.fill(data, (byte) 0);
-            Arrays.fill(key, (byte) 0);
-            Arrays.fill(iv, (byte) 0);
-            return InventoryJSON.decode(new String(decryptedInv));
+                decryptedInv = SimpleBlockCipher.decrypt(this.encryptionAlgorithm, source, key, iv);
+                this.journalKey = key.clone();
+                Arrays.fill(data, (byte) 0);
+                Arrays.fill(key, (byte) 0);
+                Arrays.fill(iv, (byte) 0);
+            }
+            else
+            {
+                if (this.dataKey == null) this.dataKey = this.unwrapDataKey(usp);
+                decryptedInv = SimpleBlockCipher.decrypt(
+                        this.encryptionAlgorithm, source, this.dataKey, this.inventoryIV
+                );
+                this.journalKey = this.dataKey;
+            }
+            return InventoryBinary.decodeAnyFormat(decryptedInv, ForkJoinPool.commonPool());
         }
         catch (CryptoException e)
         {
@@ -130,35 +174,58 @@ public class ScryptDescriptor implements IDescriptor
         }
     }
 
+    /**
+     * Archives with a wrapped data key are decrypted and decoded as they are read. Older archives are read whole so
+     * that a wrong password is still reported by the padding check before anything is parsed.
+     */
+    @Override
+    public Inventory readInventoryFromStream(InputStream source, int length, UserSecurityProvider usp)
+            throws IOException, BaseBunkrException
+    {
+        if (this.wrappedKey == null) return IDescriptor.super.readInventoryFromStream(source, length, usp);
+        if (this.dataKey == null) this.dataKey = this.unwrapDataKey(usp);
+        BoundedInputStream section = new BoundedInputStream(source, length);
+        Inventory inventory = InventoryBinary.decodeAnyFormat(SimpleBlockCipher.decryptingStream(
+                this.encryptionAlgorithm, section, this.dataKey, this.inventoryIV
+        ), ForkJoinPool.commonPool());
+        section.drain();
+        this.journalKey = this.dataKey;
+        return inventory;
+    }
+
+    /**
+     * The inventory is encrypted with a random data key, which is wrapped with a key-encryption key derived from the
+     * password. Scrypt only runs on the first save of a session, when a new data key is generated and wrapped under a
+     * fresh salt. Later saves just encrypt the inventory with the data key under a new iv.
+     */
     @Override
     public byte[] writeInventoryToBytes(Inventory source, UserSecurityProvider usp) throws BaseBunkrException
     {
         try
         {
-            byte[] inventoryJsonBytes = InventoryJSON.encode(source).getBytes();
-
-            // first refresh the salt
-            RandomMaker.fill(this.scryptSalt);
+            byte[] inventoryBytes = InventoryBinary.encode(source, ForkJoinPool.commonPool());
 
             if (this.encryptionAlgorithm == Encryption.NONE)
                 throw new IllegalArgumentException("ScryptDescriptor requires an active encryption mode");
 
-            // generate the encryption key and iv using scrypt
-            byte[] data = SCrypt.generate(
-                    usp.getHashedPassword(),
-                    this.scryptSalt, this.scryptN, this.scryptR, this.scryptP,
-                    this.encryptionAlgorithm.keyByteLength + this.encryptionAlgorithm.ivByteLength
-            );
-
-            // pull key and iv out of the data
-            byte[] key = Arrays.copyOfRange(data, 0, this.encryptionAlgorithm.keyByteLength);
-            byte[] iv = Arrays.copyOfRange(data, this.encryptionAlgorithm.keyByteLength, data.length);
+            if (this.dataKey == null)
+            {
+                // first refresh the salt
+                RandomMaker.fill(this.scryptSalt);
+                byte[] data = this.deriveKey(usp);
+                byte[] kek = Arrays.copyOfRange(data, 0, this.encryptionAlgorithm.keyByteLength);
+                this.dataKey = RandomMaker.get(this.encryptionAlgorithm.keyByteLength * 8);
+                this.wrappedKey = DataKeyWrapper.wrap(this.encryptionAlgorithm, kek, this.dataKey);
+                Arrays.fill(data, (byte) 0);
+                Arrays.fill(kek, (byte) 0);
+            }
+            this.inventoryIV = RandomMaker.get(this.encryptionAlgorithm.ivByteLength * 8);
 
-            byte[] encryptedInv = SimpleBlockCipher.encrypt(this.encryptionAlgorithm, inventoryJsonBytes, key, iv);
-            Arrays.fill(inventoryJsonBytes, (byte) 0);
-            Arrays.fill(data, (byte) 0);
-            Arrays.fill(key, (byte) 0);
-            Arrays.fill(iv, (byte) 0);
+            byte[] encryptedInv = SimpleBlockCipher.encrypt(
+                    this.encryptionAlgorithm, inventoryBytes, this.dataKey, this.inventoryIV
+            );
+            Arrays.fill(inventoryBytes, (byte) 0);
+            this.journalKey = this.dataKey;
             return encryptedInv;
         }
         catch (IllegalPasswordException | CryptoException e)
@@ -167,8 +234,102 @@ public class ScryptDescriptor implements IDescriptor
         }
     }
 
+    private byte[] unwrapDataKey(UserSecurityProvider usp) throws BaseBunkrException
+    {
+        byte[] data = this.deriveKey(usp);
+        byte[] kek = Arrays.copyOfRange(data, 0, this.encryptionAlgorithm.keyByteLength);
+        try
+        {
+            return DataKeyWrapper.unwrap(this.encryptionAlgorithm, kek, this.wrappedKey);
+        }
+        finally
+        {
+            Arrays.fill(data, (byte) 0);
+            Arrays.fill(kek, (byte) 0);
+        }
+    }
+
+    /**
+     * Generate the key and iv bytes for the current salt using scrypt.
+     */
+    private byte[] deriveKey(UserSecurityProvider usp) throws IllegalPasswordException
+    {
+        int lanes = ParallelSCrypt.getConcurrentLanes(ForkJoinPool.commonPool());
+        if (this.scryptLanes > 0) lanes = Math.min(lanes, this.scryptLanes);
+        // never let the lanes take more than half of the heap, whatever the archive asks for
+        long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+        lanes = Math.min(lanes, ParallelSCrypt.getLanesThatFit(heapBudget, this.scryptN, this.scryptR));
+        return ParallelSCrypt.generate(
+                usp.getHashedPassword(),
+                this.scryptSalt, this.scryptN, this.scryptR, this.scryptP,
+                this.encryptionAlgorithm.keyByteLength + this.encryptionAlgorithm.ivByteLength,
+                ForkJoinPool.commonPool(), lanes
+        );
+    }
+
+    @Override
+    public boolean requiresFeaturesVersion()
+    {
+        // older readers would try the key derived from the password on an inventory sealed with the wrapped data key
+        return this.wrappedKey != null;
+    }
+
+    @Override
+    public byte[] writeJournalRecord(byte[] record) throws BaseBunkrException
+    {
+        return JournalRecordCipher.encrypt(this.encryptionAlgorithm, this.journalKey, record);
+    }
+
+    @Override
+    public byte[] readJournalRecord(byte[] source) throws BaseBunkrException
+    {
+        return JournalRecordCipher.decrypt(this.encryptionAlgorithm, this.journalKey, source);
+    }
+
     public static IDescriptor make(Encryption algorithm, int scryptN)
     {
         return new ScryptDescriptor(algorithm, scryptN, RandomMaker.get(SALT_LENGTH), DEFAULT_SCRYPT_R, DEFAULT_SCRYPT_P);
     }
+
+    /**
+     * Pick scrypt parameters that take about the given time on this machine without holding more than the given
+     * amount of memory at once.
+     *
+     * The number of lanes to run at once is one per thread, reduced if that many lanes at MINIMUM_SCRYPT_N would not
+     * fit the memory budget. A trial run with that many lanes gives the cost of N. N is raised to the largest power of
+     * two for which all of the concurrent lanes fit the budget and one round of them fits the time (but never below
+     * MINIMUM_SCRYPT_N), and p is then set to use up the rest of the time with whole rounds of concurrent lanes. The
+     * number of concurrent lanes is saved in the descriptor so unlocking runs the same way, and a machine with more
+     * cores gets a larger p, and more total work, for the same unlock time.
+     *
+     * @param algorithm the encryption used on the inventory
+     * @param milliseconds the target time for one key derivation
+     * @param memoryBudget the most memory in bytes that the lanes running at once may use
+     * @return a new descriptor using the chosen parameters
+     */
+    public static IDescriptor calibrate(Encryption algorithm, int milliseconds, long memoryBudget)
+    {
+        int r = DEFAULT_SCRYPT_R;
+        long laneBytesPerN = 128L * r;
+        int lanes = Math.min(ParallelSCrypt.getConcurrentLanes(ForkJoinPool.commonPool()),
+                             ParallelSCrypt.getLanesThatFit(memoryBudget, MINIMUM_SCRYPT_N, r));
+        Logging.info("Calibrating scrypt for %d millis and %d bytes with %d lanes.", milliseconds, memoryBudget, lanes);
+
+        // cost of one round of concurrent lanes per unit of N
+        int trialN = MINIMUM_SCRYPT_N / 4;
+        long startTime = System.nanoTime();
+        ParallelSCrypt.generate(RandomMaker.get(256), RandomMaker.get(SALT_LENGTH), trialN, r, lanes, 32,
+                                ForkJoinPool.commonPool(), lanes);
+        double nanosPerN = (double) Math.max(1, System.nanoTime() - startTime) / trialN;
+        double targetNanos = milliseconds * 1000000.0;
+
+        int n = MINIMUM_SCRYPT_N;
+        while (n < (1 << 24) && lanes * laneBytesPerN * n * 2 <= memoryBudget && nanosPerN * n * 2 <= targetNanos)
+            n *= 2;
+
+        long rounds = Math.max(1, (long) (targetNanos / (nanosPerN * n)));
+        int p = (int) Math.min(lanes * rounds, Integer.MAX_VALUE / (128 * r * 8));
+        Logging.info("Got N=%d r=%d p=%d with %d concurrent lanes", n, r, p, lanes);
+        return new ScryptDescriptor(algorithm, n, RandomMaker.get(SALT_LENGTH), r, p, lanes);
+    }
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.fragmented_range;
+
+import org.bunkr.core.utils.IO;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Binary form of a FragmentedRange used by InventoryBinary. The range is written as a varint count of runs followed by
+ * a (gap, length) pair of varints for each run, where the gap is the distance from the end of the previous run (or
+ * from 0 for the first). The runs of a range are ordered and never touch, so the gaps are small for files that sit
+ * close together and a contiguous file costs only a few bytes.
+ */
+public class FragmentedRangeBinary
+{
+    public static void encode(FragmentedRange fr, DataOutput out) throws IOException
+    {
+        int[] repr = fr.toRepr();
+        IO.writeVarLong(out, repr.length / 2);
+        long previousEnd = 0;
+        for (int i = 0; i < repr.length; i += 2)
+        {
+            IO.writeVarLong(out, repr[i] - previousEnd);
+            IO.writeVarLong(out, repr[i + 1]);
+            previousEnd = (long) repr[i] + repr[i + 1];
+        }
+    }
+
+    public static FragmentedRange decode(DataInput in) throws IOException
+    {
+        FragmentedRange f = new FragmentedRange();
+        int runs = IO.readVarInt(in);
+        long previousEnd = 0;
+        for (int i = 0; i < runs; i++)
+        {
+            long start = previousEnd + IO.readVarLong(in);
+            int length = IO.readVarInt(in);
+            if (start + length > Integer.MAX_VALUE) throw new IOException("Block run is out of range");
+            f.add((int) start, length);
+            previousEnd = start + length;
+        }
+        return f;
+    }
+}
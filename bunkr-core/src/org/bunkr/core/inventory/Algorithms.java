@@ -54,4 +54,13 @@ public class Algorithms
             this.m = m;
         }
     }
+
+    public enum Compression
+    {
+        // deflated, either as independent frames (see FramedDeflaterOutputStream) or, for files written before frames
+        // existed and recorded with a frameSize of 0, as one continuous stream
+        DEFLATE,
+        // stored as is
+        NONE
+    }
 }
@@ -22,20 +22,38 @@
 
 package org.bunkr.core.inventory;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
 
 /**
  * Created At: 2015-11-22
+ *
+ * Holds the files and folders of a container. Each list keeps an index of its items by name, so findFile, findFolder
+ * and hasFile/hasFolder don't have to scan the lists. The index is kept up to date by the lists themselves, so adding
+ * or removing through getFiles()/getFolders() is fine, and by childRenamed when an item in the container is renamed.
+ *
+ * Items added to the lists have their parent set to the owner of the container, so that renaming them reaches the
+ * right index. If the owner is in an Inventory, items added or removed below it are also added to or removed from the
+ * inventory's uuid index, along with everything below them.
  */
 public class FFContainer implements IFFContainer
 {
-    private final List<FolderInventoryItem> folders;
-    private final List<FileInventoryItem> files;
+    private final IndexedList<FolderInventoryItem> folders;
+    private final IndexedList<FileInventoryItem> files;
 
-    public FFContainer(List<FileInventoryItem> files, List<FolderInventoryItem> folders)
+    public FFContainer(IFFContainer owner, List<FileInventoryItem> files, List<FolderInventoryItem> folders)
     {
-        this.folders = folders;
-        this.files = files;
+        this.folders = new IndexedList<>(owner, folders);
+        this.files = new IndexedList<>(owner, files);
     }
 
     @Override
@@ -49,4 +67,293 @@ public class FFContainer implements IFFContainer
     {
         return this.files;
     }
+
+    @Override
+    public IFFContainer findFolder(String name)
+    {
+        return this.folders.find(name);
+    }
+
+    @Override
+    public FileInventoryItem findFile(String name)
+    {
+        return this.files.find(name);
+    }
+
+    @Override
+    public void childRenamed(InventoryItem item, String oldName)
+    {
+        if (item instanceof FileInventoryItem) this.files.renamed((FileInventoryItem) item, oldName);
+        else if (item instanceof FolderInventoryItem) this.folders.renamed((FolderInventoryItem) item, oldName);
+    }
+
+    /**
+     * A list of items that also maps each name to the first item in the list with that name. Names are expected to be
+     * unique within a container, but if they are not, the other items with each shared name are kept aside so the next
+     * one can be found when the indexed one goes away.
+     *
+     * Each item's slot is tracked as well, so contains() and remove(Object) don't scan the list. remove(Object) leaves
+     * an empty slot behind instead of shifting the items after it, and the empty slots are squeezed out by the next
+     * operation that needs positions, so removing many items one by one stays linear overall. Appending never needs
+     * positions. An item can only be in the list once, so reorder the list with sort() rather than with set().
+     */
+    private static class IndexedList<T extends InventoryItem> extends AbstractList<T> implements RandomAccess
+    {
+        private final IFFContainer owner;
+        // null where an item was removed by remove(Object), until the next compact()
+        private final ArrayList<T> slots;
+        private final Map<T, Integer> positions = new IdentityHashMap<>();
+        private final Map<String, T> byName = new HashMap<>();
+        private final Map<String, List<T>> sharedNames = new HashMap<>();
+        private int holes = 0;
+
+        IndexedList(IFFContainer owner, Collection<T> initial)
+        {
+            this.owner = owner;
+            this.slots = new ArrayList<>(initial.size());
+            for (T item : initial) this.add(item);
+        }
+
+        T find(String name)
+        {
+            return this.byName.get(name);
+        }
+
+        void renamed(T item, String oldName)
+        {
+            if (oldName.equals(item.getName())) return;
+            this.unindex(item, oldName);
+            this.index(item);
+        }
+
+        private void index(T item)
+        {
+            T existing = this.byName.putIfAbsent(item.getName(), item);
+            if (existing != null && existing != item)
+                this.sharedNames.computeIfAbsent(item.getName(), k -> new ArrayList<>()).add(item);
+        }
+
+        private void unindex(T item, String name)
+        {
+            List<T> others = this.sharedNames.get(name);
+            if (others == null)
+            {
+                this.byName.remove(name, item);
+                return;
+            }
+
+            if (this.byName.get(name) == item)
+            {
+                // the item earliest in the list takes over the name
+                T next = others.get(0);
+                for (T other : others)
+                {
+                    if (this.positions.get(other) < this.positions.get(next)) next = other;
+                }
+                this.byName.put(name, next);
+                item = next;
+            }
+            for (int i = 0; i < others.size(); i++)
+            {
+                if (others.get(i) == item)
+                {
+                    others.remove(i);
+                    break;
+                }
+            }
+            if (others.isEmpty()) this.sharedNames.remove(name);
+        }
+
+        /**
+         * @return the inventory the owner is in, if any
+         */
+        private Inventory inventory()
+        {
+            if (this.owner instanceof Inventory) return (Inventory) this.owner;
+            if (this.owner instanceof FolderInventoryItem) return ((FolderInventoryItem) this.owner).getInventory();
+            return null;
+        }
+
+        private void attach(T item)
+        {
+            this.index(item);
+            item.setParent(this.owner);
+            Inventory inventory = this.inventory();
+            if (inventory != null) inventory.indexTree(item);
+        }
+
+        private void detach(T item)
+        {
+            this.unindex(item, item.getName());
+            // the item may already have been added to another container
+            if (item.getParent() != this.owner) return;
+            item.setParent(null);
+            Inventory inventory = this.inventory();
+            if (inventory != null) inventory.unindexTree(item);
+        }
+
+        private void checkNotPresent(T item)
+        {
+            if (this.positions.containsKey(item)) throw new IllegalArgumentException(
+                    String.format("%s is already in this container", item.getName())
+            );
+        }
+
+        /**
+         * Squeeze out the slots left empty by remove(Object), so that slots match list indexes again.
+         */
+        private void compact()
+        {
+            if (this.holes == 0) return;
+            this.slots.removeIf(Objects::isNull);
+            this.holes = 0;
+            this.reposition(0);
+        }
+
+        private void reposition(int from)
+        {
+            for (int i = from; i < this.slots.size(); i++) this.positions.put(this.slots.get(i), i);
+        }
+
+        @Override
+        public T get(int index)
+        {
+            this.compact();
+            return this.slots.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return this.slots.size() - this.holes;
+        }
+
+        @Override
+        public void add(int index, T item)
+        {
+            this.checkNotPresent(item);
+            if (index == this.size())
+            {
+                this.slots.add(item);
+                this.positions.put(item, this.slots.size() - 1);
+            }
+            else
+            {
+                this.compact();
+                this.slots.add(index, item);
+                this.reposition(index);
+            }
+            this.attach(item);
+        }
+
+        @Override
+        public T set(int index, T item)
+        {
+            this.compact();
+            T old = this.slots.get(index);
+            if (old == item) return old;
+            this.checkNotPresent(item);
+            this.slots.set(index, item);
+            this.positions.remove(old);
+            this.positions.put(item, index);
+            this.detach(old);
+            this.attach(item);
+            return old;
+        }
+
+        @Override
+        public T remove(int index)
+        {
+            this.compact();
+            T old = this.slots.remove(index);
+            this.positions.remove(old);
+            this.reposition(index);
+            this.detach(old);
+            return old;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o)
+        {
+            Integer position = this.positions.remove(o);
+            if (position == null) return false;
+            T item = (T) o;
+            this.slots.set(position, null);
+            this.holes++;
+            // keep the end of the list tidy so that appending after removing stays cheap
+            while (! this.slots.isEmpty() && this.slots.get(this.slots.size() - 1) == null)
+            {
+                this.slots.remove(this.slots.size() - 1);
+                this.holes--;
+            }
+            this.detach(item);
+            return true;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return this.positions.containsKey(o);
+        }
+
+        @Override
+        public int indexOf(Object o)
+        {
+            this.compact();
+            Integer position = this.positions.get(o);
+            return (position == null) ? -1 : position;
+        }
+
+        @Override
+        public int lastIndexOf(Object o)
+        {
+            return this.indexOf(o);
+        }
+
+        /**
+         * Reorder the slots in place. The generic sort would go through set(), which briefly has an item in two slots.
+         */
+        @Override
+        public void sort(Comparator<? super T> c)
+        {
+            this.compact();
+            this.slots.sort(c);
+            this.reposition(0);
+            this.modCount++;
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super T> filter)
+        {
+            this.compact();
+            List<T> removed = new ArrayList<>();
+            boolean changed = this.slots.removeIf(item -> {
+                if (! filter.test(item)) return false;
+                removed.add(item);
+                return true;
+            });
+            for (T item : removed) this.positions.remove(item);
+            this.reposition(0);
+            for (T item : removed) this.detach(item);
+            return changed;
+        }
+
+        @Override
+        public void clear()
+        {
+            Inventory inventory = this.inventory();
+            for (T item : this.slots)
+            {
+                if (item == null || item.getParent() != this.owner) continue;
+                item.setParent(null);
+                if (inventory != null) inventory.unindexTree(item);
+            }
+            this.slots.clear();
+            this.positions.clear();
+            this.byName.clear();
+            this.sharedNames.clear();
+            this.holes = 0;
+        }
+    }
 }
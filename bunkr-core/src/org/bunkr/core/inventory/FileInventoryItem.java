@@ -23,6 +23,7 @@
 package org.bunkr.core.inventory;
 
 import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.Algorithms.Compression;
 import org.bunkr.core.inventory.Algorithms.Encryption;
 
 import java.util.Date;
@@ -41,6 +42,11 @@ public class FileInventoryItem extends InventoryItem implements IFFTraversalTarg
     private FragmentedRange blocks;
     private long actualSize;
     private String mediaType;
+    private Compression compression;
+    // number of plaintext bytes in each independently compressed frame, 0 if the file is one single deflate stream
+    private int frameSize;
+    // compressed length in bytes of each frame
+    private int[] frameLengths;
 
     public FileInventoryItem(
             String name,
@@ -64,6 +70,9 @@ public class FileInventoryItem extends InventoryItem implements IFFTraversalTarg
         this.modifiedAt = modifiedAt;
         this.blocks = blocks;
         this.mediaType = mediaType;
+        this.compression = Compression.DEFLATE;
+        this.frameSize = 0;
+        this.frameLengths = null;
     }
 
     public FileInventoryItem(String name)
@@ -76,6 +85,9 @@ public class FileInventoryItem extends InventoryItem implements IFFTraversalTarg
         this.encryptionAlgorithm = Encryption.NONE;
         this.integrityHash = null;
         this.mediaType = MediaType.UNKNOWN;
+        this.compression = Compression.DEFLATE;
+        this.frameSize = 0;
+        this.frameLengths = null;
     }
 
     public FragmentedRange getBlocks()
@@ -166,6 +178,52 @@ public class FileInventoryItem extends InventoryItem implements IFFTraversalTarg
         this.mediaType = mediaType;
     }
 
+    public Compression getCompression()
+    {
+        return compression;
+    }
+
+    public void setCompression(Compression compression)
+    {
+        if (compression == null) throw new IllegalArgumentException("Cannot set compression to null");
+        this.compression = compression;
+    }
+
+    public boolean isCompressed()
+    {
+        return ! compression.equals(Compression.NONE);
+    }
+
+    public int getFrameSize()
+    {
+        return frameSize;
+    }
+
+    public int[] getFrameLengths()
+    {
+        return frameLengths;
+    }
+
+    /**
+     * Set the frame index of the file. Each frame holds frameSize bytes of plaintext (the last one may hold fewer) that
+     * were compressed independently of the others, frameLengths holds the compressed length of each frame in order.
+     *
+     * A frameSize of 0 and null frameLengths mean the file was written as one continuous deflate stream.
+     */
+    public void setFrames(int frameSize, int[] frameLengths)
+    {
+        if (frameSize < 0) throw new IllegalArgumentException("Cannot set frameSize < 0");
+        if ((frameSize == 0) != (frameLengths == null))
+            throw new IllegalArgumentException("frameSize and frameLengths must both be set or both be unset");
+        this.frameSize = frameSize;
+        this.frameLengths = frameLengths;
+    }
+
+    public boolean isFramed()
+    {
+        return this.frameSize > 0;
+    }
+
     @Override
     public boolean isAFile()
     {
@@ -47,6 +47,9 @@ public class FileInventoryItemJSON
     public static final String KEY_ENCRYPTION_ALGORITHM = "encryptionAlgorithm";
     public static final String KEY_INTEGRITY_HASH = "integrityHash";
     public static final String KEY_MEDIA_TYPE = "mediaType";
+    public static final String KEY_COMPRESSION = "compression";
+    public static final String KEY_FRAME_SIZE = "frameSize";
+    public static final String KEY_FRAME_LENGTHS = "frameLengths";
 
     @SuppressWarnings("unchecked")
     public static JSONAware encodeO(FileInventoryItem input)
@@ -72,6 +75,15 @@ public class FileInventoryItemJSON
             out.put(KEY_INTEGRITY_HASH, null);
 
         out.put(KEY_MEDIA_TYPE, input.getMediaType());
+        out.put(KEY_COMPRESSION, input.getCompression().toString());
+
+        if (input.isFramed())
+        {
+            JSONArray frames = new JSONArray();
+            for (int l : input.getFrameLengths()) frames.add(l);
+            out.put(KEY_FRAME_SIZE, input.getFrameSize());
+            out.put(KEY_FRAME_LENGTHS, frames);
+        }
 
         return out;
     }
@@ -104,7 +116,7 @@ public class FileInventoryItemJSON
             }
         }
 
-        return new FileInventoryItem(
+        FileInventoryItem output = new FileInventoryItem(
                 (String) input.get(KEY_NAME),
                 UUID.fromString((String) input.get(KEY_UUID)),
                 FragmentedRangeJSON.decode((JSONArray) input.get(KEY_BLOCKS)),
@@ -116,6 +128,19 @@ public class FileInventoryItemJSON
                 intH,
                 mt
         );
+
+        if (input.getOrDefault(KEY_COMPRESSION, null) != null)
+            output.setCompression(Algorithms.Compression.valueOf((String) input.get(KEY_COMPRESSION)));
+
+        if (input.getOrDefault(KEY_FRAME_SIZE, null) != null)
+        {
+            JSONArray frames = (JSONArray) input.get(KEY_FRAME_LENGTHS);
+            int[] frameLengths = new int[frames.size()];
+            for (int i = 0; i < frameLengths.length; i++) frameLengths[i] = ((Long) frames.get(i)).intValue();
+            output.setFrames(((Long) input.get(KEY_FRAME_SIZE)).intValue(), frameLengths);
+        }
+
+        return output;
     }
 
     public static FileInventoryItem decode(String input)
@@ -32,17 +32,19 @@ import java.util.UUID;
 public class FolderInventoryItem extends InventoryItem implements IFFContainer, IFFTraversalTarget
 {
     private final FFContainer ffcontainer;
+    // the inventory this folder is in, if any, so items added below it can be indexed by uuid
+    private Inventory inventory;
 
     public FolderInventoryItem(String name, UUID uuid, List<FileInventoryItem> files, List<FolderInventoryItem> folders)
     {
         super(name, uuid);
-        this.ffcontainer = new FFContainer(files, folders);
+        this.ffcontainer = new FFContainer(this, files, folders);
     }
 
     public FolderInventoryItem(String name)
     {
         super(name, UUID.randomUUID());
-        this.ffcontainer = new FFContainer(new ArrayList<>(), new ArrayList<>());
+        this.ffcontainer = new FFContainer(this, new ArrayList<>(), new ArrayList<>());
     }
 
     @Override
@@ -57,6 +59,34 @@ public class FolderInventoryItem extends InventoryItem implements IFFContainer,
         return this.ffcontainer.getFiles();
     }
 
+    @Override
+    public IFFContainer findFolder(String name)
+    {
+        return this.ffcontainer.findFolder(name);
+    }
+
+    @Override
+    public FileInventoryItem findFile(String name)
+    {
+        return this.ffcontainer.findFile(name);
+    }
+
+    @Override
+    public void childRenamed(InventoryItem item, String oldName)
+    {
+        this.ffcontainer.childRenamed(item, oldName);
+    }
+
+    Inventory getInventory()
+    {
+        return this.inventory;
+    }
+
+    void setInventory(Inventory inventory)
+    {
+        this.inventory = inventory;
+    }
+
     @Override
     public boolean isAFolder()
     {
@@ -104,6 +104,14 @@ public interface IFFContainer
         return null;
     }
 
+    /**
+     * Called by InventoryItem.setName when one of the items in this container is renamed, so that containers which
+     * index their items by name can keep the index up to date.
+     */
+    default void childRenamed(InventoryItem item, String oldName)
+    {
+    }
+
     default boolean hasFile(String name)
     {
         return (this.findFile(name) != null);
@@ -123,7 +131,7 @@ public interface IFFContainer
     default void removeFile(FileInventoryItem item)
     {
         this.getFiles().remove(item);
-        item.setParent(null);
+        if (item.getParent() == this) item.setParent(null);
     }
 
     default void addFolder(FolderInventoryItem item)
@@ -135,6 +143,6 @@ public interface IFFContainer
     default void removeFolder(FolderInventoryItem item)
     {
         this.getFolders().remove(item);
-        item.setParent(null);
+        if (item.getParent() == this) item.setParent(null);
     }
 }
@@ -24,7 +24,12 @@ package org.bunkr.core.inventory;
 
 import org.bunkr.core.inventory.Algorithms.Encryption;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Created At: 2015-11-08
@@ -33,10 +38,12 @@ public class Inventory implements IFFContainer, IFFTraversalTarget
 {
     private Encryption defaultEncryption;
     private final FFContainer ffcontainer;
+    // every item below the root by uuid, maintained by the containers as items are added and removed
+    private final Map<UUID, InventoryItem> uuidIndex = new HashMap<>();
 
     public Inventory(List<FileInventoryItem> files, List<FolderInventoryItem> folders, Encryption encrypted)
     {
-        this.ffcontainer = new FFContainer(files, folders);
+        this.ffcontainer = new FFContainer(this, files, folders);
         this.defaultEncryption = encrypted;
     }
 
@@ -50,6 +57,24 @@ public class Inventory implements IFFContainer, IFFTraversalTarget
         return this.ffcontainer.getFiles();
     }
 
+    @Override
+    public IFFContainer findFolder(String name)
+    {
+        return this.ffcontainer.findFolder(name);
+    }
+
+    @Override
+    public FileInventoryItem findFile(String name)
+    {
+        return this.ffcontainer.findFile(name);
+    }
+
+    @Override
+    public void childRenamed(InventoryItem item, String oldName)
+    {
+        this.ffcontainer.childRenamed(item, oldName);
+    }
+
     @Override
     public boolean isAFolder()
     {
@@ -62,6 +87,58 @@ public class Inventory implements IFFContainer, IFFTraversalTarget
         return true;
     }
 
+    /**
+     * Find a file or folder anywhere in the inventory by its uuid.
+     *
+     * @return the item, or null if there is no item with that uuid in the inventory
+     */
+    public InventoryItem findByUuid(UUID uuid)
+    {
+        return this.uuidIndex.get(uuid);
+    }
+
+    /**
+     * Add the item and everything below it to the uuid index.
+     */
+    void indexTree(InventoryItem item)
+    {
+        Deque<InventoryItem> queue = new ArrayDeque<>();
+        queue.add(item);
+        while (! queue.isEmpty())
+        {
+            InventoryItem current = queue.poll();
+            this.uuidIndex.put(current.getUuid(), current);
+            if (current instanceof FolderInventoryItem)
+            {
+                FolderInventoryItem folder = (FolderInventoryItem) current;
+                folder.setInventory(this);
+                queue.addAll(folder.getFolders());
+                queue.addAll(folder.getFiles());
+            }
+        }
+    }
+
+    /**
+     * Remove the item and everything below it from the uuid index.
+     */
+    void unindexTree(InventoryItem item)
+    {
+        Deque<InventoryItem> queue = new ArrayDeque<>();
+        queue.add(item);
+        while (! queue.isEmpty())
+        {
+            InventoryItem current = queue.poll();
+            this.uuidIndex.remove(current.getUuid(), current);
+            if (current instanceof FolderInventoryItem)
+            {
+                FolderInventoryItem folder = (FolderInventoryItem) current;
+                if (folder.getInventory() == this) folder.setInventory(null);
+                queue.addAll(folder.getFolders());
+                queue.addAll(folder.getFiles());
+            }
+        }
+    }
+
     public Encryption getDefaultEncryption()
     {
         return defaultEncryption;
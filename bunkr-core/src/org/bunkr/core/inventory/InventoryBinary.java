@@ -0,0 +1,678 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.inventory;
+
+import org.bunkr.core.fragmented_range.FragmentedRangeBinary;
+import org.bunkr.core.inventory.Algorithms.Compression;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A compact binary encoding of the inventory, used in place of InventoryJSON by the encrypted descriptors.
+ *
+ * The layout is:
+ *
+ *   magic (4 bytes), format version (varint)
+ *   name tables for the encryption algorithms, compressions and media types (varint count, then strings)
+ *   default encryption (table index)
+ *   root container
+ *
+ *   container := varint file count, files, varint folder count, folders
+ *   folder    := name, uuid (16 bytes), byte length of its container (4 bytes), container
+ *   file      := name, uuid (16 bytes), blocks (see FragmentedRangeBinary), varint sizeOnDisk, varint actualSize,
+ *                varint modifiedAt, encryption (table index), encryptionData, integrityHash, media type (table index),
+ *                compression (table index), varint frameSize, and if frameSize > 0, varint count and frame lengths
+ *   string    := varint byte length, utf-8 bytes
+ *   bytes     := varint (length + 1), raw bytes; or 0 for null
+ *
+ * Enum values and media types are written as indexes into the name tables in the header, so reordering or adding
+ * enum values does not change the meaning of existing archives. Each folder records the length of its contents so a
+ * reader can step over a whole subtree.
+ *
+ * The magic starts with a zero byte, which can never start a JSON document, so decodeAnyFormat can tell the two
+ * formats apart. Both formats can also be decoded as they are read from a stream. Converting between them is just a
+ * decode in one format and an encode in the other.
+ *
+ * Since a folder's contents do not depend on anything outside of it, folder subtrees can be encoded and decoded
+ * independently. Given a pool, encode() writes a set of subtrees in parallel and stitches them into the output, and
+ * decode() hands subtrees of up to MAX_FORK_BYTES to the pool while it carries on reading. The tree is walked with an
+ * explicit stack in both directions, so deep folder structures cannot overflow the thread stack.
+ */
+public class InventoryBinary
+{
+    public static final byte[] MAGIC = {0x00, 'B', 'I', 'V'};
+    public static final int VERSION = 1;
+
+    // subtrees between these sizes are decoded on the pool
+    public static final int MIN_FORK_BYTES = 16 * 1024;
+    public static final int MAX_FORK_BYTES = 1024 * 1024;
+    // the encoder splits the tree at most this many levels down
+    private static final int MAX_SPLIT_DEPTH = 4;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    public static byte[] encode(Inventory input)
+    {
+        return encode(input, null);
+    }
+
+    /**
+     * @param pool the pool to encode folder subtrees on, or null to encode everything on the caller's thread
+     */
+    public static byte[] encode(Inventory input, ForkJoinPool pool)
+    {
+        try
+        {
+            Writer writer = new Writer();
+            writer.writeHeader(input);
+            if (usePool(pool)) writer.forkSubtrees(input, pool);
+            writer.writeContainer(input);
+            return writer.buffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            // the writer only writes to memory
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static Inventory decode(byte[] input)
+    {
+        return decode(input, null);
+    }
+
+    /**
+     * @param pool the pool to decode folder subtrees on, or null to decode everything on the caller's thread
+     */
+    public static Inventory decode(byte[] input, ForkJoinPool pool)
+    {
+        if (! isBinary(input)) throw new IllegalArgumentException("Inventory is not in the binary format");
+        try
+        {
+            return decode(new ByteArrayInputStream(input), pool);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException("Binary inventory is corrupt", e);
+        }
+    }
+
+    public static Inventory decode(InputStream input) throws IOException
+    {
+        return decode(input, null);
+    }
+
+    /**
+     * Decode the inventory as it is read from the source, which must end where the inventory ends. Besides the decoded
+     * items, only the current string or key and the subtrees queued on the pool are held in memory. Problems reading
+     * the source, including data that ends too soon, are thrown as IOExceptions and other problems with the content
+     * as IllegalArgumentExceptions.
+     *
+     * @param pool the pool to decode folder subtrees on, or null to decode everything on the caller's thread
+     */
+    public static Inventory decode(InputStream input, ForkJoinPool pool) throws IOException
+    {
+        DataInputStream in = new DataInputStream(input);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (! Arrays.equals(magic, MAGIC)) throw new IllegalArgumentException("Inventory is not in the binary format");
+        try
+        {
+            Reader reader = new Reader(in, usePool(pool) ? pool : null);
+            Encryption defaultEncryption = reader.readHeader();
+            // read into a detached container so that the uuid index is built once, when the inventory is created
+            FFContainer root = new FFContainer(null, new ArrayList<>(), new ArrayList<>());
+            reader.readContainer(root);
+            if (in.read() != -1) throw new IllegalArgumentException("Unexpected data after the inventory");
+            return new Inventory(root.getFiles(), root.getFolders(), defaultEncryption);
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            throw new IllegalArgumentException("Binary inventory is corrupt", e);
+        }
+    }
+
+    /**
+     * @return true if the given bytes start with the binary inventory magic
+     */
+    public static boolean isBinary(byte[] input)
+    {
+        return input.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(input, MAGIC.length), MAGIC);
+    }
+
+    /**
+     * Decode an inventory saved either in this binary format or as JSON by InventoryJSON.
+     */
+    public static Inventory decodeAnyFormat(byte[] input)
+    {
+        return decodeAnyFormat(input, null);
+    }
+
+    public static Inventory decodeAnyFormat(byte[] input, ForkJoinPool pool)
+    {
+        if (isBinary(input)) return decode(input, pool);
+        return InventoryJSON.decode(new String(input, StandardCharsets.UTF_8));
+    }
+
+    public static Inventory decodeAnyFormat(InputStream input) throws IOException
+    {
+        return decodeAnyFormat(input, null);
+    }
+
+    /**
+     * Decode an inventory in either format as it is read from the source, which must end where the inventory ends.
+     * JSON inventories are parsed from a reader over the source, so they are still built up as a document first and
+     * are always decoded on the caller's thread.
+     */
+    public static Inventory decodeAnyFormat(InputStream input, ForkJoinPool pool) throws IOException
+    {
+        BufferedInputStream buffered = new BufferedInputStream(input, STREAM_BUFFER_SIZE);
+        buffered.mark(MAGIC.length);
+        byte[] start = new byte[MAGIC.length];
+        int n = IO.reliableRead(buffered, start);
+        buffered.reset();
+        if (n == MAGIC.length && Arrays.equals(start, MAGIC)) return decode(buffered, pool);
+        return InventoryJSON.decode(new InputStreamReader(buffered, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splitting the work costs an extra copy of each subtree, which is only worth it if the pool can run more than
+     * one task at a time.
+     */
+    private static boolean usePool(ForkJoinPool pool)
+    {
+        return pool != null && pool.getParallelism() > 1;
+    }
+
+    private static List<String> encryptionNames()
+    {
+        List<String> names = new ArrayList<>();
+        for (Encryption e : Encryption.values()) names.add(e.toString());
+        return names;
+    }
+
+    private static List<String> compressionNames()
+    {
+        List<String> names = new ArrayList<>();
+        for (Compression c : Compression.values()) names.add(c.toString());
+        return names;
+    }
+
+    private static List<String> mediaTypeNames()
+    {
+        List<String> names = new ArrayList<>(MediaType.ALL_TYPES);
+        names.sort(String::compareTo);
+        return names;
+    }
+
+    /**
+     * A byte array output stream whose contents can be patched in place, used to fill in folder lengths once the
+     * folder has been written.
+     */
+    private static class PatchableBuffer extends ByteArrayOutputStream
+    {
+        PatchableBuffer()
+        {
+            super(64 * 1024);
+        }
+
+        void patchInt(int position, int value)
+        {
+            this.buf[position] = (byte) (value >>> 24);
+            this.buf[position + 1] = (byte) (value >>> 16);
+            this.buf[position + 2] = (byte) (value >>> 8);
+            this.buf[position + 3] = (byte) value;
+        }
+    }
+
+    private static class Writer
+    {
+        private final PatchableBuffer buffer = new PatchableBuffer();
+        private final DataOutputStream out = new DataOutputStream(this.buffer);
+        private final Map<String, Integer> mediaTypeCodes;
+        private final int unknownMediaTypeCode;
+        // contents of folder subtrees being encoded on the pool
+        private final Map<FolderInventoryItem, ForkJoinTask<byte[]>> forked = new IdentityHashMap<>();
+
+        Writer()
+        {
+            this.mediaTypeCodes = new HashMap<>();
+            List<String> mediaTypes = mediaTypeNames();
+            for (int i = 0; i < mediaTypes.size(); i++) this.mediaTypeCodes.put(mediaTypes.get(i), i);
+            this.unknownMediaTypeCode = this.mediaTypeCodes.get(MediaType.UNKNOWN);
+        }
+
+        /**
+         * A writer for a subtree, sharing the media type codes of the writer that wrote the header.
+         */
+        Writer(Writer parent)
+        {
+            this.mediaTypeCodes = parent.mediaTypeCodes;
+            this.unknownMediaTypeCode = parent.unknownMediaTypeCode;
+        }
+
+        void writeHeader(Inventory input) throws IOException
+        {
+            this.out.write(MAGIC);
+            IO.writeVarLong(this.out, VERSION);
+            this.writeTable(encryptionNames());
+            this.writeTable(compressionNames());
+            this.writeTable(mediaTypeNames());
+            IO.writeVarLong(this.out, input.getDefaultEncryption().ordinal());
+        }
+
+        private void writeTable(List<String> names) throws IOException
+        {
+            IO.writeVarLong(this.out, names.size());
+            for (String name : names) this.writeString(name);
+        }
+
+        /**
+         * Start encoding subtrees on the pool. Going down a level at a time, folders are split into their child folders
+         * until there are a few subtrees for every thread of the pool. Each folder on that frontier is then encoded as
+         * one task, and the folders above it are left for writeContainer.
+         */
+        void forkSubtrees(Inventory root, ForkJoinPool pool)
+        {
+            int target = 4 * pool.getParallelism();
+            List<FolderInventoryItem> frontier = new ArrayList<>(root.getFolders());
+            for (int depth = 1; depth < MAX_SPLIT_DEPTH && frontier.size() < target; depth++)
+            {
+                List<FolderInventoryItem> next = new ArrayList<>();
+                boolean split = false;
+                for (FolderInventoryItem folder : frontier)
+                {
+                    if (folder.getFolders().isEmpty())
+                    {
+                        next.add(folder);
+                    }
+                    else
+                    {
+                        next.addAll(folder.getFolders());
+                        split = true;
+                    }
+                }
+                if (! split) break;
+                frontier = next;
+            }
+
+            for (FolderInventoryItem folder : frontier)
+            {
+                this.forked.put(folder, pool.submit(() -> {
+                    Writer writer = new Writer(this);
+                    writer.writeContainer(folder);
+                    return writer.buffer.toByteArray();
+                }));
+            }
+        }
+
+        /**
+         * Write the container and everything below it, walking the folders with an explicit stack. Each entry on the
+         * stack holds the folders of a container that are still to be written and the position of that container's
+         * length field, which is filled in once all of them have been written.
+         */
+        void writeContainer(IFFContainer root) throws IOException
+        {
+            Deque<WriteFrame> stack = new ArrayDeque<>();
+            this.writeFiles(root);
+            stack.push(new WriteFrame(root.getFolders().iterator(), -1));
+            while (! stack.isEmpty())
+            {
+                WriteFrame top = stack.peek();
+                if (! top.folders.hasNext())
+                {
+                    stack.pop();
+                    if (top.lengthPosition >= 0)
+                    {
+                        this.buffer.patchInt(top.lengthPosition,
+                                             this.buffer.size() - top.lengthPosition - Integer.BYTES);
+                    }
+                    continue;
+                }
+
+                FolderInventoryItem folder = top.folders.next();
+                this.writeString(folder.getName());
+                this.writeUuid(folder.getUuid());
+                ForkJoinTask<byte[]> task = this.forked.remove(folder);
+                if (task != null)
+                {
+                    byte[] contents = task.join();
+                    this.out.writeInt(contents.length);
+                    this.out.write(contents);
+                }
+                else
+                {
+                    int lengthPosition = this.buffer.size();
+                    this.out.writeInt(0);
+                    this.writeFiles(folder);
+                    stack.push(new WriteFrame(folder.getFolders().iterator(), lengthPosition));
+                }
+            }
+        }
+
+        /**
+         * Write the files of the container followed by its folder count.
+         */
+        private void writeFiles(IFFContainer container) throws IOException
+        {
+            IO.writeVarLong(this.out, container.getFiles().size());
+            for (FileInventoryItem file : container.getFiles()) this.writeFile(file);
+            IO.writeVarLong(this.out, container.getFolders().size());
+        }
+
+        private void writeFile(FileInventoryItem file) throws IOException
+        {
+            this.writeString(file.getName());
+            this.writeUuid(file.getUuid());
+            FragmentedRangeBinary.encode(file.getBlocks(), this.out);
+            IO.writeVarLong(this.out, file.getSizeOnDisk());
+            IO.writeVarLong(this.out, file.getActualSize());
+            IO.writeVarLong(this.out, file.getModifiedAt());
+            IO.writeVarLong(this.out, file.getEncryptionAlgorithm().ordinal());
+            this.writeBytes(file.getEncryptionData());
+            this.writeBytes(file.getIntegrityHash());
+            IO.writeVarLong(this.out, this.mediaTypeCodes.getOrDefault(file.getMediaType(), this.unknownMediaTypeCode));
+            IO.writeVarLong(this.out, file.getCompression().ordinal());
+            if (file.isFramed())
+            {
+                IO.writeVarLong(this.out, file.getFrameSize());
+                int[] frameLengths = file.getFrameLengths();
+                IO.writeVarLong(this.out, frameLengths.length);
+                for (int l : frameLengths) IO.writeVarLong(this.out, l);
+            }
+            else
+            {
+                IO.writeVarLong(this.out, 0);
+            }
+        }
+
+        private void writeString(String s) throws IOException
+        {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            IO.writeVarLong(this.out, b.length);
+            this.out.write(b);
+        }
+
+        private void writeUuid(UUID uuid) throws IOException
+        {
+            this.out.writeLong(uuid.getMostSignificantBits());
+            this.out.writeLong(uuid.getLeastSignificantBits());
+        }
+
+        private void writeBytes(byte[] b) throws IOException
+        {
+            if (b == null)
+            {
+                IO.writeVarLong(this.out, 0);
+                return;
+            }
+            IO.writeVarLong(this.out, b.length + 1L);
+            this.out.write(b);
+        }
+    }
+
+    private static class WriteFrame
+    {
+        final Iterator<FolderInventoryItem> folders;
+        final int lengthPosition;
+
+        WriteFrame(Iterator<FolderInventoryItem> folders, int lengthPosition)
+        {
+            this.folders = folders;
+            this.lengthPosition = lengthPosition;
+        }
+    }
+
+    private static class ReadFrame
+    {
+        final IFFContainer container;
+        int foldersLeft;
+
+        ReadFrame(IFFContainer container, int foldersLeft)
+        {
+            this.container = container;
+            this.foldersLeft = foldersLeft;
+        }
+    }
+
+    private static class Reader
+    {
+        private final DataInput in;
+        private final ForkJoinPool pool;
+        private Encryption[] encryptions;
+        private Compression[] compressions;
+        private String[] mediaTypes;
+
+        // subtrees being decoded on the pool, with the number of bytes each one holds
+        private final Deque<ForkJoinTask<?>> inFlight = new ArrayDeque<>();
+        private final Deque<Integer> inFlightSizes = new ArrayDeque<>();
+        private long inFlightBytes = 0;
+
+        Reader(DataInput in, ForkJoinPool pool)
+        {
+            this.in = in;
+            this.pool = pool;
+        }
+
+        /**
+         * A reader for a subtree, sharing the name tables of the reader that read the header.
+         */
+        Reader(DataInput in, Reader parent)
+        {
+            this.in = in;
+            this.pool = null;
+            this.encryptions = parent.encryptions;
+            this.compressions = parent.compressions;
+            this.mediaTypes = parent.mediaTypes;
+        }
+
+        Encryption readHeader() throws IOException
+        {
+            int version = IO.readVarInt(this.in);
+            if (version != VERSION)
+                throw new IllegalArgumentException(String.format("Unsupported binary inventory version %d", version));
+
+            String[] names = this.readTable();
+            this.encryptions = new Encryption[names.length];
+            for (int i = 0; i < names.length; i++) this.encryptions[i] = Encryption.valueOf(names[i]);
+
+            names = this.readTable();
+            this.compressions = new Compression[names.length];
+            for (int i = 0; i < names.length; i++) this.compressions[i] = Compression.valueOf(names[i]);
+
+            this.mediaTypes = this.readTable();
+            for (int i = 0; i < this.mediaTypes.length; i++)
+            {
+                if (! MediaType.ALL_TYPES.contains(this.mediaTypes[i]))
+                {
+                    Logging.warn("Unsupported media type %s. Converting to %s", this.mediaTypes[i], MediaType.UNKNOWN);
+                    this.mediaTypes[i] = MediaType.UNKNOWN;
+                }
+            }
+
+            return this.encryptions[IO.readVarInt(this.in)];
+        }
+
+        private String[] readTable() throws IOException
+        {
+            String[] names = new String[IO.readVarInt(this.in)];
+            for (int i = 0; i < names.length; i++) names[i] = this.readString();
+            return names;
+        }
+
+        /**
+         * Read the container and everything below it into the given container, walking the folders with an explicit
+         * stack. With a pool, folder subtrees between MIN_FORK_BYTES and MAX_FORK_BYTES are read into memory and
+         * decoded on the pool, and larger ones are walked into so that their own subtrees can be handed out. The
+         * folder objects are attached to their parents straight away, so the order of the folders is kept. This
+         * returns once all of the subtrees have been decoded.
+         */
+        void readContainer(IFFContainer root) throws IOException
+        {
+            Deque<ReadFrame> stack = new ArrayDeque<>();
+            stack.push(new ReadFrame(root, this.readFiles(root)));
+            while (! stack.isEmpty())
+            {
+                ReadFrame top = stack.peek();
+                if (top.foldersLeft == 0)
+                {
+                    stack.pop();
+                    continue;
+                }
+                top.foldersLeft--;
+
+                FolderInventoryItem folder = new FolderInventoryItem(
+                        this.readString(), this.readUuid(), new ArrayList<>(), new ArrayList<>()
+                );
+                int length = this.in.readInt();
+                if (length < 0) throw new IllegalArgumentException("Binary inventory is corrupt");
+                top.container.addFolder(folder);
+
+                if (this.pool != null && length >= MIN_FORK_BYTES && length <= MAX_FORK_BYTES)
+                {
+                    byte[] contents = new byte[length];
+                    this.in.readFully(contents);
+                    this.fork(folder, contents);
+                }
+                else
+                {
+                    stack.push(new ReadFrame(folder, this.readFiles(folder)));
+                }
+            }
+            while (! this.inFlight.isEmpty()) this.joinOldest();
+        }
+
+        private void fork(FolderInventoryItem folder, byte[] contents)
+        {
+            // keep a bounded amount of subtree data waiting in memory
+            long limit = 2L * (this.pool.getParallelism() + 1) * MAX_FORK_BYTES;
+            while (! this.inFlight.isEmpty() && this.inFlightBytes + contents.length > limit) this.joinOldest();
+
+            this.inFlight.add(this.pool.submit(() -> {
+                try
+                {
+                    DataInputStream subtreeInput = new DataInputStream(new ByteArrayInputStream(contents));
+                    new Reader(subtreeInput, this).readContainer(folder);
+                    if (subtreeInput.available() > 0) throw new IOException("Folder is longer than its contents");
+                }
+                catch (IOException | IndexOutOfBoundsException e)
+                {
+                    throw new IllegalArgumentException("Binary inventory is corrupt", e);
+                }
+            }));
+            this.inFlightSizes.add(contents.length);
+            this.inFlightBytes += contents.length;
+        }
+
+        private void joinOldest()
+        {
+            this.inFlight.poll().join();
+            this.inFlightBytes -= this.inFlightSizes.poll();
+        }
+
+        /**
+         * Read the files of the container into it.
+         * @return the number of folders that follow
+         */
+        private int readFiles(IFFContainer container) throws IOException
+        {
+            int fileCount = IO.readVarInt(this.in);
+            for (int i = 0; i < fileCount; i++) container.addFile(this.readFile());
+            return IO.readVarInt(this.in);
+        }
+
+        private FileInventoryItem readFile() throws IOException
+        {
+            FileInventoryItem output = new FileInventoryItem(
+                    this.readString(),
+                    this.readUuid(),
+                    FragmentedRangeBinary.decode(this.in),
+                    IO.readVarLong(this.in),
+                    IO.readVarLong(this.in),
+                    IO.readVarLong(this.in),
+                    null,
+                    this.encryptions[IO.readVarInt(this.in)],
+                    null,
+                    null
+            );
+            output.setEncryptionData(this.readBytes());
+            output.setIntegrityHash(this.readBytes());
+            output.setMediaType(this.mediaTypes[IO.readVarInt(this.in)]);
+            output.setCompression(this.compressions[IO.readVarInt(this.in)]);
+            int frameSize = IO.readVarInt(this.in);
+            if (frameSize > 0)
+            {
+                int[] frameLengths = new int[IO.readVarInt(this.in)];
+                for (int i = 0; i < frameLengths.length; i++) frameLengths[i] = IO.readVarInt(this.in);
+                output.setFrames(frameSize, frameLengths);
+            }
+            return output;
+        }
+
+        private String readString() throws IOException
+        {
+            byte[] b = new byte[IO.readVarInt(this.in)];
+            this.in.readFully(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        private UUID readUuid() throws IOException
+        {
+            return new UUID(this.in.readLong(), this.in.readLong());
+        }
+
+        private byte[] readBytes() throws IOException
+        {
+            int lengthPlusOne = IO.readVarInt(this.in);
+            if (lengthPlusOne == 0) return null;
+            byte[] b = new byte[lengthPlusOne - 1];
+            this.in.readFully(b);
+            return b;
+        }
+    }
+}
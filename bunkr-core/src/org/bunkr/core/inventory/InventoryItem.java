@@ -47,7 +47,9 @@ public class InventoryItem implements Comparable<InventoryItem>
 
     public void setName(String name)
     {
+        String oldName = this.name;
         this.name = name;
+        if (this.parent != null) this.parent.childRenamed(this, oldName);
     }
 
     public UUID getUuid()
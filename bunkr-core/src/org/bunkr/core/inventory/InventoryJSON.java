@@ -27,7 +27,10 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONAware;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
+import org.json.simple.parser.ParseException;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
 
@@ -85,4 +88,19 @@ public class InventoryJSON
         return decodeO((JSONObject) JSONValue.parse(input));
     }
 
+    /**
+     * Parse the inventory straight from a reader, without first building the whole document as a String.
+     */
+    public static Inventory decode(Reader input) throws IOException
+    {
+        try
+        {
+            return decodeO((JSONObject) JSONValue.parseWithException(input));
+        }
+        catch (ParseException | ClassCastException e)
+        {
+            throw new IllegalArgumentException("Inventory JSON is corrupt", e);
+        }
+    }
+
 }
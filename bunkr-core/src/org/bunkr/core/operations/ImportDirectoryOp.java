@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.operations;
+
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.ArchiveTransaction;
+import org.bunkr.core.SharedBlockAllocator;
+import org.bunkr.core.inventory.Algorithms.Compression;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.IFFContainer;
+import org.bunkr.core.inventory.IFFTraversalTarget;
+import org.bunkr.core.inventory.InventoryPather;
+import org.bunkr.core.inventory.MediaType;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Import a local directory tree into a folder of the archive.
+ *
+ * The tree is walked first, creating any missing folders and an item for every file, so that a bad name or a clash
+ * between a file and a folder is found before any data is written. The file contents are then written by several
+ * threads at once, with blocks handed out by a SharedBlockAllocator.
+ *
+ * The metadata is not written by this operation: the caller writes it once when the import is done, however many
+ * files were imported. Files that already exist in the archive are overwritten. If the import fails, the files and
+ * folders that it created are removed from the inventory again, but overwritten files keep their new blocks and may
+ * be left incomplete. Run the import inside an ArchiveTransaction to keep the old contents of overwritten files until
+ * the transaction is committed.
+ *
+ * Symbolic links to directories are not followed.
+ */
+public class ImportDirectoryOp
+{
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final ArchiveInfoContext context;
+    private final File sourceDirectory;
+    private final IFFContainer destination;
+    private Compression compression = Compression.DEFLATE;
+    private int threads = DEFAULT_THREADS;
+    private Consumer<ImportDirectoryOp> progressUpdate = null;
+    private ArchiveTransaction transaction = null;
+
+    private final List<PendingFile> pendingFiles = new ArrayList<>();
+    private final List<Runnable> undoCreate = new ArrayList<>();
+    private int foldersCreated = 0;
+    private long totalBytes = 0;
+    private final AtomicInteger filesImported = new AtomicInteger(0);
+    private final AtomicLong bytesImported = new AtomicLong(0);
+    private volatile boolean failed = false;
+    private boolean scanned = false;
+
+    /**
+     * @param context the archive
+     * @param sourceDirectory the local directory whose contents are imported
+     * @param destination the folder (or the inventory root) to import the contents into
+     */
+    public ImportDirectoryOp(ArchiveInfoContext context, File sourceDirectory, IFFContainer destination)
+    {
+        if (! sourceDirectory.isDirectory())
+            throw new IllegalArgumentException(String.format("%s is not a directory", sourceDirectory));
+        this.context = context;
+        this.sourceDirectory = sourceDirectory;
+        this.destination = destination;
+    }
+
+    public void setCompression(Compression compression)
+    {
+        this.compression = compression;
+    }
+
+    public void setThreads(int threads)
+    {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * Write the file data through the given transaction instead of straight to the archive. The transaction must be
+     * open on the same archive, and is left for the caller to commit or roll back.
+     *
+     * @param transaction an open transaction, or null to write straight to the archive
+     */
+    public void setTransaction(ArchiveTransaction transaction)
+    {
+        this.transaction = transaction;
+    }
+
+    /**
+     * Set an update function that will be called after each file has been imported.
+     *
+     * The function will be called with the current class instance, from whichever thread imported the file.
+     *
+     * @param update a consumer
+     */
+    public void setProgressUpdate(Consumer<ImportDirectoryOp> update)
+    {
+        this.progressUpdate = update;
+    }
+
+    public int getTotalFiles()
+    {
+        return this.pendingFiles.size();
+    }
+
+    public int getFilesImported()
+    {
+        return this.filesImported.get();
+    }
+
+    public long getTotalBytes()
+    {
+        return this.totalBytes;
+    }
+
+    public long getBytesImported()
+    {
+        return this.bytesImported.get();
+    }
+
+    public int getFoldersCreated()
+    {
+        return this.foldersCreated;
+    }
+
+    /**
+     * Walk the source directory and add its folders and files to the inventory, without writing any data. This is
+     * done by run() if it has not been called already, and is only needed up front to find the totals.
+     *
+     * @throws IOException if a directory could not be listed or a name clashes with an existing item
+     */
+    public void scan() throws IOException
+    {
+        if (this.scanned) return;
+        try
+        {
+            this.walk(this.sourceDirectory, this.destination);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            this.undo();
+            throw e;
+        }
+        this.scanned = true;
+    }
+
+    /**
+     * Run the import.
+     *
+     * @throws IOException if a local file could not be read or the archive could not be written
+     */
+    public void run() throws IOException
+    {
+        this.scan();
+        try
+        {
+            this.importFiles();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            this.undo();
+            throw e;
+        }
+    }
+
+    private void undo()
+    {
+        for (int i = this.undoCreate.size() - 1; i >= 0; i--) this.undoCreate.get(i).run();
+        this.undoCreate.clear();
+        this.pendingFiles.clear();
+    }
+
+    private void walk(File directory, IFFContainer container) throws IOException
+    {
+        File[] children = directory.listFiles();
+        if (children == null) throw new IOException(String.format("Could not list directory %s", directory));
+        Arrays.sort(children);
+
+        for (File child : children)
+        {
+            String name = InventoryPather.assertValidName(child.getName());
+            IFFTraversalTarget existing = container.findFileOrFolder(name);
+            if (child.isDirectory())
+            {
+                if (Files.isSymbolicLink(child.toPath())) continue;
+                if (existing != null && existing.isAFile())
+                    throw new IOException(String.format("Cannot overwrite file %s with a folder", name));
+
+                IFFContainer folder = (IFFContainer) existing;
+                if (folder == null)
+                {
+                    FolderInventoryItem newFolder = new FolderInventoryItem(name);
+                    container.addFolder(newFolder);
+                    this.undoCreate.add(() -> container.removeFolder(newFolder));
+                    this.foldersCreated++;
+                    folder = newFolder;
+                }
+                this.walk(child, folder);
+            }
+            else if (child.isFile())
+            {
+                if (existing != null && existing.isAFolder())
+                    throw new IOException(String.format("Cannot overwrite folder %s with a file", name));
+
+                FileInventoryItem file = (FileInventoryItem) existing;
+                if (file == null)
+                {
+                    FileInventoryItem newFile = new FileInventoryItem(name);
+                    container.addFile(newFile);
+                    this.undoCreate.add(() -> container.removeFile(newFile));
+                    file = newFile;
+                }
+                file.setMediaType(MediaType.guess(name));
+                this.pendingFiles.add(new PendingFile(child, file));
+                this.totalBytes += child.length();
+            }
+        }
+    }
+
+    private void importFiles() throws IOException
+    {
+        SharedBlockAllocator allocator = (this.transaction == null) ?
+                new SharedBlockAllocator(this.context.getInventory()) : null;
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try
+        {
+            List<Future<?>> results = new ArrayList<>(this.pendingFiles.size());
+            for (PendingFile pending : this.pendingFiles)
+            {
+                results.add(executor.submit(() -> {
+                    if (! this.failed) this.importFile(pending, allocator);
+                    return null;
+                }));
+            }
+
+            IOException failure = null;
+            for (Future<?> result : results)
+            {
+                try
+                {
+                    result.get();
+                }
+                catch (ExecutionException e)
+                {
+                    this.failed = true;
+                    if (failure == null) failure = (e.getCause() instanceof IOException) ?
+                            (IOException) e.getCause() : new IOException("Failed to import file", e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    this.failed = true;
+                    Thread.currentThread().interrupt();
+                    if (failure == null) failure = new IOException("Interrupted while importing files", e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void importFile(PendingFile pending, SharedBlockAllocator allocator) throws IOException
+    {
+        try (
+                InputStream input = new FileInputStream(pending.source);
+                MultilayeredOutputStream output = this.openOutputStream(pending.target, allocator)
+        )
+        {
+            output.reserve(pending.source.length());
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = input.read(buffer)) != -1)
+            {
+                output.write(buffer, 0, n);
+                this.bytesImported.addAndGet(n);
+            }
+            Arrays.fill(buffer, (byte) 0);
+        }
+        this.filesImported.incrementAndGet();
+        if (this.progressUpdate != null) this.progressUpdate.accept(this);
+    }
+
+    private MultilayeredOutputStream openOutputStream(FileInventoryItem target, SharedBlockAllocator allocator)
+            throws IOException
+    {
+        if (this.transaction != null) return this.transaction.openOutputStream(target, this.compression);
+        return new MultilayeredOutputStream(
+                this.context, target, this.compression, 0, null, allocator.forFile(target.getBlocks())
+        );
+    }
+
+    private static class PendingFile
+    {
+        final File source;
+        final FileInventoryItem target;
+
+        PendingFile(File source, FileInventoryItem target)
+        {
+            this.source = source;
+            this.target = target;
+        }
+    }
+}
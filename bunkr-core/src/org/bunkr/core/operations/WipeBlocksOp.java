@@ -1,14 +1,14 @@
 package org.bunkr.core.operations;
 
-import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.BlockCache;
+import org.bunkr.core.MappedRegionManager;
 import org.bunkr.core.fragmented_range.FragmentedRange;
 import org.bunkr.core.utils.RandomMaker;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
+import java.util.Iterator;
 import java.util.function.Consumer;
 
 /**
@@ -16,7 +16,9 @@ import java.util.function.Consumer;
  */
 public class WipeBlocksOp
 {
-    private final File path;
+    private final MappedRegionManager regions;
+    private final boolean ownsRegions;
+    private final BlockCache cache;
     private final int blockSize;
     private final FragmentedRange blockRange;
     private final boolean fillRandom;
@@ -35,7 +37,29 @@ public class WipeBlocksOp
      */
     public WipeBlocksOp(File path, int blockSize, FragmentedRange blockRange, boolean fillRandom)
     {
-        this.path = path;
+        this(new MappedRegionManager(path), true, null, blockSize, blockRange, fillRandom);
+    }
+
+    /**
+     * Given an open archive and a range of blocks, wipe the contents of those blocks through the archive's shared
+     * mapped regions. The windows used are unmapped again once the wipe finishes, and the wiped blocks are dropped
+     * from the archive's block cache.
+     *
+     * @param context the archive
+     * @param blockRange the range of blocks to wipe
+     * @param fillRandom whether or not to fill the blocks with random, otherwise it will be wiped with zeroes
+     */
+    public WipeBlocksOp(ArchiveInfoContext context, FragmentedRange blockRange, boolean fillRandom)
+    {
+        this(context.getMappedRegions(), false, context.getBlockCache(), context.getBlockSize(), blockRange, fillRandom);
+    }
+
+    private WipeBlocksOp(MappedRegionManager regions, boolean ownsRegions, BlockCache cache, int blockSize,
+                         FragmentedRange blockRange, boolean fillRandom)
+    {
+        this.regions = regions;
+        this.ownsRegions = ownsRegions;
+        this.cache = cache;
         this.blockSize = blockSize;
         this.blockRange = blockRange;
         this.fillRandom = fillRandom;
@@ -88,22 +112,28 @@ public class WipeBlocksOp
      */
     public boolean run() throws IOException
     {
-        RandomAccessFile inputFile = new RandomAccessFile(path, "rw");
-        FileChannel inputFileChannel = inputFile.getChannel();
-
         byte[] buffer = new byte[blockSize];
 
-        for (int b : blockRange.toList())
+        try
+        {
+            Iterator<Integer> it = blockRange.iterate();
+            while (it.hasNext())
+            {
+                if (cancelled) return false;
+                if (fillRandom) RandomMaker.fill(buffer);
+                int blockId = it.next();
+                regions.writeBlocks(blockId, blockSize, buffer, 0, buffer.length);
+                if (cache != null) cache.invalidate(blockId);
+                blocksWiped++;
+                if (progressUpdate != null) progressUpdate.accept(this);
+            }
+            return true;
+        }
+        finally
         {
-            if (cancelled) return false;
-            if (fillRandom) RandomMaker.fill(buffer);
-            long writePosition = b * blockSize + MetadataWriter.DBL_DATA_POS + Long.BYTES;
-            MappedByteBuffer bb = inputFileChannel.map(FileChannel.MapMode.READ_WRITE, writePosition, buffer.length);
-            bb.put(buffer, 0, buffer.length);
-            blocksWiped++;
-            progressUpdate.accept(this);
+            if (ownsRegions) regions.close();
+            else regions.unmapAll();
         }
-        return true;
     }
 
     /**
@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import javafx.util.Pair;
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.crypto.CipherBuilder;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.streams.output.FramedDeflaterOutputStream;
+import org.bunkr.core.utils.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.Inflater;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A non-blocking reader for the plaintext of a file in the archive.
+ *
+ * The file is read in chunks. For files written in compression frames each frame is one chunk; the bytes of the frame
+ * are fetched with positional reads on an AsynchronousFileChannel over the file's block extents, then decrypted and
+ * inflated when the reads complete. No thread is held waiting on the disk, so many chunks of many files can be in
+ * flight at once. Files stored without compression are split into chunks at fixed offsets.
+ *
+ * Files written before framing was introduced are a single deflate stream, which can't be entered part way through.
+ * They are split into chunks at fixed offsets of the plaintext like stored files, but every chunk is inflated by one
+ * sequential task that reads the file with a MultilayeredInputStream and blocks while it does. The chunks are read in
+ * the order they are requested, and requesting an earlier chunk than the last one starts the inflate over from the
+ * beginning of the file, so these files should be read in order. isSequential() tells these files apart.
+ *
+ * Decoding runs on the given executor, or on the channel's completion threads if none is given. The sequential
+ * inflate of an older file runs on the given executor, or on the common ForkJoinPool if none is given.
+ *
+ * NOTE: chunks are decoded independently, so the integrity hash of the file is NOT checked by this reader.
+ */
+public class AsyncMultilayeredReader implements AutoCloseable
+{
+    private static final long DATABLOCKS_START = MetadataWriter.DBL_DATA_POS + Long.BYTES;
+    // plaintext size of the chunks of files that aren't framed
+    public static final int UNFRAMED_CHUNK_SIZE = FramedDeflaterOutputStream.DEFAULT_FRAME_SIZE;
+
+    private final ArchiveInfoContext context;
+    private final FileInventoryItem target;
+    private final int blockSize;
+    private final Executor executor;
+    private final AsynchronousFileChannel channel;
+
+    // the extents of the file as (first block id, block count) and the index of the first block of each in the file
+    private final int[] extentStarts;
+    private final int[] extentLengths;
+    private final long[] extentFileBlocks;
+    // compressed offset of each chunk, with the total compressed length at the end. For files that aren't framed
+    // these are offsets in the plaintext.
+    private final long[] chunkOffsets;
+    private final boolean sequential;
+
+    // state of the sequential inflate, only touched by the tasks chained on inflateQueue
+    private CompletableFuture<Void> inflateQueue = CompletableFuture.completedFuture(null);
+    private InputStream inflating = null;
+    private long inflatedPosition = 0;
+
+    public AsyncMultilayeredReader(ArchiveInfoContext context, FileInventoryItem target) throws IOException
+    {
+        this(context, target, null);
+    }
+
+    public AsyncMultilayeredReader(ArchiveInfoContext context, FileInventoryItem target, Executor executor)
+            throws IOException
+    {
+        this.context = context;
+        this.target = target;
+        this.blockSize = context.getBlockSize();
+        this.executor = executor;
+
+        List<Pair<Integer, Integer>> extents = new ArrayList<>();
+        target.getBlocks().copy().iteratePairs().forEachRemaining(extents::add);
+        this.extentStarts = new int[extents.size()];
+        this.extentLengths = new int[extents.size()];
+        this.extentFileBlocks = new long[extents.size()];
+        long fileBlock = 0;
+        for (int i = 0; i < extents.size(); i++)
+        {
+            this.extentStarts[i] = extents.get(i).getKey();
+            this.extentLengths[i] = extents.get(i).getValue();
+            this.extentFileBlocks[i] = fileBlock;
+            fileBlock += this.extentLengths[i];
+        }
+
+        if (target.getActualSize() == 0)
+        {
+            this.chunkOffsets = new long[] {0};
+        }
+        else if (target.isCompressed() && target.isFramed())
+        {
+            int[] frameLengths = target.getFrameLengths();
+            this.chunkOffsets = new long[frameLengths.length + 1];
+            for (int i = 0; i < frameLengths.length; i++)
+                this.chunkOffsets[i + 1] = this.chunkOffsets[i] + frameLengths[i];
+        }
+        else
+        {
+            int chunkSize = UNFRAMED_CHUNK_SIZE;
+            this.chunkOffsets = new long[(int) ((target.getActualSize() + chunkSize - 1) / chunkSize) + 1];
+            for (int i = 1; i < this.chunkOffsets.length; i++)
+                this.chunkOffsets[i] = Math.min(target.getActualSize(), ((long) i) * chunkSize);
+        }
+        this.sequential = target.isCompressed() && ! target.isFramed() && target.getActualSize() > 0;
+
+        this.channel = AsynchronousFileChannel.open(context.filePath.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * @return the number of chunks the file is read in
+     */
+    public int getChunkCount()
+    {
+        return this.chunkOffsets.length - 1;
+    }
+
+    /**
+     * @return the offset in the plaintext of the file at which the given chunk starts
+     */
+    public long getChunkPosition(int index)
+    {
+        if (index < 0 || index >= this.getChunkCount()) throw new IndexOutOfBoundsException("No chunk " + index);
+        if (this.target.isCompressed() && this.target.isFramed()) return ((long) index) * this.target.getFrameSize();
+        return this.chunkOffsets[index];
+    }
+
+    /**
+     * @return true if the file was written before framing and its chunks are inflated one at a time from the start of
+     *         the file, so that they should be requested in order
+     */
+    public boolean isSequential()
+    {
+        return this.sequential;
+    }
+
+    /**
+     * Start reading a chunk of the file.
+     *
+     * @param index the chunk to read, from 0 to getChunkCount() - 1
+     * @return a future completed with the plaintext of the chunk, or completed exceptionally if reading or decoding
+     *         failed
+     */
+    public CompletableFuture<ByteBuffer> readChunk(int index)
+    {
+        if (index < 0 || index >= this.getChunkCount()) throw new IndexOutOfBoundsException("No chunk " + index);
+        if (this.sequential) return this.inflateChunk(index);
+
+        long compressedStart = this.chunkOffsets[index];
+        int compressedLength = (int) (this.chunkOffsets[index + 1] - compressedStart);
+        byte[] compressed = new byte[compressedLength];
+
+        CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        this.fetch(compressed, compressedStart).whenComplete((v, error) -> {
+            if (error != null)
+            {
+                Arrays.fill(compressed, (byte) 0);
+                result.completeExceptionally(
+                        (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error
+                );
+                return;
+            }
+            Runnable decoding = () -> {
+                try
+                {
+                    result.complete(this.decode(compressed, compressedStart));
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    result.completeExceptionally(e);
+                }
+            };
+            if (this.executor != null) this.executor.execute(decoding);
+            else decoding.run();
+        });
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.channel.close();
+        synchronized (this)
+        {
+            this.inflateQueue.thenRun(this::closeInflating);
+        }
+    }
+
+    /**
+     * Queue the inflate of a chunk of a file written before framing behind the chunks requested before it.
+     */
+    private CompletableFuture<ByteBuffer> inflateChunk(int index)
+    {
+        CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        Runnable inflating = () -> {
+            try
+            {
+                result.complete(this.inflateSequentially(index));
+            }
+            catch (IOException | RuntimeException e)
+            {
+                this.closeInflating();
+                result.completeExceptionally(e);
+            }
+        };
+        synchronized (this)
+        {
+            this.inflateQueue = (this.executor != null) ?
+                    this.inflateQueue.thenRunAsync(inflating, this.executor) :
+                    this.inflateQueue.thenRunAsync(inflating);
+        }
+        return result;
+    }
+
+    private ByteBuffer inflateSequentially(int index) throws IOException
+    {
+        long start = this.chunkOffsets[index];
+        byte[] content = new byte[(int) (this.chunkOffsets[index + 1] - start)];
+
+        if (this.inflating == null || this.inflatedPosition > start)
+        {
+            this.closeInflating();
+            this.inflating = new MultilayeredInputStream(this.context, this.target);
+            this.inflatedPosition = 0;
+        }
+        while (this.inflatedPosition < start)
+        {
+            // skip by reading into the chunk buffer, which is overwritten below
+            int n = this.inflating.read(content, 0, (int) Math.min(content.length, start - this.inflatedPosition));
+            if (n < 0) throw new IOException("File data ended before its recorded size");
+            this.inflatedPosition += n;
+        }
+        if (IO.reliableRead(this.inflating, content) != content.length)
+            throw new IOException("File data ended before its recorded size");
+        this.inflatedPosition += content.length;
+        return ByteBuffer.wrap(content);
+    }
+
+    private void closeInflating()
+    {
+        if (this.inflating == null) return;
+        try
+        {
+            this.inflating.close();
+        }
+        catch (IOException ignored)
+        {
+            // only reads were made, so there is nothing to lose
+        }
+        this.inflating = null;
+    }
+
+    /**
+     * Read the range of the file's block data starting at 'start' into dst, issuing one positional read per extent
+     * the range touches.
+     */
+    private CompletableFuture<Void> fetch(byte[] dst, long start)
+    {
+        List<CompletableFuture<Void>> reads = new ArrayList<>();
+        long end = start + dst.length;
+        for (int i = 0; i < this.extentStarts.length; i++)
+        {
+            long extentFrom = this.extentFileBlocks[i] * this.blockSize;
+            long extentTo = extentFrom + ((long) this.extentLengths[i]) * this.blockSize;
+            long from = Math.max(start, extentFrom);
+            long to = Math.min(end, extentTo);
+            if (from >= to) continue;
+
+            long archivePosition = DATABLOCKS_START + ((long) this.extentStarts[i]) * this.blockSize + (from - extentFrom);
+            ByteBuffer slice = ByteBuffer.wrap(dst, (int) (from - start), (int) (to - from)).slice();
+            reads.add(this.readFully(slice, archivePosition));
+        }
+        if (reads.isEmpty() && dst.length > 0)
+        {
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            f.completeExceptionally(new IOException("Chunk lies outside of the file's blocks"));
+            return f;
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[reads.size()]));
+    }
+
+    private CompletableFuture<Void> readFully(ByteBuffer dst, long position)
+    {
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        this.channel.read(dst, position, null, new CompletionHandler<Integer, Void>()
+        {
+            @Override
+            public void completed(Integer n, Void attachment)
+            {
+                if (n < 0)
+                {
+                    f.completeExceptionally(new IOException("Unexpected end of archive"));
+                }
+                else if (dst.hasRemaining())
+                {
+                    channel.read(dst, position + dst.position(), null, this);
+                }
+                else
+                {
+                    f.complete(null);
+                }
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment)
+            {
+                f.completeExceptionally(exc);
+            }
+        });
+        return f;
+    }
+
+    private ByteBuffer decode(byte[] compressed, long compressedStart) throws IOException
+    {
+        try
+        {
+            if (this.target.isEncrypted())
+            {
+                SkippingStreamCipher cipher = CipherBuilder.buildSeekableCipherForFile(this.target);
+                cipher.seekTo(compressedStart);
+                cipher.processBytes(compressed, 0, compressed.length, compressed, 0);
+            }
+
+            if (! this.target.isCompressed())
+            {
+                return ByteBuffer.wrap(compressed.clone());
+            }
+
+            byte[] frame = new byte[this.target.getFrameSize()];
+            Inflater inflater = new Inflater();
+            try
+            {
+                int n = FramedInflaterInputStream.inflateFrame(inflater, compressed, 0, compressed.length, frame);
+                return ByteBuffer.wrap(frame, 0, n);
+            }
+            finally
+            {
+                inflater.end();
+            }
+        }
+        finally
+        {
+            Arrays.fill(compressed, (byte) 0);
+        }
+    }
+}
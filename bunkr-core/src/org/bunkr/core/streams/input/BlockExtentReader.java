@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import org.bunkr.core.BlockCache;
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import javafx.util.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * The BlockExtentReader reads the raw data of a set of blocks from the archive by walking the (start, length) pairs
+ * of their FragmentedRange. Each contiguous run of blocks is fetched with a single positional read, or as few reads
+ * as the destination buffer allows, so a file living in one extent is read sequentially in large chunks rather than
+ * one block at a time.
+ *
+ * The channel is opened lazily on the first read and held until close() is called.
+ *
+ * If a BlockCache is given, runs of blocks found in the cache are served from it and blocks read from disk are added
+ * to it, unless the cache saw an invalidation while they were being read.
+ */
+public class BlockExtentReader implements AutoCloseable
+{
+    private final File filePath;
+    private final int blockSize;
+    private final FragmentedRange blocks;
+    private final BlockCache cache;
+
+    private Iterator<Pair<Integer, Integer>> extents;
+
+    private FileChannel channel = null;
+    private int extentCursor = 0;
+    private int extentRemaining = 0;
+
+    public BlockExtentReader(File filePath, int blockSize, FragmentedRange blocks)
+    {
+        this(filePath, blockSize, blocks, null);
+    }
+
+    public BlockExtentReader(File filePath, int blockSize, FragmentedRange blocks, BlockCache cache)
+    {
+        this.filePath = filePath;
+        this.cache = cache;
+        this.blockSize = blockSize;
+        this.blocks = blocks.copy();
+        this.extents = this.blocks.iteratePairs();
+    }
+
+    /**
+     * Reposition the reader so that the next read starts at the given block of the range. The index is the position
+     * of the block within the file (0 for its first block), not the block id in the archive.
+     *
+     * @param blockIndex index of the block within the range
+     */
+    public void seekToBlock(long blockIndex)
+    {
+        if (blockIndex < 0) throw new IllegalArgumentException("Cannot seek to negative block index");
+        this.extents = this.blocks.iteratePairs();
+        this.extentRemaining = 0;
+        while (this.extents.hasNext())
+        {
+            Pair<Integer, Integer> extent = this.extents.next();
+            if (blockIndex < extent.getValue())
+            {
+                this.extentCursor = extent.getKey() + (int) blockIndex;
+                this.extentRemaining = extent.getValue() - (int) blockIndex;
+                return;
+            }
+            blockIndex -= extent.getValue();
+        }
+    }
+
+    /**
+     * @return true if there are still blocks left to read
+     */
+    public boolean hasRemaining()
+    {
+        return this.extentRemaining > 0 || this.extents.hasNext();
+    }
+
+    /**
+     * Read as many whole blocks as will fit into the given region of the destination array. Blocks are taken from the
+     * current extent only, so the bytes returned by one call are always contiguous on disk.
+     *
+     * @param dst the destination array
+     * @param off the offset in the destination array
+     * @param len the maximum number of bytes to read, must be at least one block
+     * @return the number of bytes read, a multiple of the block size, or -1 if there are no more blocks
+     * @throws IOException if the archive could not be read
+     */
+    public int read(byte[] dst, int off, int len) throws IOException
+    {
+        if (len < this.blockSize) throw new IllegalArgumentException("Destination must fit at least one block");
+        if (this.extentRemaining == 0)
+        {
+            if (! this.extents.hasNext()) return -1;
+            Pair<Integer, Integer> extent = this.extents.next();
+            this.extentCursor = extent.getKey();
+            this.extentRemaining = extent.getValue();
+        }
+
+        int numBlocks = Math.min(this.extentRemaining, len / this.blockSize);
+        if (this.cache != null)
+        {
+            int cached = this.cache.getRun(this.extentCursor, numBlocks, dst, off);
+            if (cached > 0)
+            {
+                this.extentCursor += cached;
+                this.extentRemaining -= cached;
+                return cached * this.blockSize;
+            }
+        }
+
+        // taken before the read, so that blocks rewritten while we read are not put back into the cache
+        long generation = (this.cache != null) ? this.cache.getGeneration() : 0;
+        if (this.channel == null) this.channel = FileChannel.open(this.filePath.toPath(), StandardOpenOption.READ);
+        long position = BlockReaderInputStream.DATABLOCKS_START + ((long) this.extentCursor) * this.blockSize;
+        ByteBuffer buf = ByteBuffer.wrap(dst, off, numBlocks * this.blockSize);
+        while (buf.hasRemaining())
+        {
+            if (this.channel.read(buf, position + buf.position() - off) < 0)
+                throw new IOException("Unexpected end of archive while reading block " + this.extentCursor);
+        }
+        if (this.cache != null) this.cache.putRun(this.extentCursor, numBlocks, dst, off, generation);
+
+        this.extentCursor += numBlocks;
+        this.extentRemaining -= numBlocks;
+        return numBlocks * this.blockSize;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.channel != null) this.channel.close();
+    }
+}
@@ -24,14 +24,13 @@ package org.bunkr.core.streams.input;
 
 import org.bouncycastle.crypto.digests.GeneralDigest;
 import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bunkr.core.BlockCache;
 import org.bunkr.core.MetadataWriter;
 import org.bunkr.core.exceptions.IntegrityHashError;
-import org.bunkr.core.fragmented_range.FragmentedRange;
 import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.utils.Units;
 
 import java.io.*;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
 /**
@@ -40,37 +39,54 @@ import java.util.Arrays;
 public class BlockReaderInputStream extends InputStream
 {
     public static final long DATABLOCKS_START = MetadataWriter.DBL_DATA_POS + Long.BYTES;
+    public static final int DEFAULT_READ_SIZE = (int) Units.MEBIBYTE;
 
-    private final File filePath;
-    private final int blockSize;
     private final long dataLength;
     private final byte[] buffer;
-    private final FragmentedRange blocks;
+    private final BlockExtentReader extentReader;
     private final GeneralDigest digest;
     private final byte[] expectedDigest;
 
     private boolean checkHashOnFinish;
     private long bytesConsumed;
     private int cursor;
+    private int bufferFill;
     private byte[] finishedDigest = null;
 
     public BlockReaderInputStream(File path, int blockSize, FileInventoryItem target)
+    {
+        this(path, blockSize, target, DEFAULT_READ_SIZE);
+    }
+
+    /**
+     * @param readSize the size of the reusable read buffer in bytes. Contiguous runs of blocks are read from the
+     *                 archive in chunks of up to this size, rounded down to a whole number of blocks. Small files
+     *                 only get a buffer as large as their own block data.
+     */
+    public BlockReaderInputStream(File path, int blockSize, FileInventoryItem target, int readSize)
+    {
+        this(path, blockSize, target, readSize, null);
+    }
+
+    /**
+     * @param cache shared cache of raw blocks to read through, usually ArchiveInfoContext.getBlockCache(), or null
+     */
+    public BlockReaderInputStream(File path, int blockSize, FileInventoryItem target, int readSize, BlockCache cache)
     {
         super();
-        this.filePath = path;
-        this.blockSize = blockSize;
         this.dataLength = target.getSizeOnDisk();
-        this.blocks = target.getBlocks().copy();
-        this.buffer = new byte[blockSize];
+        this.extentReader = new BlockExtentReader(path, blockSize, target.getBlocks(), cache);
+        this.buffer = new byte[Math.max(1, Math.min(readSize / blockSize, target.getBlocks().size())) * blockSize];
         this.checkHashOnFinish = true;
         this.expectedDigest = target.getIntegrityHash();
         this.digest = new SHA1Digest();
 
-        long blockDataLength = ((long) blocks.size()) * blockSize;
+        long blockDataLength = ((long) target.getBlocks().size()) * blockSize;
         if (dataLength > blockDataLength)
             throw new IllegalArgumentException("File dataLength is greater than block count * block size");
 
-        this.cursor = this.blockSize;
+        this.cursor = 0;
+        this.bufferFill = 0;
         this.bytesConsumed = 0;
     }
 
@@ -78,7 +94,7 @@ public class BlockReaderInputStream extends InputStream
     public int read() throws IOException
     {
         if (bytesConsumed >= dataLength) return -1;
-        if (cursor == blockSize) loadNextBlock();
+        if (cursor == bufferFill) loadNextBlocks();
         bytesConsumed++;
         return (int) this.buffer[cursor++];
     }
@@ -98,8 +114,8 @@ public class BlockReaderInputStream extends InputStream
         while (remainingBytesToRead > 0)
         {
             if (bytesConsumed >= dataLength) break;
-            if (cursor == blockSize) loadNextBlock();
-            int readable = (int) Math.min(remainingBytesToRead, Math.min(blockSize - cursor, dataLength - bytesConsumed));
+            if (cursor == bufferFill) loadNextBlocks();
+            int readable = (int) Math.min(remainingBytesToRead, Math.min(bufferFill - cursor, dataLength - bytesConsumed));
             System.arraycopy(this.buffer, cursor, b, off + read, readable);
             cursor += readable;
             bytesConsumed += readable;
@@ -119,8 +135,8 @@ public class BlockReaderInputStream extends InputStream
         while (remainingBytesToSkip > 0)
         {
             if (bytesConsumed >= dataLength) break;
-            if (cursor == blockSize) loadNextBlock();
-            long skippable = Math.min(remainingBytesToSkip, Math.min(blockSize - cursor, dataLength - bytesConsumed));
+            if (cursor == bufferFill) loadNextBlocks();
+            long skippable = Math.min(remainingBytesToSkip, Math.min(bufferFill - cursor, dataLength - bytesConsumed));
             cursor += skippable;
             bytesConsumed += skippable;
             remainingBytesToSkip -= skippable;
@@ -148,6 +164,7 @@ public class BlockReaderInputStream extends InputStream
     public void close() throws IOException
     {
         Arrays.fill(this.buffer, (byte) 0);
+        this.extentReader.close();
         super.close();
     }
 
@@ -162,31 +179,22 @@ public class BlockReaderInputStream extends InputStream
         this.checkHashOnFinish = b;
     }
 
-    private void loadNextBlock() throws IOException
+    /**
+     * Fill the buffer with the next chunk of the current extent of blocks.
+     */
+    private void loadNextBlocks() throws IOException
     {
-        if (this.blocks.isEmpty()) throw new IOException("No more blocks to load");
-        int blockId = this.blocks.popMin();
+        int n = this.extentReader.read(this.buffer, 0, this.buffer.length);
+        if (n < 0) throw new IOException("No more blocks to load");
+        digest.update(this.buffer, 0, n);
+        this.bufferFill = n;
+        this.cursor = 0;
 
-        try(RandomAccessFile raf = new RandomAccessFile(filePath, "r"))
-        {
-            try(FileChannel fc = raf.getChannel())
-            {
-                long position = DATABLOCKS_START + ((long) blockId) * blockSize;
-                ByteBuffer buf = fc.map(FileChannel.MapMode.READ_ONLY, position, blockSize);
-                buf.get(this.buffer);
-                digest.update(this.buffer, 0, this.buffer.length);
-                this.bytesConsumed += (blockSize - this.cursor);
-                this.cursor = 0;
-            }
-        }
-
-        if (this.checkHashOnFinish && this.blocks.isEmpty())
+        if (this.checkHashOnFinish && ! this.extentReader.hasRemaining())
         {
             finishedDigest = new byte[digest.getDigestSize()];
             digest.doFinal(finishedDigest, 0);
             if (! this.doesHashMatch()) throw new IntegrityHashError("Integrity hash did not match!");
         }
     }
-
-
 }
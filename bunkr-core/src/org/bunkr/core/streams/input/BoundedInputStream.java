@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Exposes the next 'length' bytes of the source stream as a stream of its own, so that a section of the archive can
+ * be handed to a parser that reads until the end of its input. Closing this stream does not close the source.
+ *
+ * The source is never read past the end of the section, so once drain() has been called the source is positioned on
+ * the first byte after it.
+ */
+public class BoundedInputStream extends FilterInputStream
+{
+    private long remaining;
+
+    public BoundedInputStream(InputStream source, long length)
+    {
+        super(source);
+        if (length < 0) throw new IllegalArgumentException("length must not be negative");
+        this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (this.remaining == 0) return -1;
+        int b = this.in.read();
+        if (b == -1) throw new IOException("Unexpected end of stream with " + this.remaining + " bytes to go");
+        this.remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0) return 0;
+        if (this.remaining == 0) return -1;
+        int n = this.in.read(b, off, (int) Math.min(len, this.remaining));
+        if (n == -1) throw new IOException("Unexpected end of stream with " + this.remaining + " bytes to go");
+        this.remaining -= n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = this.in.skip(Math.min(n, this.remaining));
+        this.remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return (int) Math.min(this.in.available(), this.remaining);
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Skip whatever is left of the section.
+     */
+    public void drain() throws IOException
+    {
+        byte[] buffer = new byte[4096];
+        while (this.read(buffer, 0, buffer.length) != -1) { /* discard */ }
+    }
+
+    /**
+     * @return the number of bytes left in the section
+     */
+    public long getRemaining()
+    {
+        return this.remaining;
+    }
+
+    @Override
+    public void close()
+    {
+        // the source belongs to the caller
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import org.bunkr.core.utils.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Reads back data written by FramedDeflaterOutputStream. Each frame is read in full using its recorded compressed
+ * length and inflated on its own.
+ *
+ * Given a ForkJoinPool, the compressed data for the next framesInFlight frames is read ahead and the frames are
+ * inflated on the pool in parallel, then handed out in order.
+ */
+public class FramedInflaterInputStream extends InputStream
+{
+    private final InputStream in;
+    private final int frameSize;
+    private final int[] frameLengths;
+    private final Inflater inflater;
+    private final ForkJoinPool pool;
+    private final int framesInFlight;
+    private final ArrayDeque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>();
+
+    private byte[] frame;
+
+    private byte[] compressed;
+    private int nextFrame = 0;
+    private int frameFill = 0;
+    private int frameCursor = 0;
+
+    public FramedInflaterInputStream(InputStream in, int frameSize, int[] frameLengths)
+    {
+        this(in, frameSize, frameLengths, null, 0);
+    }
+
+    /**
+     * @param pool the pool to inflate frames on, or null to inflate on the caller's thread
+     * @param framesInFlight the maximum number of frames being inflated at once when a pool is given
+     */
+    public FramedInflaterInputStream(InputStream in, int frameSize, int[] frameLengths, ForkJoinPool pool,
+                                     int framesInFlight)
+    {
+        if (pool != null && framesInFlight < 1) throw new IllegalArgumentException("framesInFlight must be positive");
+        this.in = in;
+        this.frameSize = frameSize;
+        this.frameLengths = frameLengths;
+        this.pool = pool;
+        this.framesInFlight = framesInFlight;
+        this.inflater = (pool == null) ? new Inflater() : null;
+        this.frame = new byte[frameSize];
+        this.compressed = new byte[0];
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (this.frameCursor == this.frameFill && ! this.loadNextFrame()) return -1;
+        return this.frame[this.frameCursor++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0) return 0;
+        int total = 0;
+        while (total < len)
+        {
+            if (this.frameCursor == this.frameFill && ! this.loadNextFrame()) break;
+            int n = Math.min(len - total, this.frameFill - this.frameCursor);
+            System.arraycopy(this.frame, this.frameCursor, b, off + total, n);
+            this.frameCursor += n;
+            total += n;
+        }
+        return (total == 0) ? -1 : total;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < n)
+        {
+            if (this.frameCursor == this.frameFill && ! this.loadNextFrame()) break;
+            int s = (int) Math.min(n - skipped, this.frameFill - this.frameCursor);
+            this.frameCursor += s;
+            skipped += s;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return this.frameFill - this.frameCursor;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        Arrays.fill(this.frame, (byte) 0);
+        Arrays.fill(this.compressed, (byte) 0);
+        for (ForkJoinTask<byte[]> task : this.inFlight) task.cancel(false);
+        this.inFlight.clear();
+        if (this.inflater != null) this.inflater.end();
+        this.in.close();
+    }
+
+    /**
+     * Inflate a single frame that was compressed by FramedDeflaterOutputStream.
+     *
+     * @return the number of bytes written to the output
+     */
+    public static int inflateFrame(Inflater inflater, byte[] compressed, int off, int len, byte[] output)
+            throws IOException
+    {
+        inflater.reset();
+        inflater.setInput(compressed, off, len);
+        try
+        {
+            int n = 0;
+            while (! inflater.finished() && n < output.length)
+            {
+                int r = inflater.inflate(output, n, output.length - n);
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("Compressed frame is truncated");
+                n += r;
+            }
+            if (! inflater.finished()) throw new IOException("Compressed frame inflates to more than the frame size");
+            return n;
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("Compressed frame is corrupt", e);
+        }
+    }
+
+    private boolean loadNextFrame() throws IOException
+    {
+        if (this.pool != null) return this.loadNextFrameParallel();
+        if (this.nextFrame >= this.frameLengths.length) return false;
+        int compressedLength = this.frameLengths[this.nextFrame++];
+        if (this.compressed.length < compressedLength)
+        {
+            Arrays.fill(this.compressed, (byte) 0);
+            this.compressed = new byte[compressedLength];
+        }
+        if (IO.reliableRead(this.in, this.compressed, 0, compressedLength) != compressedLength)
+            throw new IOException("Unexpected end of stream while reading compressed frame");
+        this.frameFill = inflateFrame(this.inflater, this.compressed, 0, compressedLength, this.frame);
+        this.frameCursor = 0;
+        return this.frameFill > 0 || this.loadNextFrame();
+    }
+
+    private boolean loadNextFrameParallel() throws IOException
+    {
+        while (this.inFlight.size() < this.framesInFlight && this.nextFrame < this.frameLengths.length)
+        {
+            final byte[] frameData = new byte[this.frameLengths[this.nextFrame++]];
+            if (IO.reliableRead(this.in, frameData, 0, frameData.length) != frameData.length)
+                throw new IOException("Unexpected end of stream while reading compressed frame");
+            final int frameSize = this.frameSize;
+            this.inFlight.addLast(this.pool.submit(() -> inflateFrame(frameData, frameSize)));
+        }
+        if (this.inFlight.isEmpty()) return false;
+
+        byte[] inflated;
+        try
+        {
+            inflated = this.inFlight.removeFirst().join();
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        catch (RuntimeException e)
+        {
+            throw new IOException("Failed to inflate frame", e);
+        }
+        Arrays.fill(this.frame, (byte) 0);
+        this.frame = inflated;
+        this.frameFill = inflated.length;
+        this.frameCursor = 0;
+        return this.frameFill > 0 || this.loadNextFrameParallel();
+    }
+
+    private static byte[] inflateFrame(byte[] compressed, int frameSize)
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            byte[] output = new byte[frameSize];
+            int n = inflateFrame(inflater, compressed, 0, compressed.length, output);
+            Arrays.fill(compressed, (byte) 0);
+            if (n == frameSize) return output;
+            byte[] trimmed = Arrays.copyOf(output, n);
+            Arrays.fill(output, (byte) 0);
+            return trimmed;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+}
@@ -23,13 +23,14 @@
 package org.bunkr.core.streams.input;
 
 import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.BlockCache;
 import org.bunkr.core.crypto.CipherBuilder;
 import org.bunkr.core.inventory.FileInventoryItem;
-import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.io.CipherInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.InflaterInputStream;
 
 /**
@@ -43,20 +44,89 @@ public class MultilayeredInputStream extends InputStream
     private InputStream topstream = null;
 
     public MultilayeredInputStream(ArchiveInfoContext context, FileInventoryItem target)
+    {
+        this(context, target, 0);
+    }
+
+    /**
+     * Open the file for reading, optionally reading ahead on a background thread.
+     *
+     * With a prefetchDepth greater than 0, up to that many chunks of the file are read from the archive and decrypted
+     * by a worker thread while the caller is inflating and consuming the current one.
+     *
+     * @param context the archive
+     * @param target the file to read
+     * @param prefetchDepth number of chunks to read ahead, or 0 to do all of the work on the caller's thread
+     */
+    public MultilayeredInputStream(ArchiveInfoContext context, FileInventoryItem target, int prefetchDepth)
+    {
+        this(context, target, prefetchDepth, null);
+    }
+
+    /**
+     * As above, but with a pool the frames of a compressed file are inflated in parallel on that pool, with one more
+     * frame in flight than the pool has threads, and the data is decrypted in parallel slices.
+     *
+     * @param pool the pool to decrypt and inflate on, or null to do that work on the caller's thread
+     */
+    public MultilayeredInputStream(ArchiveInfoContext context, FileInventoryItem target, int prefetchDepth,
+                                   ForkJoinPool pool)
+    {
+        this(context, target, prefetchDepth, pool, null);
+    }
+
+    /**
+     * As above, but read the blocks through the given cache, usually ArchiveInfoContext.getBlockCache(). This pays off
+     * for files that are read again soon, like the ones open in the GUI. A file that is streamed once, as in an export,
+     * should be read without a cache: it would only add a copy per block and evict the blocks of other files.
+     *
+     * @param cache the cache of raw blocks to read through, or null
+     */
+    public MultilayeredInputStream(ArchiveInfoContext context, FileInventoryItem target, int prefetchDepth,
+                                   ForkJoinPool pool, BlockCache cache)
     {
         this.emptyFile = target.getActualSize() == 0;
         if (! emptyFile)
         {
-            this.baseStream = new BlockReaderInputStream(context.filePath, context.getBlockSize(), target);
+            this.baseStream = new BlockReaderInputStream(
+                    context.filePath, context.getBlockSize(), target, BlockReaderInputStream.DEFAULT_READ_SIZE, cache
+            );
             this.topstream = this.baseStream;
 
             if (target.isEncrypted())
             {
-                this.topstream = new CipherInputStream(
-                        this.topstream, new BufferedBlockCipher(CipherBuilder.buildCipherForFile(target, false))
+                if (pool != null)
+                {
+                    this.topstream = new CipherInputStream(
+                            this.topstream, CipherBuilder.buildParallelCipherForFile(target, false, pool),
+                            BlockReaderInputStream.DEFAULT_READ_SIZE
+                    );
+                }
+                else
+                {
+                    this.topstream = new CipherInputStream(
+                            this.topstream, CipherBuilder.buildStreamCipherForFile(target, false),
+                            BlockReaderInputStream.DEFAULT_READ_SIZE
+                    );
+                }
+            }
+            if (prefetchDepth > 0)
+            {
+                this.topstream = new PrefetchingInputStream(
+                        this.topstream, PrefetchingInputStream.DEFAULT_CHUNK_SIZE, prefetchDepth
                 );
             }
-            this.topstream = new InflaterInputStream(this.topstream);
+            if (target.isCompressed() && target.isFramed())
+            {
+                this.topstream = new FramedInflaterInputStream(
+                        this.topstream, target.getFrameSize(), target.getFrameLengths(),
+                        pool, (pool == null) ? 0 : pool.getParallelism() + 1
+                );
+            }
+            else if (target.isCompressed())
+            {
+                this.topstream = new InflaterInputStream(this.topstream);
+            }
         }
     }
 
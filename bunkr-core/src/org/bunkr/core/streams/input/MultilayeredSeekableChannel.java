@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.crypto.CipherBuilder;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.streams.output.FramedDeflaterOutputStream;
+import org.bunkr.core.utils.IO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * A read-only SeekableByteChannel over the plaintext of a file in the archive.
+ *
+ * For files written in compression frames, a read at any position only touches the single frame containing it: the
+ * frame index on the FileInventoryItem gives the compressed offset of the frame, the blocks covering it are read
+ * directly, the CTR cipher is seeked to the same offset, and the frame is inflated on its own. The most recently
+ * decoded frame is kept so that sequential reads through it do not decode it again.
+ *
+ * Files stored without compression are handled the same way, with the frame boundaries falling at fixed offsets.
+ *
+ * Files written before framing was introduced are a single deflate stream and cannot be entered in the middle. For
+ * those, a MultilayeredInputStream is skipped forward to the position, and reopened if a read seeks backwards.
+ *
+ * NOTE: random access does not read the whole file, so the integrity hash is NOT checked by this channel. Use a
+ * MultilayeredInputStream when the content must be verified.
+ */
+public class MultilayeredSeekableChannel implements SeekableByteChannel
+{
+    private final ArchiveInfoContext context;
+    private final FileInventoryItem target;
+    private final long size;
+
+    private long position = 0;
+    private boolean open = true;
+
+    // framed files
+    private BlockExtentReader extentReader = null;
+    private SkippingStreamCipher cipher = null;
+    private Inflater inflater = null;
+    private long[] frameOffsets = null;
+    private byte[] blockBuffer = new byte[0];
+    private byte[] frame = null;
+    private int frameFill = 0;
+    private int loadedFrame = -1;
+
+    // legacy unframed files
+    private MultilayeredInputStream legacyStream = null;
+    private long legacyPosition = 0;
+
+    public MultilayeredSeekableChannel(ArchiveInfoContext context, FileInventoryItem target)
+    {
+        this.context = context;
+        this.target = target;
+        this.size = target.getActualSize();
+
+        if (this.size > 0 && (target.isFramed() || ! target.isCompressed()))
+        {
+            if (target.isCompressed())
+            {
+                int[] frameLengths = target.getFrameLengths();
+                this.frameOffsets = new long[frameLengths.length + 1];
+                for (int i = 0; i < frameLengths.length; i++)
+                    this.frameOffsets[i + 1] = this.frameOffsets[i] + frameLengths[i];
+                this.inflater = new Inflater();
+                this.frame = new byte[target.getFrameSize()];
+            }
+            else
+            {
+                // stored files are read in frame sized pieces that map directly onto the data
+                int frameSize = FramedDeflaterOutputStream.DEFAULT_FRAME_SIZE;
+                this.frameOffsets = new long[(int) ((this.size + frameSize - 1) / frameSize) + 1];
+                for (int i = 1; i < this.frameOffsets.length; i++)
+                    this.frameOffsets[i] = Math.min(this.size, ((long) i) * frameSize);
+                this.frame = new byte[frameSize];
+            }
+
+            this.extentReader = new BlockExtentReader(
+                    context.filePath, context.getBlockSize(), target.getBlocks(), context.getBlockCache()
+            );
+            if (target.isEncrypted()) this.cipher = CipherBuilder.buildSeekableCipherForFile(target);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        if (! this.open) throw new ClosedChannelException();
+        if (this.position >= this.size) return -1;
+        if (! dst.hasRemaining()) return 0;
+
+        int n;
+        if (this.frameOffsets != null)
+        {
+            n = this.readFramed(dst);
+        }
+        else
+        {
+            n = this.readLegacy(dst);
+        }
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException
+    {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        if (! this.open) throw new ClosedChannelException();
+        return this.position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        if (! this.open) throw new ClosedChannelException();
+        if (newPosition < 0) throw new IllegalArgumentException("Cannot seek to negative position");
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException
+    {
+        if (! this.open) throw new ClosedChannelException();
+        return this.size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException
+    {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return this.open;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (! this.open) return;
+        this.open = false;
+        if (this.extentReader != null) this.extentReader.close();
+        if (this.inflater != null) this.inflater.end();
+        if (this.frame != null) Arrays.fill(this.frame, (byte) 0);
+        Arrays.fill(this.blockBuffer, (byte) 0);
+        if (this.legacyStream != null) this.legacyStream.close();
+    }
+
+    private int readFramed(ByteBuffer dst) throws IOException
+    {
+        int frameSize = this.frame.length;
+        int frameIndex = (int) (this.position / frameSize);
+        if (frameIndex != this.loadedFrame) this.loadFrame(frameIndex);
+
+        int frameCursor = (int) (this.position - ((long) frameIndex) * frameSize);
+        if (frameCursor >= this.frameFill) throw new IOException("Frame " + frameIndex + " is shorter than expected");
+        int n = Math.min(dst.remaining(), this.frameFill - frameCursor);
+        dst.put(this.frame, frameCursor, n);
+        return n;
+    }
+
+    private void loadFrame(int frameIndex) throws IOException
+    {
+        int blockSize = this.context.getBlockSize();
+        long compressedStart = this.frameOffsets[frameIndex];
+        int compressedLength = (int) (this.frameOffsets[frameIndex + 1] - compressedStart);
+
+        long firstBlock = compressedStart / blockSize;
+        int skew = (int) (compressedStart - firstBlock * blockSize);
+        int numBytes = ((skew + compressedLength + blockSize - 1) / blockSize) * blockSize;
+        if (this.blockBuffer.length < numBytes)
+        {
+            Arrays.fill(this.blockBuffer, (byte) 0);
+            this.blockBuffer = new byte[numBytes];
+        }
+
+        this.extentReader.seekToBlock(firstBlock);
+        int filled = 0;
+        while (filled < numBytes)
+        {
+            int n = this.extentReader.read(this.blockBuffer, filled, numBytes - filled);
+            if (n < 0) throw new IOException("File blocks ended before frame " + frameIndex);
+            filled += n;
+        }
+
+        if (this.cipher != null)
+        {
+            this.cipher.seekTo(compressedStart);
+            this.cipher.processBytes(this.blockBuffer, skew, compressedLength, this.blockBuffer, skew);
+        }
+
+        this.loadedFrame = -1;
+        if (this.inflater != null)
+        {
+            this.frameFill = FramedInflaterInputStream.inflateFrame(
+                    this.inflater, this.blockBuffer, skew, compressedLength, this.frame
+            );
+        }
+        else
+        {
+            System.arraycopy(this.blockBuffer, skew, this.frame, 0, compressedLength);
+            this.frameFill = compressedLength;
+        }
+        this.loadedFrame = frameIndex;
+    }
+
+    private int readLegacy(ByteBuffer dst) throws IOException
+    {
+        if (this.legacyStream == null || this.legacyPosition > this.position)
+        {
+            if (this.legacyStream != null) this.legacyStream.close();
+            this.legacyStream = new MultilayeredInputStream(this.context, this.target);
+            this.legacyStream.setCheckHashOnFinish(false);
+            this.legacyPosition = 0;
+        }
+        if (this.legacyPosition < this.position)
+        {
+            IO.reliableSkip(this.legacyStream, this.position - this.legacyPosition);
+            this.legacyPosition = this.position;
+        }
+
+        byte[] buffer = new byte[Math.min(dst.remaining(), 64 * 1024)];
+        int n = this.legacyStream.read(buffer, 0, buffer.length);
+        if (n < 0) throw new IOException("File data ended before its recorded size");
+        dst.put(buffer, 0, n);
+        this.legacyPosition += n;
+        return n;
+    }
+}
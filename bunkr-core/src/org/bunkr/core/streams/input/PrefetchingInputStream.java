@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Reads ahead from the source stream on a background thread. The worker fills up to 'depth' chunks into a bounded
+ * queue while the caller consumes the chunk before them, so that the work done by the source (disk reads, decryption)
+ * overlaps with whatever the caller does with the data.
+ *
+ * Any exception thrown by the source on the worker thread is rethrown to the caller at the point in the stream where
+ * it occurred. This includes the IntegrityHashError raised by the BlockReaderInputStream at the end of a file.
+ *
+ * The worker is started on the first read, so the source may still be configured up until then.
+ */
+public class PrefetchingInputStream extends InputStream
+{
+    public static final int DEFAULT_CHUNK_SIZE = BlockReaderInputStream.DEFAULT_READ_SIZE;
+    public static final int DEFAULT_DEPTH = 4;
+
+    private final InputStream source;
+    private final int chunkSize;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<byte[]> free;
+
+    private Thread worker = null;
+    private volatile boolean closed = false;
+    private Chunk current = null;
+    private int cursor = 0;
+    private boolean finished = false;
+
+    public PrefetchingInputStream(InputStream source, int chunkSize, int depth)
+    {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be positive");
+        if (depth < 1) throw new IllegalArgumentException("depth must be positive");
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.filled = new ArrayBlockingQueue<>(depth + 1);
+        this.free = new ArrayBlockingQueue<>(depth + 1);
+    }
+
+    public PrefetchingInputStream(InputStream source)
+    {
+        this(source, DEFAULT_CHUNK_SIZE, DEFAULT_DEPTH);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (! this.ensureChunk()) return -1;
+        return this.current.data[this.cursor++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0) return 0;
+        if (! this.ensureChunk()) return -1;
+        int n = Math.min(len, this.current.length - this.cursor);
+        System.arraycopy(this.current.data, this.cursor, b, off, n);
+        this.cursor += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        if (this.current == null) return 0;
+        return this.current.length - this.cursor;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed) return;
+        this.closed = true;
+        if (this.worker != null)
+        {
+            this.worker.interrupt();
+            try
+            {
+                this.worker.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (this.current != null && this.current.data != null) Arrays.fill(this.current.data, (byte) 0);
+        for (Chunk c : this.filled) if (c.data != null) Arrays.fill(c.data, (byte) 0);
+        for (byte[] b : this.free) Arrays.fill(b, (byte) 0);
+        this.filled.clear();
+        this.free.clear();
+        this.source.close();
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    private boolean ensureChunk() throws IOException
+    {
+        if (this.closed) throw new IOException("Stream is closed");
+        if (this.current != null && this.cursor < this.current.length) return true;
+        if (this.finished) return false;
+        if (this.worker == null) this.startWorker();
+
+        if (this.current != null) this.free.offer(this.current.data);
+        this.current = null;
+        Chunk next;
+        try
+        {
+            next = this.filled.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for prefetched data");
+        }
+
+        if (next.error != null)
+        {
+            this.finished = true;
+            if (next.error instanceof IOException) throw (IOException) next.error;
+            if (next.error instanceof RuntimeException) throw (RuntimeException) next.error;
+            throw new IOException(next.error);
+        }
+        if (next.data == null)
+        {
+            this.finished = true;
+            return false;
+        }
+        this.current = next;
+        this.cursor = 0;
+        return true;
+    }
+
+    private void startWorker()
+    {
+        for (int i = 0; i < this.filled.remainingCapacity(); i++) this.free.offer(new byte[this.chunkSize]);
+        this.worker = new Thread(this::fill, "bunkr-prefetch");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    private void fill()
+    {
+        try
+        {
+            while (! this.closed)
+            {
+                byte[] buffer = this.free.take();
+                int n = 0;
+                Throwable error = null;
+                try
+                {
+                    while (n < buffer.length)
+                    {
+                        int r = this.source.read(buffer, n, buffer.length - n);
+                        if (r == -1) break;
+                        n += r;
+                    }
+                }
+                catch (IOException | RuntimeException e)
+                {
+                    error = e;
+                }
+
+                // hand over whatever was read before an error, so it surfaces at the right point in the stream
+                if (n > 0) this.filled.put(new Chunk(buffer, n, null));
+                if (error != null)
+                {
+                    if (! this.closed) this.filled.put(new Chunk(null, 0, error));
+                    return;
+                }
+                if (n < buffer.length)
+                {
+                    this.filled.put(new Chunk(null, 0, null));
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException ignored)
+        {
+            // closed while waiting on a queue
+        }
+    }
+
+    private static class Chunk
+    {
+        final byte[] data;
+        final int length;
+        final Throwable error;
+
+        Chunk(byte[] data, int length, Throwable error)
+        {
+            this.data = data;
+            this.length = length;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.input;
+
+import javafx.util.Pair;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.MappedRegionManager;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.exceptions.IntegrityHashError;
+import org.bunkr.core.inventory.FileInventoryItem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Export path for files that are stored with neither encryption nor compression. Their blocks already hold the
+ * plaintext, so the data is handed from the archive to the destination one extent at a time, without being copied
+ * through a buffer on the Java heap. Without a hash check this uses FileChannel.transferTo; with one, the extents are
+ * memory mapped so that the same pages are hashed and written.
+ */
+public class StoredFileTransfer
+{
+    // largest part of an extent mapped at once when the hash is checked
+    private static final long HASHED_WINDOW_SIZE = MappedRegionManager.DEFAULT_WINDOW_SIZE;
+
+    /**
+     * @return true if the file's blocks contain its plaintext as is
+     */
+    public static boolean isTransferable(FileInventoryItem file)
+    {
+        return ! file.isEncrypted() && ! file.isCompressed();
+    }
+
+    /**
+     * Transfer the content of a stored file to the target channel.
+     *
+     * The integrity hash covers the whole blocks, so it can only be checked by reading them. If checkHash is set, each
+     * extent is mapped read-only in windows of up to HASHED_WINDOW_SIZE bytes. Each window is fed to the digest and
+     * then written to the target from the same mapping, so the archive is read from disk once. The JDK digest reads a
+     * mapped buffer through a small reusable heap array of a few KiB, so that is the only heap copy; the write to the
+     * target goes straight from the mapped pages. An IntegrityHashError is thrown if the hash does not match once
+     * all of the blocks have been read. This is the same point at which a MultilayeredInputStream would report the
+     * error: once all of the content has been written.
+     *
+     * @param context the archive
+     * @param file a file for which isTransferable() is true
+     * @param target the destination channel
+     * @param checkHash whether to check the integrity hash of the file
+     * @param progress called with the number of bytes written after each transfer, or null
+     * @return the number of bytes transferred
+     * @throws IOException if the transfer failed
+     */
+    public static long transfer(ArchiveInfoContext context, FileInventoryItem file, WritableByteChannel target,
+                                boolean checkHash, LongConsumer progress) throws IOException
+    {
+        if (! isTransferable(file)) throw new IllegalArgumentException("File is not stored as plaintext");
+
+        long dataStart = MetadataWriter.DBL_DATA_POS + Long.BYTES;
+        int blockSize = context.getBlockSize();
+        long remaining = file.getActualSize();
+        MessageDigest digest = (checkHash && remaining > 0) ? newDigest() : null;
+        try (FileChannel source = FileChannel.open(context.filePath.toPath(), StandardOpenOption.READ))
+        {
+            Iterator<Pair<Integer, Integer>> extents = file.getBlocks().copy().iteratePairs();
+            while ((remaining > 0 || digest != null) && extents.hasNext())
+            {
+                Pair<Integer, Integer> extent = extents.next();
+                long position = dataStart + ((long) extent.getKey()) * blockSize;
+                long extentBytes = ((long) extent.getValue()) * blockSize;
+                if (digest != null)
+                {
+                    remaining -= transferHashed(source, position, extentBytes, remaining, target, digest, progress);
+                    continue;
+                }
+
+                long count = Math.min(remaining, extentBytes);
+                while (count > 0)
+                {
+                    long n = source.transferTo(position, count, target);
+                    if (n <= 0 && position >= source.size())
+                        throw new IOException("Unexpected end of archive while transferring file data");
+                    position += n;
+                    count -= n;
+                    remaining -= n;
+                    if (progress != null && n > 0) progress.accept(n);
+                }
+            }
+        }
+        if (remaining > 0) throw new IOException("File blocks ended before its recorded size");
+
+        if (digest != null && ! Arrays.equals(digest.digest(), file.getIntegrityHash()))
+            throw new IntegrityHashError("Integrity hash did not match!");
+        return file.getActualSize();
+    }
+
+    /**
+     * Map a whole extent window by window, hashing all of it and writing up to 'remaining' bytes of it to the target.
+     *
+     * @return the number of bytes written to the target
+     */
+    private static long transferHashed(FileChannel source, long position, long extentBytes, long remaining,
+                                       WritableByteChannel target, MessageDigest digest, LongConsumer progress)
+            throws IOException
+    {
+        long end = position + extentBytes;
+        if (end > source.size()) throw new IOException("Unexpected end of archive while transferring file data");
+
+        long written = 0;
+        while (position < end)
+        {
+            long length = Math.min(HASHED_WINDOW_SIZE, end - position);
+            MappedByteBuffer window = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+            try
+            {
+                digest.update(window.duplicate());
+                int toWrite = (int) Math.min(length, remaining - written);
+                if (toWrite > 0)
+                {
+                    ByteBuffer data = window.duplicate();
+                    data.limit(toWrite);
+                    while (data.hasRemaining()) target.write(data);
+                    written += toWrite;
+                    if (progress != null) progress.accept(toWrite);
+                }
+            }
+            finally
+            {
+                MappedRegionManager.unmap(window);
+            }
+            position += length;
+        }
+        return written;
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // every Java platform is required to support SHA-1
+            throw new RuntimeException(e);
+        }
+    }
+}
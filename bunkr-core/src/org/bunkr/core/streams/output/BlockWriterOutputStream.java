@@ -24,28 +24,38 @@ package org.bunkr.core.streams.output;
 
 import org.bouncycastle.crypto.digests.GeneralDigest;
 import org.bouncycastle.crypto.digests.SHA1Digest;
-import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.BlockCache;
 import org.bunkr.core.IBlockAllocationManager;
+import org.bunkr.core.MappedRegionManager;
 import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.utils.Units;
 
 import java.io.*;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
+/**
+ * Writes data into the blocks allocated to a file. Completed blocks are gathered in a staging buffer, and once it
+ * fills up each contiguous run of allocated blocks in it is written with a single positional write.
+ */
 public class BlockWriterOutputStream extends OutputStream
 {
+    public static final int DEFAULT_STAGING_SIZE = (int) Units.MEBIBYTE;
+
     private final int blockSize;
     private final FileInventoryItem target;
     private final IBlockAllocationManager blockAllocMan;
     private final byte[] buffer;
+    private final int[] stagedBlockIds;
     private final GeneralDigest digester;
-    private final RandomAccessFile inputFile;
-    private final FileChannel inputFileChannel;
+    private final MappedRegionManager regions;
+    private final boolean ownsRegions;
+    private final BlockCache cache;
 
-    private ByteBuffer copyBuf;
+    private byte[] staging;
     private int blockCursor;
+    private int stagedBlocks;
     private long bytesWritten;
     private boolean partiallyFlushed;
 
@@ -53,6 +63,32 @@ public class BlockWriterOutputStream extends OutputStream
     public BlockWriterOutputStream(File path, int blockSize, FileInventoryItem target, IBlockAllocationManager blockAllocMan)
 
             throws FileNotFoundException
+    {
+        this(new MappedRegionManager(path), true, null, blockSize, target, blockAllocMan);
+    }
+
+    /**
+     * Construct a writer that writes through a region manager shared with other users of the archive, usually the one
+     * from ArchiveInfoContext.getMappedRegions(). The shared manager is left open when this stream is closed.
+     */
+    public BlockWriterOutputStream(MappedRegionManager regions, int blockSize, FileInventoryItem target,
+                                   IBlockAllocationManager blockAllocMan)
+    {
+        this(regions, false, null, blockSize, target, blockAllocMan);
+    }
+
+    /**
+     * As above, but also invalidate each block in the given cache as it is rewritten, usually the one from
+     * ArchiveInfoContext.getBlockCache().
+     */
+    public BlockWriterOutputStream(MappedRegionManager regions, BlockCache cache, int blockSize,
+                                   FileInventoryItem target, IBlockAllocationManager blockAllocMan)
+    {
+        this(regions, false, cache, blockSize, target, blockAllocMan);
+    }
+
+    private BlockWriterOutputStream(MappedRegionManager regions, boolean ownsRegions, BlockCache cache, int blockSize,
+                                    FileInventoryItem target, IBlockAllocationManager blockAllocMan)
     {
         super();
         this.blockSize = blockSize;
@@ -61,19 +97,45 @@ public class BlockWriterOutputStream extends OutputStream
         this.blockAllocMan.clearAllocation();
 
         this.buffer = new byte[this.blockSize];
+        // the staging buffer is allocated when the first block is staged, see reserve()
+        this.staging = null;
+        this.stagedBlockIds = new int[Math.max(1, DEFAULT_STAGING_SIZE / this.blockSize)];
+        this.stagedBlocks = 0;
         this.blockCursor = 0;
         this.bytesWritten = 0;
         this.partiallyFlushed = false;
 
-        this.inputFile = new RandomAccessFile(path, "rw");
-        this.inputFileChannel = this.inputFile.getChannel();
+        this.regions = regions;
+        this.ownsRegions = ownsRegions;
+        this.cache = cache;
         this.digester = new SHA1Digest();
     }
 
+    /**
+     * Tell the allocation manager how many bytes are expected to be written so that the blocks can be taken from a
+     * single contiguous run. This is only a hint: writing more or less than expected is fine. It should be called
+     * before anything is written.
+     *
+     * The hint also sizes the staging buffer, so that small files don't each allocate and clear a buffer of
+     * DEFAULT_STAGING_SIZE bytes. If more is written than expected the buffer grows back up to the default.
+     *
+     * @param expectedBytes the number of bytes expected to be written to this stream
+     */
+    public void reserve(long expectedBytes)
+    {
+        long numBlocks = (expectedBytes + this.blockSize - 1) / this.blockSize;
+        this.blockAllocMan.reserve((int) Math.min(Integer.MAX_VALUE, numBlocks));
+        if (this.staging == null)
+        {
+            int stagingBlocks = (int) Math.max(1, Math.min(this.stagedBlockIds.length, numBlocks));
+            this.staging = new byte[stagingBlocks * this.blockSize];
+        }
+    }
+
     @Override
     public void write(int b) throws IOException
     {
-        if (this.blockCursor == this.blockSize) this.flush();
+        if (this.blockCursor == this.blockSize) this.stageBlock();
         this.buffer[this.blockCursor++] = (byte) b;
         bytesWritten += 1;
     }
@@ -92,7 +154,7 @@ public class BlockWriterOutputStream extends OutputStream
         {
             if (this.blockCursor == this.blockSize)
             {
-                this.flush();
+                this.stageBlock();
             }
             int readAmnt = Math.min(len - srcCursor, this.blockSize);
             readAmnt = Math.min(readAmnt, this.blockSize - this.blockCursor);
@@ -105,7 +167,7 @@ public class BlockWriterOutputStream extends OutputStream
 
     @Override
     /**
-     * This method writes the buffer out into the file.
+     * This method writes the buffer and all staged blocks out into the file.
      */
     public void flush() throws IOException
     {
@@ -130,18 +192,62 @@ public class BlockWriterOutputStream extends OutputStream
                 partiallyFlushed = true;
             }
 
-            // identify which block the data will be written too
-            long blockId = this.blockAllocMan.allocateNextBlock();
-            long writePosition = blockId * this.blockSize + MetadataWriter.DBL_DATA_POS + Long.BYTES;
+            this.stageBlock();
+        }
+        this.writeStaged();
+    }
+
+    /**
+     * Allocate a block for the full block buffer and move it into the staging buffer.
+     */
+    private void stageBlock() throws IOException
+    {
+        if (this.stagedBlocks == this.stagedBlockIds.length) this.writeStaged();
+        if (this.staging == null)
+        {
+            this.staging = new byte[this.stagedBlockIds.length * this.blockSize];
+        }
+        else if (this.staging.length < (this.stagedBlocks + 1) * this.blockSize)
+        {
+            // more was written than reserve() said, grow the staging buffer towards its full size
+            int stagingBlocks = Math.min(this.stagedBlockIds.length, 2 * (this.staging.length / this.blockSize));
+            byte[] grown = Arrays.copyOf(this.staging, stagingBlocks * this.blockSize);
+            Arrays.fill(this.staging, (byte) 0);
+            this.staging = grown;
+        }
 
-            // open up the file and write it!
-            this.copyBuf = this.inputFileChannel.map(FileChannel.MapMode.READ_WRITE, writePosition, buffer.length);
-            this.copyBuf.put(this.buffer, 0, this.buffer.length);
-            this.digester.update(this.buffer, 0, buffer.length);
+        // identify which block the data will be written too
+        this.stagedBlockIds[this.stagedBlocks] = this.blockAllocMan.allocateNextBlock();
+        System.arraycopy(this.buffer, 0, this.staging, this.stagedBlocks * this.blockSize, this.blockSize);
+        this.digester.update(this.buffer, 0, this.blockSize);
+        this.stagedBlocks++;
 
-            // reset the cursor
-            this.blockCursor = 0;
+        // reset the cursor
+        this.blockCursor = 0;
+    }
+
+    /**
+     * Write the staged blocks to the archive, one positional write for each run of consecutive block ids.
+     */
+    private void writeStaged() throws IOException
+    {
+        int runStart = 0;
+        while (runStart < this.stagedBlocks)
+        {
+            int runEnd = runStart + 1;
+            while (runEnd < this.stagedBlocks && this.stagedBlockIds[runEnd] == this.stagedBlockIds[runEnd - 1] + 1)
+                runEnd++;
+
+            this.regions.writeBlocksDirect(this.stagedBlockIds[runStart], this.blockSize, ByteBuffer.wrap(
+                    this.staging, runStart * this.blockSize, (runEnd - runStart) * this.blockSize
+            ));
+            if (this.cache != null)
+            {
+                for (int i = runStart; i < runEnd; i++) this.cache.invalidate(this.stagedBlockIds[i]);
+            }
+            runStart = runEnd;
         }
+        this.stagedBlocks = 0;
     }
 
     @Override
@@ -150,17 +256,17 @@ public class BlockWriterOutputStream extends OutputStream
         // flush the last block if needed
         this.flush();
 
-        // clear the temporary buffer
+        // clear the temporary buffers
         Arrays.fill(this.buffer, (byte) 0);
+        if (this.staging != null) Arrays.fill(this.staging, (byte) 0);
+        this.blockAllocMan.releaseReservation();
 
         // now because we've written new data to the file, we need to update the block data length
         // by opening the file and inserting the data back at the beginning of the file.
-        long newDataBlocksLength = this.blockAllocMan.getTotalBlocks() * this.blockSize;
-        this.copyBuf = this.inputFileChannel.map(FileChannel.MapMode.READ_WRITE, MetadataWriter.DBL_DATA_POS, Long.BYTES);
-        this.copyBuf.putLong(newDataBlocksLength);
+        long newDataBlocksLength = ((long) this.blockAllocMan.getTotalBlocks()) * this.blockSize;
+        this.regions.writeBlockDataLength(newDataBlocksLength);
 
-        this.inputFileChannel.close();
-        this.inputFile.close();
+        if (this.ownsRegions) this.regions.close();
 
         // retrieve hash from digest
         byte[] digest = new byte[this.digester.getDigestSize()];
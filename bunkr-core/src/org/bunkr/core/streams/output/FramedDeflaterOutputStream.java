@@ -0,0 +1,297 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.output;
+
+import org.bunkr.core.utils.Units;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Deflater;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Compresses the written data in fixed size frames. Every frameSize bytes of input are deflated as a complete and
+ * independent deflate stream, so any frame can later be inflated without touching the frames before it. The
+ * compressed length of each frame is recorded so that a reader can locate frame N without scanning.
+ *
+ * Because the frames are independent they can also be compressed in parallel. Given a ForkJoinPool, each full frame
+ * is handed to the pool and up to framesInFlight frames are compressed at once, while the compressed frames are
+ * still written out in order. The output is byte for byte the same as when compressing on the caller's thread.
+ */
+public class FramedDeflaterOutputStream extends OutputStream
+{
+    public static final int DEFAULT_FRAME_SIZE = (int) Units.MEBIBYTE;
+
+    private final OutputStream out;
+    private final int frameSize;
+    private final int level;
+    private final byte[] deflateBuffer;
+    private final Deflater deflater;
+    private final ForkJoinPool pool;
+    private final int framesInFlight;
+    private final ArrayDeque<ForkJoinTask<CompressedFrame>> inFlight = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> spareFrameBuffers = new ArrayDeque<>();
+
+    private byte[] frameBuffer;
+    private int frameCursor = 0;
+    private int[] frameLengths = new int[16];
+    private int frameCount = 0;
+    private boolean closed = false;
+
+    public FramedDeflaterOutputStream(OutputStream out, int frameSize, int level)
+    {
+        this(out, frameSize, level, null, 0);
+    }
+
+    /**
+     * @param pool the pool to compress frames on, or null to compress on the caller's thread
+     * @param framesInFlight the maximum number of frames being compressed at once when a pool is given
+     */
+    public FramedDeflaterOutputStream(OutputStream out, int frameSize, int level, ForkJoinPool pool,
+                                      int framesInFlight)
+    {
+        if (frameSize < 1) throw new IllegalArgumentException("frameSize must be positive");
+        if (pool != null && framesInFlight < 1) throw new IllegalArgumentException("framesInFlight must be positive");
+        this.out = out;
+        this.frameSize = frameSize;
+        this.level = level;
+        // the frame buffer is allocated on the first write, see reserve()
+        this.frameBuffer = null;
+        this.pool = pool;
+        this.framesInFlight = framesInFlight;
+        if (pool == null)
+        {
+            this.deflateBuffer = new byte[Math.min(frameSize, 64 * 1024) + 64];
+            this.deflater = new Deflater(level);
+        }
+        else
+        {
+            this.deflateBuffer = null;
+            this.deflater = null;
+        }
+    }
+
+    /**
+     * Size the frame buffer for the given number of bytes of input. This is only a hint: if more is written the
+     * buffer grows up to frameSize, and the frames written are the same either way. It should be called before
+     * anything is written, so that small files don't each allocate and clear a buffer of frameSize bytes.
+     *
+     * @param expectedBytes the number of bytes expected to be written to this stream
+     */
+    public void reserve(long expectedBytes)
+    {
+        if (this.frameBuffer == null)
+            this.frameBuffer = new byte[(int) Math.max(1, Math.min(this.frameSize, expectedBytes))];
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        this.ensureFrameSpace();
+        this.frameBuffer[this.frameCursor++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        while (len > 0)
+        {
+            this.ensureFrameSpace();
+            int n = Math.min(len, this.frameBuffer.length - this.frameCursor);
+            System.arraycopy(b, off, this.frameBuffer, this.frameCursor, n);
+            this.frameCursor += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flushing writes out any frames that are still being compressed and passes the flush downstream. Frames are only
+     * ever cut at frameSize boundaries or on close.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        while (! this.inFlight.isEmpty()) this.writeOldestFrame();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed) return;
+        this.closed = true;
+        try
+        {
+            if (this.frameCursor > 0) this.writeFrame();
+            while (! this.inFlight.isEmpty()) this.writeOldestFrame();
+        }
+        finally
+        {
+            if (this.frameBuffer != null) Arrays.fill(this.frameBuffer, (byte) 0);
+            for (byte[] b : this.spareFrameBuffers) Arrays.fill(b, (byte) 0);
+            if (this.deflater != null)
+            {
+                Arrays.fill(this.deflateBuffer, (byte) 0);
+                this.deflater.end();
+            }
+        }
+        this.out.close();
+    }
+
+    public int getFrameSize()
+    {
+        return this.frameSize;
+    }
+
+    /**
+     * @return the compressed length of each frame written so far
+     */
+    public int[] getFrameLengths()
+    {
+        return Arrays.copyOf(this.frameLengths, this.frameCount);
+    }
+
+    /**
+     * Make sure there is room for at least one more byte in the frame buffer, either by growing it or, when it already
+     * holds a full frame, by writing the frame out.
+     */
+    private void ensureFrameSpace() throws IOException
+    {
+        if (this.frameBuffer == null)
+        {
+            this.frameBuffer = new byte[this.frameSize];
+        }
+        else if (this.frameCursor == this.frameSize)
+        {
+            this.writeFrame();
+        }
+        else if (this.frameCursor == this.frameBuffer.length)
+        {
+            byte[] grown = Arrays.copyOf(this.frameBuffer, (int) Math.min(this.frameSize, 2L * this.frameCursor));
+            Arrays.fill(this.frameBuffer, (byte) 0);
+            this.frameBuffer = grown;
+        }
+    }
+
+    private void writeFrame() throws IOException
+    {
+        if (this.pool != null)
+        {
+            this.submitFrame();
+            return;
+        }
+
+        this.deflater.reset();
+        this.deflater.setInput(this.frameBuffer, 0, this.frameCursor);
+        this.deflater.finish();
+        int compressedLength = 0;
+        while (! this.deflater.finished())
+        {
+            int n = this.deflater.deflate(this.deflateBuffer);
+            this.out.write(this.deflateBuffer, 0, n);
+            compressedLength += n;
+        }
+        this.recordFrame(compressedLength);
+        this.frameCursor = 0;
+    }
+
+    private void submitFrame() throws IOException
+    {
+        if (this.inFlight.size() >= this.framesInFlight) this.writeOldestFrame();
+
+        final byte[] input = this.frameBuffer;
+        final int length = this.frameCursor;
+        final int level = this.level;
+        this.inFlight.addLast(this.pool.submit(() -> deflateFrame(input, length, level)));
+
+        this.frameBuffer = this.spareFrameBuffers.isEmpty() ? new byte[this.frameSize] : this.spareFrameBuffers.pop();
+        this.frameCursor = 0;
+    }
+
+    private void writeOldestFrame() throws IOException
+    {
+        CompressedFrame frame;
+        try
+        {
+            frame = this.inFlight.removeFirst().join();
+        }
+        catch (RuntimeException e)
+        {
+            throw new IOException("Failed to compress frame", e);
+        }
+        this.out.write(frame.data, 0, frame.length);
+        this.recordFrame(frame.length);
+        Arrays.fill(frame.input, (byte) 0);
+        this.spareFrameBuffers.push(frame.input);
+    }
+
+    private void recordFrame(int compressedLength)
+    {
+        if (this.frameCount == this.frameLengths.length)
+            this.frameLengths = Arrays.copyOf(this.frameLengths, this.frameCount * 2);
+        this.frameLengths[this.frameCount++] = compressedLength;
+    }
+
+    private static CompressedFrame deflateFrame(byte[] input, int length, int level)
+    {
+        Deflater deflater = new Deflater(level);
+        try
+        {
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            // enough for incompressible input in most cases, grown below if not
+            byte[] output = new byte[length + (length >> 8) + 64];
+            int n = 0;
+            while (! deflater.finished())
+            {
+                if (n == output.length) output = Arrays.copyOf(output, output.length * 2);
+                n += deflater.deflate(output, n, output.length - n);
+            }
+            return new CompressedFrame(input, output, n);
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static class CompressedFrame
+    {
+        final byte[] input;
+        final byte[] data;
+        final int length;
+
+        CompressedFrame(byte[] input, byte[] data, int length)
+        {
+            this.input = input;
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
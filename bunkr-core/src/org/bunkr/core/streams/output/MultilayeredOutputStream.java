@@ -24,16 +24,17 @@ package org.bunkr.core.streams.output;
 
 import org.bunkr.core.ArchiveInfoContext;
 import org.bunkr.core.BlockAllocationManager;
+import org.bunkr.core.IBlockAllocationManager;
 import org.bunkr.core.crypto.CipherBuilder;
+import org.bunkr.core.inventory.Algorithms.Compression;
 import org.bunkr.core.inventory.FileInventoryItem;
-import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.io.CipherOutputStream;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
 
 /**
  * Created At: 2015-11-09
@@ -42,33 +43,133 @@ public class MultilayeredOutputStream extends OutputStream
 {
     private final FileInventoryItem target;
 
+    private final BlockWriterOutputStream blockStream;
+    private final FramedDeflaterOutputStream framedStream;
     private OutputStream topstream;
     private long writtenBytes = 0;
 
     public MultilayeredOutputStream(ArchiveInfoContext context, FileInventoryItem target) throws FileNotFoundException
+    {
+        this(context, target, Compression.DEFLATE);
+    }
+
+    /**
+     * @param compression DEFLATE to compress the file in frames, or NONE to store the data as is
+     */
+    public MultilayeredOutputStream(ArchiveInfoContext context, FileInventoryItem target, Compression compression)
+            throws FileNotFoundException
+    {
+        this(context, target, compression, 0);
+    }
+
+    /**
+     * With a pipelineDepth greater than 0, encryption and the block writer (hashing and disk writes) each run on their
+     * own worker thread with up to that many chunks queued in front of them, while compression stays on the caller's
+     * thread.
+     *
+     * @param compression DEFLATE to compress the file in frames, or NONE to store the data as is
+     * @param pipelineDepth number of chunks queued in front of each stage, or 0 to do all of the work on the caller's
+     *                      thread
+     */
+    public MultilayeredOutputStream(ArchiveInfoContext context, FileInventoryItem target, Compression compression,
+                                    int pipelineDepth) throws FileNotFoundException
+    {
+        this(context, target, compression, pipelineDepth, null);
+    }
+
+    /**
+     * As above, but with a pool the frames of a compressed file are deflated in parallel on that pool, with one more
+     * frame in flight than the pool has threads, and large writes are encrypted in parallel slices.
+     *
+     * @param pool the pool to compress and encrypt on, or null to do that work on the caller's thread
+     */
+    public MultilayeredOutputStream(ArchiveInfoContext context, FileInventoryItem target, Compression compression,
+                                    int pipelineDepth, ForkJoinPool pool) throws FileNotFoundException
+    {
+        this(context, target, compression, pipelineDepth, pool,
+             new BlockAllocationManager(context.getInventory(), target.getBlocks()));
+    }
+
+    /**
+     * As above, but allocate blocks through the given allocation manager rather than one built from the inventory.
+     * This is how several files are written at once, each with an allocation manager from the same
+     * SharedBlockAllocator.
+     *
+     * @param allocator the allocation manager for this file, starting with the blocks the file currently holds
+     */
+    public MultilayeredOutputStream(ArchiveInfoContext context, FileInventoryItem target, Compression compression,
+                                    int pipelineDepth, ForkJoinPool pool, IBlockAllocationManager allocator)
+            throws FileNotFoundException
     {
         this.target = target;
-        this.topstream = new BlockWriterOutputStream(
-                    context.filePath,
+        this.blockStream = new BlockWriterOutputStream(
+                    context.getMappedRegions(),
+                    context.getBlockCache(),
                     context.getBlockSize(),
                     target,
-                    new BlockAllocationManager(context.getInventory(), target.getBlocks())
+                    allocator
         );
+        this.topstream = this.blockStream;
+        if (pipelineDepth > 0)
+        {
+            this.topstream = new PipelinedOutputStream(
+                    this.topstream, PipelinedOutputStream.DEFAULT_CHUNK_SIZE, pipelineDepth
+            );
+        }
 
         target.setEncryptionAlgorithm(context.getInventory().getDefaultEncryption());
 
         if (target.isEncrypted())
         {
-            this.topstream = new CipherOutputStream(
-                    this.topstream, new BufferedBlockCipher(CipherBuilder.buildCipherForFile(target, true))
-            );
+            if (pool != null)
+            {
+                this.topstream = new CipherOutputStream(
+                        this.topstream, CipherBuilder.buildParallelCipherForFile(target, true, pool)
+                );
+            }
+            else
+            {
+                this.topstream = new CipherOutputStream(
+                        this.topstream, CipherBuilder.buildStreamCipherForFile(target, true)
+                );
+            }
+            if (pipelineDepth > 0)
+            {
+                this.topstream = new PipelinedOutputStream(
+                        this.topstream, PipelinedOutputStream.DEFAULT_CHUNK_SIZE, pipelineDepth
+                );
+            }
         }
         else
         {
             target.setEncryptionData(null);
         }
 
-        this.topstream = new DeflaterOutputStream(this.topstream, new Deflater(Deflater.BEST_SPEED));
+        target.setCompression(compression);
+        if (target.isCompressed())
+        {
+            this.framedStream = new FramedDeflaterOutputStream(
+                    this.topstream, FramedDeflaterOutputStream.DEFAULT_FRAME_SIZE, Deflater.BEST_SPEED,
+                    pool, (pool == null) ? 0 : pool.getParallelism() + 1
+            );
+            this.topstream = this.framedStream;
+        }
+        else
+        {
+            this.framedStream = null;
+        }
+    }
+
+    /**
+     * Reserve a contiguous run of blocks big enough for the given number of bytes of input, usually the size of the
+     * file being imported. If the data compresses, the blocks that end up unused are left free. Call this before
+     * writing anything. The hint also sizes the staging and frame buffers of the streams below, so small files
+     * don't pay for full size buffers.
+     */
+    public void reserve(long expectedBytes)
+    {
+        this.blockStream.reserve(expectedBytes);
+        if (this.framedStream != null) this.framedStream.reserve(expectedBytes);
     }
 
     @Override
@@ -103,5 +204,9 @@ public class MultilayeredOutputStream extends OutputStream
     {
         this.topstream.close();
         target.setActualSize(this.writtenBytes);
+        if (this.framedStream != null)
+            target.setFrames(this.framedStream.getFrameSize(), this.framedStream.getFrameLengths());
+        else
+            target.setFrames(0, null);
     }
 }
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bunkr.core.streams.output;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Created At: 2026-10-17
+ *
+ * Hands written data to the sink stream on a background thread. Data is collected into chunks from a fixed pool of
+ * 'depth' + 1 buffers; full chunks are queued for the worker, which writes them to the sink and returns the buffers to
+ * the pool. Once every buffer is in flight the caller blocks until the sink catches up, so a slow sink holds back the
+ * writer instead of buffering the whole file.
+ *
+ * Stacking these between the layers of a writer (compression, encryption, block writing) runs each layer on its own
+ * thread.
+ *
+ * An exception thrown by the sink is rethrown to the caller on the next write, flush or close. Flush blocks until the
+ * worker has written everything before it and flushed the sink. The sink is closed by close() once the worker has
+ * finished.
+ *
+ * The worker is started on the first write, so the sink may still be configured up until then.
+ */
+public class PipelinedOutputStream extends OutputStream
+{
+    public static final int DEFAULT_CHUNK_SIZE = BlockWriterOutputStream.DEFAULT_STAGING_SIZE;
+    public static final int DEFAULT_DEPTH = 4;
+
+    private static final Chunk END = new Chunk(null, 0, null);
+
+    private final OutputStream sink;
+    private final int chunkSize;
+    private final int depth;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<byte[]> free;
+
+    private Thread worker = null;
+    private volatile Throwable error = null;
+    private boolean closed = false;
+    private byte[] current = null;
+    private int cursor = 0;
+
+    public PipelinedOutputStream(OutputStream sink, int chunkSize, int depth)
+    {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be positive");
+        if (depth < 1) throw new IllegalArgumentException("depth must be positive");
+        this.sink = sink;
+        this.chunkSize = chunkSize;
+        this.depth = depth;
+        // room for every buffer plus a flush and an end marker, so that markers never wait on the queue
+        this.filled = new ArrayBlockingQueue<>(depth + 3);
+        this.free = new ArrayBlockingQueue<>(depth + 1);
+    }
+
+    public PipelinedOutputStream(OutputStream sink)
+    {
+        this(sink, DEFAULT_CHUNK_SIZE, DEFAULT_DEPTH);
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        this.ensureOpen();
+        this.current[this.cursor++] = (byte) b;
+        if (this.cursor == this.chunkSize) this.submit();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        if (off < 0 || len < 0 || off + len > b.length) throw new IndexOutOfBoundsException();
+        if (len == 0) return;
+        this.ensureOpen();
+        while (len > 0)
+        {
+            int n = Math.min(len, this.chunkSize - this.cursor);
+            System.arraycopy(b, off, this.current, this.cursor, n);
+            this.cursor += n;
+            off += n;
+            len -= n;
+            if (this.cursor == this.chunkSize) this.submit();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if (this.closed) throw new IOException("Stream is closed");
+        this.rethrowError();
+        if (this.worker == null)
+        {
+            this.sink.flush();
+            return;
+        }
+        if (this.cursor > 0) this.submit();
+
+        Chunk marker = new Chunk(null, 0, new CountDownLatch(1));
+        this.enqueue(marker);
+        try
+        {
+            marker.flushed.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the pipeline to flush");
+        }
+        this.rethrowError();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed) return;
+        this.closed = true;
+        try
+        {
+            if (this.worker != null)
+            {
+                if (this.cursor > 0) this.enqueue(new Chunk(this.current, this.cursor, null));
+                this.enqueue(END);
+                try
+                {
+                    this.worker.join();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the pipeline to finish");
+                }
+            }
+            this.rethrowError();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            try
+            {
+                this.sink.close();
+            }
+            catch (IOException | RuntimeException suppressed)
+            {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        finally
+        {
+            if (this.current != null) Arrays.fill(this.current, (byte) 0);
+            for (byte[] b : this.free) Arrays.fill(b, (byte) 0);
+            this.free.clear();
+        }
+        this.sink.close();
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (this.closed) throw new IOException("Stream is closed");
+        if (this.worker == null)
+        {
+            for (int i = 0; i < this.depth; i++) this.free.offer(new byte[this.chunkSize]);
+            this.current = new byte[this.chunkSize];
+            this.worker = new Thread(this::drain, "bunkr-pipeline");
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+    }
+
+    private void submit() throws IOException
+    {
+        this.rethrowError();
+        this.enqueue(new Chunk(this.current, this.cursor, null));
+        try
+        {
+            this.current = this.free.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free pipeline buffer");
+        }
+        this.cursor = 0;
+    }
+
+    private void enqueue(Chunk chunk) throws IOException
+    {
+        try
+        {
+            this.filled.put(chunk);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing data for the pipeline");
+        }
+    }
+
+    private void rethrowError() throws IOException
+    {
+        Throwable e = this.error;
+        if (e == null) return;
+        if (e instanceof IOException) throw (IOException) e;
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        throw new IOException(e);
+    }
+
+    private void drain()
+    {
+        try
+        {
+            while (true)
+            {
+                Chunk c = this.filled.take();
+                if (c == END) return;
+                // after a failure keep taking chunks so that the caller never blocks on a full pipeline
+                if (this.error == null)
+                {
+                    try
+                    {
+                        if (c.data != null) this.sink.write(c.data, 0, c.length);
+                        if (c.flushed != null) this.sink.flush();
+                    }
+                    catch (IOException | RuntimeException e)
+                    {
+                        this.error = e;
+                    }
+                }
+                if (c.data != null) this.free.offer(c.data);
+                if (c.flushed != null) c.flushed.countDown();
+            }
+        }
+        catch (InterruptedException ignored)
+        {
+            // abandoned while waiting on the queue
+        }
+    }
+
+    private static class Chunk
+    {
+        final byte[] data;
+        final int length;
+        final CountDownLatch flushed;
+
+        Chunk(byte[] data, int length, CountDownLatch flushed)
+        {
+            this.data = data;
+            this.length = length;
+            this.flushed = flushed;
+        }
+    }
+}
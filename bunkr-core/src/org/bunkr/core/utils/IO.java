@@ -22,7 +22,9 @@
 
 package org.bunkr.core.utils;
 
+import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -33,7 +35,7 @@ public class IO
     public static byte[] readNBytes(InputStream dis, int n) throws IOException
     {
         byte[] buffer = new byte[n];
-        int r = dis.read(buffer);
+        int r = reliableRead(dis, buffer);
         if (r != n) throw new IOException(String.format("Expected to read %d bytes, only read %d", n, r));
         return buffer;
     }
@@ -60,6 +62,39 @@ public class IO
         }
     }
 
+    /**
+     * Write a long as an unsigned varint: 7 bits per byte, least significant group first, with the high bit set on
+     * every byte but the last. Small values take a single byte, negative values take 10.
+     */
+    public static void writeVarLong(DataOutput out, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= ((long) (b & 0x7F)) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint is longer than 10 bytes");
+    }
+
+    public static int readVarInt(DataInput in) throws IOException
+    {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) throw new IOException("Varint does not fit in an int: " + value);
+        return (int) value;
+    }
+
     public static int reliableRead(InputStream is, byte[] dst) throws IOException
     {
         return reliableRead(is, dst, 0, dst.length);
@@ -23,6 +23,7 @@
 package org.bunkr.core.utils;
 
 import org.bouncycastle.crypto.CryptoException;
+import org.bouncycastle.crypto.io.CipherInputStream;
 import org.bouncycastle.crypto.paddings.PKCS7Padding;
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
 import org.bouncycastle.crypto.params.KeyParameter;
@@ -30,6 +31,7 @@ import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bunkr.core.crypto.CipherBuilder;
 import org.bunkr.core.inventory.Algorithms.Encryption;
 
+import java.io.InputStream;
 import java.util.Arrays;
 
 /**
@@ -37,7 +39,9 @@ import java.util.Arrays;
  */
 public class SimpleBlockCipher
 {
-    private static byte[] operate(Encryption encryptionAlgorithm, boolean doEncrypt, byte[] subject, byte[] key, byte[] iv) throws CryptoException
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private static PaddedBufferedBlockCipher buildCipher(Encryption encryptionAlgorithm, boolean doEncrypt, byte[] key, byte[] iv)
     {
         // set up padded buffered cipher
         PaddedBufferedBlockCipher cipher = new PaddedBufferedBlockCipher(
@@ -46,6 +50,12 @@ public class SimpleBlockCipher
 
         // init with key and if
         cipher.init(doEncrypt, new ParametersWithIV(new KeyParameter(key), iv));
+        return cipher;
+    }
+
+    private static byte[] operate(Encryption encryptionAlgorithm, boolean doEncrypt, byte[] subject, byte[] key, byte[] iv) throws CryptoException
+    {
+        PaddedBufferedBlockCipher cipher = buildCipher(encryptionAlgorithm, doEncrypt, key, iv);
 
         // construct output buffer
         byte[] output = new byte[cipher.getOutputSize(subject.length)];
@@ -54,8 +64,13 @@ public class SimpleBlockCipher
         int cursor = cipher.processBytes(subject, 0, subject.length, output, 0);
 
         // process the last bytes from the buffer
-        cipher.doFinal(output, cursor);
-        return output;
+        cursor += cipher.doFinal(output, cursor);
+
+        // when decrypting the output buffer is sized for the padded input, so cut it down to the real length
+        if (cursor == output.length) return output;
+        byte[] trimmed = Arrays.copyOf(output, cursor);
+        Arrays.fill(output, (byte) 0);
+        return trimmed;
     }
 
     public static byte[] encrypt(Encryption encryptionAlgorithm, byte[] input, byte[] key, byte[] iv) throws CryptoException
@@ -65,12 +80,16 @@ public class SimpleBlockCipher
 
     public static byte[] decrypt(Encryption encryptionAlgorithm, byte[] input, byte[] key, byte[] iv) throws CryptoException
     {
-        byte[] withPadding = operate(encryptionAlgorithm, false, input, key, iv);
-        int trueLength = input.length;
-        while(trueLength > 0 && withPadding[trueLength - 1] == 0x0) trueLength--;
-        byte[] nonPadded = new byte[trueLength];
-        System.arraycopy(withPadding, 0, nonPadded, 0, trueLength);
-        Arrays.fill(withPadding, (byte) 0);
-        return nonPadded;
+        return operate(encryptionAlgorithm, false, input, key, iv);
+    }
+
+    /**
+     * Decrypt data produced by encrypt() as it is read from the source, so that it never has to be held in memory as
+     * a whole. The padding is checked when the end of the source is reached, and an IOException is thrown from the
+     * final read if it is wrong.
+     */
+    public static InputStream decryptingStream(Encryption encryptionAlgorithm, InputStream source, byte[] key, byte[] iv)
+    {
+        return new CipherInputStream(source, buildCipher(encryptionAlgorithm, false, key, iv), STREAM_BUFFER_SIZE);
     }
 }
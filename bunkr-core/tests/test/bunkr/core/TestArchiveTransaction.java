@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bunkr.core.ArchiveBuilder;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.ArchiveTransaction;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.descriptor.PlaintextDescriptor;
+import org.bunkr.core.inventory.Algorithms;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.operations.ImportDirectoryOp;
+import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.IO;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestArchiveTransaction
+{
+    @Rule
+    public final XTemporaryFolder folder = new XTemporaryFolder();
+
+    private void writeText(MultilayeredOutputStream out, String text) throws Exception
+    {
+        try (MultilayeredOutputStream ignored = out)
+        {
+            out.write(text.getBytes());
+        }
+    }
+
+    private String readText(ArchiveInfoContext context, FileInventoryItem item) throws Exception
+    {
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, item))
+        {
+            return IO.readNByteString(ms, (int) item.getActualSize());
+        }
+    }
+
+    private String repeat(String text, int times)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) sb.append(text);
+        return sb.toString();
+    }
+
+    @Test
+    public void testCommit() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+
+        String content = repeat("0123456789", 300);
+        try (ArchiveTransaction tx = new ArchiveTransaction(context, usp))
+        {
+            for (int i = 0; i < 20; i++)
+            {
+                FolderInventoryItem sub = new FolderInventoryItem("sub" + i);
+                tx.getInventory().addFolder(sub);
+                FileInventoryItem file = new FileInventoryItem("file" + i);
+                sub.addFile(file);
+                writeText(tx.openOutputStream(file, Algorithms.Compression.NONE), content + i);
+            }
+            tx.commit();
+            assertFalse(tx.isOpen());
+        }
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertThat(context.getInventory().getFolders().size(), is(equalTo(20)));
+        for (int i = 0; i < 20; i++)
+        {
+            FolderInventoryItem sub = (FolderInventoryItem) context.getInventory().findFolder("sub" + i);
+            assertThat(readText(context, sub.findFile("file" + i)), is(equalTo(content + i)));
+        }
+    }
+
+    @Test
+    public void testRollback() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+
+        String original = repeat("abcdefghij", 100);
+        FileInventoryItem existing = new FileInventoryItem("existing");
+        context.getInventory().addFile(existing);
+        try (MultilayeredOutputStream out = new MultilayeredOutputStream(context, existing))
+        {
+            out.write(original.getBytes());
+        }
+        MetadataWriter.write(context, usp);
+        long lengthBefore = archiveFile.length();
+
+        try (ArchiveTransaction tx = new ArchiveTransaction(context, usp))
+        {
+            FileInventoryItem target = tx.getInventory().findFile("existing");
+            writeText(tx.openOutputStream(target, Algorithms.Compression.NONE), repeat("overwritten", 500));
+            FileInventoryItem other = new FileInventoryItem("other");
+            tx.getInventory().addFile(other);
+            writeText(tx.openOutputStream(other, Algorithms.Compression.NONE), repeat("other", 500));
+            tx.getInventory().addFolder(new FolderInventoryItem("folder"));
+            // closed without a commit
+        }
+
+        assertNull(context.getInventory().findFile("other"));
+        assertNull(context.getInventory().findFolder("folder"));
+        assertThat(readText(context, context.getInventory().findFile("existing")), is(equalTo(original)));
+        assertThat(archiveFile.length(), is(equalTo(lengthBefore)));
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertThat(context.getInventory().getFiles().size(), is(equalTo(1)));
+        assertThat(readText(context, context.getInventory().findFile("existing")), is(equalTo(original)));
+    }
+
+    @Test
+    public void testRewriteReusesTransactionBlocks() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+
+        try (ArchiveTransaction tx = new ArchiveTransaction(context, usp))
+        {
+            FileInventoryItem file = new FileInventoryItem("file");
+            tx.getInventory().addFile(file);
+            writeText(tx.openOutputStream(file, Algorithms.Compression.NONE), repeat("first", 1000));
+            int firstBlock = file.getBlocks().getMin();
+            writeText(tx.openOutputStream(file, Algorithms.Compression.NONE), repeat("second", 1000));
+            assertThat(file.getBlocks().getMin(), is(equalTo(firstBlock)));
+            tx.commit();
+
+            try
+            {
+                tx.openOutputStream(file, Algorithms.Compression.NONE);
+                fail("Transaction should be closed");
+            }
+            catch (IllegalStateException ignored) {}
+        }
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertTrue(readText(context, context.getInventory().findFile("file")).startsWith("second"));
+    }
+
+    @Test
+    public void testImportDirectoryRollback() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+
+        String original = repeat("abcdefghij", 100);
+        FileInventoryItem existing = new FileInventoryItem("existing");
+        context.getInventory().addFile(existing);
+        try (MultilayeredOutputStream out = new MultilayeredOutputStream(context, existing))
+        {
+            out.write(original.getBytes());
+        }
+        MetadataWriter.write(context, usp);
+
+        File sourceDirectory = folder.newFolder();
+        for (String name : new String[] {"existing", "extra"})
+        {
+            try (FileOutputStream fos = new FileOutputStream(new File(sourceDirectory, name)))
+            {
+                fos.write(repeat(name, 500).getBytes());
+            }
+        }
+
+        try (ArchiveTransaction tx = new ArchiveTransaction(context, usp))
+        {
+            ImportDirectoryOp op = new ImportDirectoryOp(context, sourceDirectory, tx.getInventory());
+            op.setTransaction(tx);
+            op.setThreads(2);
+            op.run();
+            FileInventoryItem overwritten = tx.getInventory().findFile("existing");
+            assertThat(readText(context, overwritten), is(equalTo(repeat("existing", 500))));
+            tx.rollback();
+        }
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertNull(context.getInventory().findFile("extra"));
+        assertThat(readText(context, context.getInventory().findFile("existing")), is(equalTo(original)));
+    }
+}
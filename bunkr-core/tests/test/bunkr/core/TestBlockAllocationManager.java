@@ -113,4 +113,72 @@ public class TestBlockAllocationManager
         assertTrue(bam.getCurrentAllocation().equals(r));
 
     }
+
+    private Inventory fakeHoleyInventory()
+    {
+        // free extents: 0-9 (10 blocks) and 18-19 (2 blocks)
+        ArrayList<FileInventoryItem> files = new ArrayList<>();
+        FileInventoryItem file = new FileInventoryItem("something");
+        file.setBlocks(new FragmentedRange(10, 8));
+        files.add(file);
+        file = new FileInventoryItem("something else");
+        file.setBlocks(new FragmentedRange(20, 10));
+        files.add(file);
+        return new Inventory(files, new ArrayList<>(), Encryption.NONE);
+    }
+
+    @Test
+    public void testAllocateRun()
+    {
+        BlockAllocationManager bam = new BlockAllocationManager(fakeHoleyInventory(), new FragmentedRange());
+
+        // best fit picks the small hole
+        assertTrue(bam.allocateRun(2).equals(new FragmentedRange(18, 2)));
+        assertTrue(bam.allocateRun(4).equals(new FragmentedRange(0, 4)));
+        // too big for any hole so it goes on the end
+        assertTrue(bam.allocateRun(7).equals(new FragmentedRange(30, 7)));
+        assertThat(bam.getTotalBlocks(), is(equalTo(37)));
+        assertTrue(bam.allocateRun(6).equals(new FragmentedRange(4, 6)));
+        assertThat(bam.getNextAllocatableBlockId(), is(equalTo(37)));
+
+        FragmentedRange r = new FragmentedRange();
+        r.add(0, 10);
+        r.add(18, 2);
+        r.add(30, 7);
+        assertTrue(bam.getCurrentAllocation().equals(r));
+
+        bam.clearAllocation();
+        assertThat(bam.getFreeExtents().getFreeBlockCount(), is(equalTo(19L)));
+        assertThat(bam.getNextAllocatableBlockId(), is(equalTo(0)));
+
+        try
+        {
+            bam.allocateRun(0);
+            fail("Can allocate empty run");
+        }
+        catch(IllegalArgumentException ignored) {}
+    }
+
+    @Test
+    public void testReserve()
+    {
+        BlockAllocationManager bam = new BlockAllocationManager(fakeHoleyInventory(), new FragmentedRange());
+
+        bam.reserve(2);
+        assertThat(bam.allocateNextBlock(), is(equalTo(18)));
+        assertThat(bam.allocateNextBlock(), is(equalTo(19)));
+        // reservation used up, back to the lowest free block
+        assertThat(bam.allocateNextBlock(), is(equalTo(0)));
+
+        bam.clearAllocation();
+        bam.reserve(12);
+        for (int i = 30; i < 35; i++) assertThat(bam.allocateNextBlock(), is(equalTo(i)));
+        assertThat(bam.getTotalBlocks(), is(equalTo(35)));
+        assertTrue(bam.getCurrentAllocation().equals(new FragmentedRange(30, 5)));
+
+        // the unused part of the reservation is never marked as allocated
+        bam.clearAllocation();
+        assertThat(bam.getNextAllocatableBlockId(), is(equalTo(0)));
+        assertThat(bam.getFreeExtents().getFreeBlockCount(), is(equalTo(17L)));
+    }
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bunkr.core.ArchiveBuilder;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.BlockCache;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.descriptor.PlaintextDescriptor;
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.operations.WipeBlocksOp;
+import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.number.OrderingComparison.greaterThan;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestBlockCache
+{
+    @Rule
+    public final XTemporaryFolder folder = new XTemporaryFolder();
+
+    @Test
+    public void testLRU()
+    {
+        BlockCache cache = new BlockCache(4, 12);
+        byte[] out = new byte[4];
+        cache.put(1, new byte[] {1, 1, 1, 1}, 0);
+        cache.put(2, new byte[] {2, 2, 2, 2}, 0);
+        cache.put(3, new byte[] {3, 3, 3, 3}, 0);
+        assertThat(cache.get(1, out, 0), is(true));
+        cache.put(4, new byte[] {4, 4, 4, 4}, 0);
+
+        assertThat(cache.getCachedBlockCount(), is(equalTo(3)));
+        assertThat(cache.get(2, out, 0), is(false));
+        assertThat(cache.get(1, out, 0), is(true));
+        assertThat(out, is(equalTo(new byte[] {1, 1, 1, 1})));
+        assertThat(cache.getHits(), is(equalTo(2L)));
+        assertThat(cache.getMisses(), is(equalTo(1L)));
+
+        byte[] run = new byte[12];
+        assertThat(cache.getRun(3, 3, run, 0), is(equalTo(2)));
+        assertThat(run, is(equalTo(new byte[] {3, 3, 3, 3, 4, 4, 4, 4, 0, 0, 0, 0})));
+
+        cache.invalidate(3);
+        assertThat(cache.get(3, out, 0), is(false));
+
+        cache.setCapacity(4);
+        assertThat(cache.getCachedBlockCount(), is(equalTo(1)));
+        cache.setCapacity(0);
+        cache.put(9, new byte[] {9, 9, 9, 9}, 0);
+        assertThat(cache.getCachedBlockCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testStalePut()
+    {
+        BlockCache cache = new BlockCache(4, 16);
+        byte[] out = new byte[4];
+
+        // a block rewritten between the disk read and the put must not be cached
+        long generation = cache.getGeneration();
+        cache.invalidate(5);
+        assertThat(cache.putRun(5, 2, new byte[] {5, 5, 5, 5, 6, 6, 6, 6}, 0, generation), is(false));
+        assertThat(cache.get(5, out, 0), is(false));
+
+        generation = cache.getGeneration();
+        assertThat(cache.putRun(5, 2, new byte[] {5, 5, 5, 5, 6, 6, 6, 6}, 0, generation), is(true));
+        assertThat(cache.get(6, out, 0), is(true));
+        assertThat(out, is(equalTo(new byte[] {6, 6, 6, 6})));
+    }
+
+    @Test
+    public void testInvalidatedByWrites() throws Exception
+    {
+        PasswordProvider prov = new PasswordProvider();
+        UserSecurityProvider usp = new UserSecurityProvider(prov);
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(
+                folder.newPrefixedFile("plain"), new PlaintextDescriptor(), usp
+        );
+
+        FileInventoryItem file = new FileInventoryItem("a.bin");
+        context.getInventory().addFile(file);
+        byte[] first = RandomMaker.get(8 * 10000);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, file))
+        {
+            bwos.write(first);
+        }
+        MetadataWriter.write(context, usp);
+
+        BlockCache cache = context.getBlockCache();
+
+        // readers only go through the cache when they are given it
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, file))
+        {
+            assertThat(IO.readNBytes(ms, first.length), is(equalTo(first)));
+        }
+        assertThat(cache.getCachedBlockCount(), is(equalTo(0)));
+
+        for (int i = 0; i < 2; i++)
+        {
+            try (MultilayeredInputStream ms = new MultilayeredInputStream(context, file, 0, null, cache))
+            {
+                assertThat(IO.readNBytes(ms, first.length), is(equalTo(first)));
+            }
+        }
+        assertThat(cache.getHits(), is(greaterThan(0L)));
+
+        // rewriting the file reuses its blocks, so the cached copies must be dropped
+        byte[] second = RandomMaker.get(8 * 10000);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, file))
+        {
+            bwos.write(second);
+        }
+        MetadataWriter.write(context, usp);
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, file, 0, null, cache))
+        {
+            assertThat(IO.readNBytes(ms, second.length), is(equalTo(second)));
+        }
+
+        FragmentedRange wiped = file.getBlocks().copy();
+        new WipeBlocksOp(context, wiped, false).run();
+        byte[] block = new byte[context.getBlockSize()];
+        assertThat(cache.get(wiped.iterate().next(), block, 0), is(false));
+    }
+}
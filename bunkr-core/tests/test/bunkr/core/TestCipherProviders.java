@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bunkr.core.crypto.BouncyCastleCipherProvider;
+import org.bunkr.core.crypto.CipherProviders;
+import org.bunkr.core.crypto.JCECipherProvider;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestCipherProviders
+{
+    private byte[] encrypt(SkippingStreamCipher cipher, byte[] key, byte[] iv, byte[] plaintext, long start)
+    {
+        cipher.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        cipher.seekTo(start);
+        byte[] out = new byte[plaintext.length];
+        // uneven pieces to cover the partial counter blocks
+        int off = 0;
+        for (int step = 1; off < plaintext.length; step = step * 3 + 1)
+        {
+            int n = Math.min(step, plaintext.length - off);
+            if (n == 1) out[off] = cipher.returnByte(plaintext[off]);
+            else cipher.processBytes(plaintext, off, n, out, off);
+            off += n;
+        }
+        return out;
+    }
+
+    private void crossCheck(Encryption alg)
+    {
+        JCECipherProvider jce = new JCECipherProvider();
+        Assume.assumeTrue(jce.supports(alg));
+
+        byte[] key = RandomMaker.get(alg.keyByteLength * 8);
+        byte[] iv = RandomMaker.get(128);
+        Arrays.fill(iv, 13, 16, (byte) 0xFF);
+        byte[] plaintext = RandomMaker.get(8 * 50000);
+
+        SICBlockCipher reference = new SICBlockCipher(new AESEngine());
+        reference.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        byte[] expected = new byte[plaintext.length];
+        reference.processBytes(plaintext, 0, plaintext.length, expected, 0);
+
+        byte[] fromJCE = encrypt(jce.buildCipher(alg), key, iv, plaintext, 0);
+        byte[] fromBC = encrypt(new BouncyCastleCipherProvider().buildCipher(alg), key, iv, plaintext, 0);
+        assertThat(fromJCE, is(equalTo(expected)));
+        assertThat(fromBC, is(equalTo(expected)));
+
+        // starting part way through a counter block
+        byte[] tail = Arrays.copyOfRange(plaintext, 4099, plaintext.length);
+        assertThat(
+                encrypt(jce.buildCipher(alg), key, iv, tail, 4099),
+                is(equalTo(Arrays.copyOfRange(expected, 4099, expected.length)))
+        );
+    }
+
+    @Test
+    public void testAES128CrossCheck()
+    {
+        crossCheck(Encryption.AES128_CTR);
+    }
+
+    @Test
+    public void testAES256CrossCheck()
+    {
+        crossCheck(Encryption.AES256_CTR);
+    }
+
+    @Test
+    public void testProviderSelection()
+    {
+        assertFalse(new JCECipherProvider().supports(Encryption.TWOFISH256_CTR));
+        assertTrue(new BouncyCastleCipherProvider().supports(Encryption.TWOFISH256_CTR));
+        assertThat(CipherProviders.forAlgorithm(Encryption.TWOFISH256_CTR).getName(), is(equalTo("BouncyCastle")));
+        assertFalse(new BouncyCastleCipherProvider().supports(Encryption.NONE));
+        if (new JCECipherProvider().supports(Encryption.AES128_CTR))
+            assertThat(CipherProviders.forAlgorithm(Encryption.AES128_CTR).getName(), is(equalTo("JCE")));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bunkr.core.FreeExtentIndex;
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.junit.Test;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestFreeExtentIndex
+{
+    @Test
+    public void testCoalescing()
+    {
+        FreeExtentIndex index = new FreeExtentIndex();
+        index.add(0, 4);
+        index.add(10, 2);
+        index.add(6, 2);
+        assertThat(index.getExtentCount(), is(equalTo(3)));
+
+        index.add(4, 2);
+        assertThat(index.getExtentCount(), is(equalTo(2)));
+        assertThat(index.getLengthAt(0), is(equalTo(8)));
+
+        index.add(8, 2);
+        assertThat(index.getExtentCount(), is(equalTo(1)));
+        assertThat(index.getLengthAt(0), is(equalTo(12)));
+        assertThat(index.getFreeBlockCount(), is(equalTo(12L)));
+
+        try
+        {
+            index.add(11, 3);
+            fail("Can free a free block");
+        }
+        catch(IllegalArgumentException ignored) {}
+    }
+
+    @Test
+    public void testRemoveSplits()
+    {
+        FreeExtentIndex index = new FreeExtentIndex(new FragmentedRange(5, 10));
+        index.remove(8, 2);
+        assertThat(index.getLengthAt(5), is(equalTo(3)));
+        assertThat(index.getLengthAt(10), is(equalTo(5)));
+        assertFalse(index.contains(8));
+        assertFalse(index.contains(9));
+        assertTrue(index.contains(10));
+        assertThat(index.getLowest(), is(equalTo(5)));
+
+        try
+        {
+            index.remove(6, 3);
+            fail("Can use a block that is not free");
+        }
+        catch(IllegalArgumentException ignored) {}
+    }
+
+    @Test
+    public void testBestFit()
+    {
+        FragmentedRange free = new FragmentedRange(0, 8);
+        free.add(10, 3);
+        free.add(20, 3);
+        free.add(30, 16);
+        FreeExtentIndex index = new FreeExtentIndex(free);
+
+        assertThat(index.findBestFit(1), is(equalTo(10)));
+        assertThat(index.findBestFit(4), is(equalTo(0)));
+        assertThat(index.findBestFit(9), is(equalTo(30)));
+        assertThat(index.findBestFit(17), is(equalTo(-1)));
+        assertThat(index.getLongestLength(), is(equalTo(16)));
+        assertThat(index.countExtents(2, 8), is(equalTo(3)));
+        assertThat(index.countExtents(16, Integer.MAX_VALUE), is(equalTo(1)));
+    }
+}
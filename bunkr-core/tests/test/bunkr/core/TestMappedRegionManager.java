@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bunkr.core.MappedRegionManager;
+import org.bunkr.core.MetadataWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestMappedRegionManager
+{
+    private static final long DATABLOCKS_START = MetadataWriter.DBL_DATA_POS + Long.BYTES;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File buildFake(int dataLength) throws IOException
+    {
+        File f = folder.newFile();
+        try (FileOutputStream fos = new FileOutputStream(f))
+        {
+            fos.write(new byte[(int) DATABLOCKS_START + dataLength]);
+        }
+        return f;
+    }
+
+    @Test
+    public void testWriteAcrossWindows() throws IOException
+    {
+        File f = buildFake(16 * 10);
+        byte[] data = new byte[16 * 5];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+
+        try (MappedRegionManager m = new MappedRegionManager(f, 48, 2))
+        {
+            m.writeBlocks(2, 16, data, 0, data.length);
+            assertThat(m.getMappedWindowCount(), is(equalTo(2)));
+
+            byte[] readBack = new byte[data.length];
+            m.readBlocks(2, 16, readBack, 0, readBack.length);
+            assertThat(readBack, is(equalTo(data)));
+
+            m.unmapAll();
+            assertThat(m.getMappedWindowCount(), is(equalTo(0)));
+        }
+
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(f)))
+        {
+            dis.skipBytes((int) DATABLOCKS_START + 32);
+            byte[] onDisk = new byte[data.length];
+            dis.readFully(onDisk);
+            assertThat(onDisk, is(equalTo(data)));
+        }
+    }
+
+    @Test
+    public void testMappingDoesNotGrowFile() throws IOException
+    {
+        File f = buildFake(16 * 4);
+        try (MappedRegionManager m = new MappedRegionManager(f, 1024, 4))
+        {
+            m.writeBlocks(1, 16, new byte[16], 0, 16);
+        }
+        assertThat(f.length(), is(equalTo(DATABLOCKS_START + 16 * 4)));
+
+        try (MappedRegionManager m = new MappedRegionManager(f, 1024, 4))
+        {
+            m.writeBlocks(5, 16, new byte[16], 0, 16);
+        }
+        assertThat(f.length(), is(equalTo(DATABLOCKS_START + 16 * 6)));
+    }
+
+    @Test
+    public void testWindowsAreEvicted() throws IOException
+    {
+        File f = buildFake(16 * 10);
+        try (MappedRegionManager m = new MappedRegionManager(f, 16, 3))
+        {
+            for (int i = 0; i < 10; i++) m.writeBlocks(i, 16, new byte[16], 0, 16);
+            assertThat(m.getMappedWindowCount(), is(equalTo(3)));
+        }
+    }
+
+    @Test
+    public void testBlockDataLength() throws IOException
+    {
+        File f = buildFake(0);
+        try (MappedRegionManager m = new MappedRegionManager(f))
+        {
+            m.writeBlockDataLength(12345L);
+        }
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(f)))
+        {
+            dis.skipBytes((int) MetadataWriter.DBL_DATA_POS);
+            assertThat(dis.readLong(), is(equalTo(12345L)));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bunkr.core.ArchiveBuilder;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.Version;
+import org.bunkr.core.descriptor.PBKDF2Descriptor;
+import org.bunkr.core.descriptor.PlaintextDescriptor;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestMetadataJournal
+{
+    @Rule
+    public final XTemporaryFolder folder = new XTemporaryFolder();
+
+    private void runChanges(File archiveFile, UserSecurityProvider usp) throws Exception
+    {
+        ArchiveInfoContext context = new ArchiveInfoContext(archiveFile, usp);
+        FolderInventoryItem docs = new FolderInventoryItem("docs");
+        FolderInventoryItem old = new FolderInventoryItem("old");
+        context.getInventory().addFolder(docs);
+        context.getInventory().addFolder(old);
+        FileInventoryItem readme = new FileInventoryItem("readme");
+        docs.addFile(readme);
+        old.addFile(new FileInventoryItem("stale"));
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(1)));
+
+        // rename, move, change and remove
+        docs.setName("documents");
+        docs.removeFile(readme);
+        context.getInventory().addFile(readme);
+        readme.setModifiedAt(1234L);
+        FolderInventoryItem nested = new FolderInventoryItem("nested");
+        docs.addFolder(nested);
+        nested.addFile(new FileInventoryItem("deep"));
+        context.getInventory().removeFolder(old);
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(2)));
+
+        // nothing changed so nothing is appended
+        long length = archiveFile.length();
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(2)));
+        assertThat(archiveFile.length(), is(equalTo(length)));
+    }
+
+    private void checkChanges(File archiveFile, UserSecurityProvider usp) throws Exception
+    {
+        ArchiveInfoContext context = new ArchiveInfoContext(archiveFile, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(2)));
+        assertNull(context.getInventory().findFolder("docs"));
+        assertNull(context.getInventory().findFolder("old"));
+        FolderInventoryItem docs = (FolderInventoryItem) context.getInventory().findFolder("documents");
+        assertThat(docs.getFiles().size(), is(equalTo(0)));
+        FolderInventoryItem nested = (FolderInventoryItem) docs.findFolder("nested");
+        assertNotNull(nested.findFile("deep"));
+        assertThat(context.getInventory().findFile("readme").getModifiedAt(), is(equalTo(1234L)));
+        assertThat(nested.findFile("deep").getAbsolutePath(), is(equalTo("/documents/nested/deep")));
+    }
+
+    @Test
+    public void testReplayPlaintext() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        runChanges(archiveFile, usp);
+        checkChanges(archiveFile, usp);
+    }
+
+    @Test
+    public void testReplayEncrypted() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        PasswordProvider prov = new PasswordProvider();
+        prov.setArchivePassword("HunterTwo".getBytes());
+        UserSecurityProvider usp = new UserSecurityProvider(prov);
+        ArchiveBuilder.createNewEmptyArchive(
+                archiveFile, PBKDF2Descriptor.make(Encryption.AES256_CTR, 4096), usp
+        );
+        runChanges(archiveFile, usp);
+        checkChanges(archiveFile, usp);
+
+        String raw = new String(Files.readAllBytes(archiveFile.toPath()), "ISO-8859-1");
+        assertFalse(raw.contains("documents"));
+    }
+
+    @Test
+    public void testDeepTree() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        ArchiveInfoContext context = new ArchiveInfoContext(archiveFile, usp);
+        FolderInventoryItem current = new FolderInventoryItem("0");
+        context.getInventory().addFolder(current);
+        for (int i = 1; i < 20000; i++)
+        {
+            FolderInventoryItem next = new FolderInventoryItem(Integer.toString(i));
+            current.addFolder(next);
+            current = next;
+        }
+        MetadataWriter.write(context, usp);
+        current.addFile(new FileInventoryItem("bottom"));
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(2)));
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        FolderInventoryItem walk = context.getInventory().getFolders().get(0);
+        int depth = 1;
+        while (! walk.getFolders().isEmpty())
+        {
+            walk = walk.getFolders().get(0);
+            depth++;
+        }
+        assertThat(depth, is(equalTo(20000)));
+        assertNotNull(walk.findFile("bottom"));
+    }
+
+    @Test
+    public void testCheckpointAfterMaxRecords() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        context.getJournal().setMaxRecords(2);
+
+        for (int i = 0; i < 3; i++)
+        {
+            context.getInventory().addFolder(new FolderInventoryItem("f" + i));
+            MetadataWriter.write(context, usp);
+        }
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(0)));
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertThat(context.getInventory().getFolders().size(), is(equalTo(3)));
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testCheckpointAfterDataGrows() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        context.getInventory().addFolder(new FolderInventoryItem("folder"));
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(1)));
+
+        FileInventoryItem file = new FileInventoryItem("file");
+        context.getInventory().addFile(file);
+        try (MultilayeredOutputStream out = new MultilayeredOutputStream(context, file))
+        {
+            out.write(RandomMaker.get(5000 * 8));
+        }
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(0)));
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertNotNull(context.getInventory().findFolder("folder"));
+        assertThat(context.getInventory().findFile("file").getActualSize(), is(equalTo(5000L)));
+    }
+
+    @Test
+    public void testTornRecordIgnored() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        context.getInventory().addFolder(new FolderInventoryItem("kept"));
+        MetadataWriter.write(context, usp);
+
+        try (FileOutputStream fos = new FileOutputStream(archiveFile, true))
+        {
+            fos.write(new byte[] {0, 0, 0, 100, 1, 2, 3, 4, 5, 6});
+        }
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertNotNull(context.getInventory().findFolder("kept"));
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(1)));
+
+        // the torn record is overwritten by the next one
+        context.getInventory().addFolder(new FolderInventoryItem("next"));
+        MetadataWriter.write(context, usp);
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertNotNull(context.getInventory().findFolder("next"));
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(2)));
+    }
+
+    @Test
+    public void testOversizedRecordIgnored() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        context.getInventory().addFolder(new FolderInventoryItem("kept"));
+        MetadataWriter.write(context, usp);
+
+        // a length far past the end of the file must not be allocated
+        try (FileOutputStream fos = new FileOutputStream(archiveFile, true))
+        {
+            fos.write(new byte[] {0x7f, -1, -1, -1, 1, 2, 3, 4, 5, 6});
+        }
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        assertNotNull(context.getInventory().findFolder("kept"));
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testFieldChangesAppended() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        FileInventoryItem file = new FileInventoryItem("file");
+        context.getInventory().addFile(file);
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(1)));
+
+        file.setMediaType("image");
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(2)));
+
+        file.setFrames(1024, new int[] {10, 20});
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(3)));
+
+        context = new ArchiveInfoContext(archiveFile, usp);
+        FileInventoryItem read = context.getInventory().findFile("file");
+        assertThat(read.getMediaType(), is(equalTo("image")));
+        assertThat(read.getFrameLengths(), is(equalTo(new int[] {10, 20})));
+    }
+
+    @Test
+    public void testAppendStampsFeaturesVersion() throws Exception
+    {
+        File archiveFile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(archiveFile, new PlaintextDescriptor(), usp);
+        byte[] header = new byte[ArchiveBuilder.FORMAT_SIG.length + 3];
+        try (FileInputStream fis = new FileInputStream(archiveFile))
+        {
+            IO.reliableRead(fis, header);
+        }
+        assertThat(header[header.length - 2], is(equalTo(Version.versionMinor)));
+
+        context.getInventory().addFolder(new FolderInventoryItem("kept"));
+        MetadataWriter.write(context, usp);
+        assertThat(context.getJournal().getRecordCount(), is(equalTo(1)));
+        try (FileInputStream fis = new FileInputStream(archiveFile))
+        {
+            IO.reliableRead(fis, header);
+        }
+        assertThat(header[header.length - 3], is(equalTo(Version.featuresVersionMajor)));
+        assertThat(header[header.length - 2], is(equalTo(Version.featuresVersionMinor)));
+        assertThat(header[header.length - 1], is(equalTo(Version.featuresVersionBugfix)));
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bouncycastle.crypto.SkippingStreamCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.TwofishEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bunkr.core.crypto.ParallelCTRCipher;
+import org.bunkr.core.crypto.SeekableCTRCipher;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestParallelCTRCipher
+{
+    @Test
+    public void testMatchesSerialCipher()
+    {
+        byte[] key = RandomMaker.get(256);
+        // an iv close to overflowing its low bytes so that the counter carries part way through
+        byte[] iv = RandomMaker.get(128);
+        Arrays.fill(iv, 12, 16, (byte) 0xFF);
+        byte[] plaintext = RandomMaker.get(8 * (5 * 4096 + 77));
+
+        SICBlockCipher reference = new SICBlockCipher(new AESEngine());
+        reference.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        byte[] expected = new byte[plaintext.length];
+        reference.processBytes(plaintext, 0, plaintext.length, expected, 0);
+
+        Supplier<SkippingStreamCipher> aes = () -> new SeekableCTRCipher(new AESEngine());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            ParallelCTRCipher parallel = new ParallelCTRCipher(aes, pool, 1000);
+            parallel.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+            byte[] actual = new byte[plaintext.length];
+            // mix of small serial writes, a single byte and large parallel ones starting at odd offsets
+            int off = 0;
+            int[] steps = {7, 1, 5000, 33, 9000, 16};
+            for (int i = 0; off < plaintext.length; i++)
+            {
+                int n = Math.min(steps[i % steps.length], plaintext.length - off);
+                if (n == 1) actual[off] = parallel.returnByte(plaintext[off]);
+                else parallel.processBytes(plaintext, off, n, actual, off);
+                off += n;
+            }
+            assertThat(parallel.getPosition(), is(equalTo((long) plaintext.length)));
+            assertThat(actual, is(equalTo(expected)));
+
+            // decrypt from the middle
+            ParallelCTRCipher decrypter = new ParallelCTRCipher(aes, pool, 1000);
+            decrypter.init(false, new ParametersWithIV(new KeyParameter(key), iv));
+            decrypter.seekTo(1234);
+            byte[] decrypted = new byte[plaintext.length - 1234];
+            decrypter.processBytes(expected, 1234, decrypted.length, decrypted, 0);
+            assertThat(decrypted, is(equalTo(Arrays.copyOfRange(plaintext, 1234, plaintext.length))));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTwofish()
+    {
+        byte[] key = RandomMaker.get(256);
+        byte[] iv = RandomMaker.get(128);
+        byte[] plaintext = RandomMaker.get(8 * 100000);
+
+        SICBlockCipher reference = new SICBlockCipher(new TwofishEngine());
+        reference.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        byte[] expected = new byte[plaintext.length];
+        reference.processBytes(plaintext, 0, plaintext.length, expected, 0);
+
+        ParallelCTRCipher parallel = new ParallelCTRCipher(
+                () -> new SeekableCTRCipher(new TwofishEngine()), ForkJoinPool.commonPool()
+        );
+        parallel.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        byte[] actual = new byte[plaintext.length];
+        parallel.processBytes(plaintext, 0, plaintext.length, actual, 0);
+        assertThat(actual, is(equalTo(expected)));
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bunkr.core.crypto.ParallelSCrypt;
+import org.bunkr.core.descriptor.ScryptDescriptor;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.utils.RandomMaker;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestParallelSCrypt
+{
+    @Test
+    public void testMatchesSerialSCrypt()
+    {
+        byte[] password = RandomMaker.get(256);
+        byte[] salt = RandomMaker.get(128);
+        int[][] params = {{16, 1, 1}, {16, 1, 3}, {64, 8, 1}, {64, 8, 5}, {1024, 2, 16}};
+        for (int[] nrp : params)
+        {
+            byte[] expected = SCrypt.generate(password, salt, nrp[0], nrp[1], nrp[2], 48);
+            byte[] actual = ParallelSCrypt.generate(password, salt, nrp[0], nrp[1], nrp[2], 48,
+                                                    ForkJoinPool.commonPool());
+            assertThat(actual, is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void testSingleThreadedPool()
+    {
+        byte[] password = RandomMaker.get(256);
+        byte[] salt = RandomMaker.get(128);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try
+        {
+            byte[] expected = SCrypt.generate(password, salt, 32, 4, 7, 32);
+            assertThat(ParallelSCrypt.generate(password, salt, 32, 4, 7, 32, pool), is(equalTo(expected)));
+            assertThat(ParallelSCrypt.generate(password, salt, 32, 4, 7, 32, ForkJoinPool.commonPool(), 2),
+                       is(equalTo(expected)));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBadParameters()
+    {
+        try
+        {
+            ParallelSCrypt.generate(new byte[1], new byte[1], 48, 8, 1, 32, ForkJoinPool.commonPool());
+            fail("N must be a power of 2");
+        }
+        catch (IllegalArgumentException ignored) {}
+        try
+        {
+            ParallelSCrypt.generate(new byte[1], new byte[1], 64, 8, 0, 32, ForkJoinPool.commonPool());
+            fail("p must be at least 1");
+        }
+        catch (IllegalArgumentException ignored) {}
+    }
+
+    @Test
+    public void testCalibrate()
+    {
+        long budget = ScryptDescriptor.calculateMemoryUsage(ScryptDescriptor.MINIMUM_SCRYPT_N * 2);
+        ScryptDescriptor d = (ScryptDescriptor) ScryptDescriptor.calibrate(Encryption.AES256_CTR, 50, budget);
+        assertTrue(d.scryptN >= ScryptDescriptor.MINIMUM_SCRYPT_N);
+        assertTrue(d.scryptN <= ScryptDescriptor.MINIMUM_SCRYPT_N * 2);
+        assertTrue(d.scryptP >= 1);
+        assertThat(d.scryptR, is(equalTo(ScryptDescriptor.DEFAULT_SCRYPT_R)));
+        // all of the lanes that run at once fit the budget
+        assertTrue(d.scryptLanes >= 1);
+        assertTrue(d.scryptLanes == 1 || d.scryptLanes * 128L * d.scryptR * d.scryptN <= budget);
+
+        ScryptDescriptor loaded = new ScryptDescriptor((JSONObject) JSONValue.parse(d.getParams().toJSONString()));
+        assertThat(loaded.scryptLanes, is(equalTo(d.scryptLanes)));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.TwofishEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bunkr.core.crypto.SeekableCTRCipher;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestSeekableCTRCipher
+{
+    private void checkAgainstStream(boolean twofish, byte[] iv)
+    {
+        byte[] key = RandomMaker.get(256);
+        int length = 20000;
+        SICBlockCipher stream = new SICBlockCipher(twofish ? new TwofishEngine() : new AESEngine());
+        stream.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        byte[] keystream = new byte[length];
+        stream.processBytes(new byte[length], 0, length, keystream, 0);
+
+        SeekableCTRCipher seekable = new SeekableCTRCipher(twofish ? new TwofishEngine() : new AESEngine());
+        seekable.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        Random r = new Random(7);
+        for (int i = 0; i < 50; i++)
+        {
+            int position = r.nextInt(length - 100);
+            int n = 1 + r.nextInt(99);
+            seekable.seekTo(position);
+            byte[] out = new byte[n];
+            seekable.processBytes(new byte[n], 0, n, out, 0);
+            assertThat(out, is(equalTo(Arrays.copyOfRange(keystream, position, position + n))));
+            assertThat(seekable.getPosition(), is(equalTo((long) position + n)));
+        }
+    }
+
+    @Test
+    public void testRandomIV()
+    {
+        checkAgainstStream(false, RandomMaker.get(128));
+        checkAgainstStream(true, RandomMaker.get(128));
+    }
+
+    @Test
+    public void testCounterCarry()
+    {
+        byte[] iv = RandomMaker.get(128);
+        Arrays.fill(iv, 4, 16, (byte) 0xFF);
+        checkAgainstStream(false, iv);
+
+        Arrays.fill(iv, (byte) 0xFF);
+        checkAgainstStream(true, iv);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core;
+
+import org.bunkr.core.IBlockAllocationManager;
+import org.bunkr.core.SharedBlockAllocator;
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestSharedBlockAllocator
+{
+    private Inventory fakeInventory()
+    {
+        ArrayList<FileInventoryItem> files = new ArrayList<>();
+        FileInventoryItem file = new FileInventoryItem("something");
+        file.setBlocks(new FragmentedRange(10, 8));
+        files.add(file);
+        return new Inventory(files, new ArrayList<>(), Encryption.NONE);
+    }
+
+    @Test
+    public void testFilesGetSeparateRuns()
+    {
+        SharedBlockAllocator sba = new SharedBlockAllocator(fakeInventory(), 4);
+        IBlockAllocationManager a = sba.forFile(new FragmentedRange());
+        IBlockAllocationManager b = sba.forFile(new FragmentedRange());
+
+        for (int i = 0; i < 6; i++)
+        {
+            a.allocateBlock(a.getNextAllocatableBlockId());
+            b.allocateBlock(b.getNextAllocatableBlockId());
+        }
+
+        assertThat(a.getCurrentAllocation().size(), is(equalTo(6)));
+        assertThat(b.getCurrentAllocation().size(), is(equalTo(6)));
+
+        // no block is shared, and the gap before the existing file is used before the end of the archive
+        FragmentedRange both = a.getCurrentAllocation().copy();
+        both.union(b.getCurrentAllocation());
+        assertThat(both.size(), is(equalTo(12)));
+        assertTrue(both.contains(0) && both.contains(7));
+    }
+
+    @Test
+    public void testReleaseReturnsUnusedBlocks()
+    {
+        SharedBlockAllocator sba = new SharedBlockAllocator(fakeInventory(), 4);
+        assertThat(sba.getFreeBlockCount(), is(equalTo(10L)));
+
+        IBlockAllocationManager a = sba.forFile(new FragmentedRange());
+        a.reserve(6);
+        a.allocateBlock(a.getNextAllocatableBlockId());
+        assertThat(sba.getFreeBlockCount(), is(equalTo(4L)));
+        a.releaseReservation();
+        assertThat(sba.getFreeBlockCount(), is(equalTo(9L)));
+
+        a.clearAllocation();
+        assertThat(sba.getFreeBlockCount(), is(equalTo(10L)));
+    }
+
+    @Test
+    public void testTailRunsAreGivenBack()
+    {
+        SharedBlockAllocator sba = new SharedBlockAllocator(fakeInventory(), 4);
+        IBlockAllocationManager a = sba.forFile(new FragmentedRange());
+        a.reserve(20);
+        assertThat(a.getNextAllocatableBlockId(), is(equalTo(18)));
+        assertThat(sba.getTotalBlocks(), is(equalTo(38)));
+        a.allocateBlock(18);
+        a.releaseReservation();
+        assertThat(sba.getTotalBlocks(), is(equalTo(19)));
+    }
+}
@@ -67,4 +67,19 @@ public class TestSimpleBlockCipher
 
         assertThat(p, is(equalTo(d)));
     }
+
+    @Test
+    public void testTrailingZeros() throws CryptoException
+    {
+        byte[] k = RandomMaker.get(256);
+        byte[] iv = RandomMaker.get(128);
+
+        byte[] p = new byte[] {1, 2, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+        byte[] c = SimpleBlockCipher.encrypt(Encryption.AES256_CTR, p, k, iv);
+
+        byte[] d = SimpleBlockCipher.decrypt(Encryption.AES256_CTR, c, k, iv);
+
+        assertThat(p, is(equalTo(d)));
+    }
 }
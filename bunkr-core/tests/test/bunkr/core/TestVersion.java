@@ -77,4 +77,16 @@ public class TestVersion
         }
         catch (IOException ignored) { }
     }
+
+    @Test
+    public void testNewerMinorRefused()
+    {
+        byte major = (byte) Math.max(Version.versionMajor, Version.featuresVersionMajor);
+        byte minor = (byte) Math.max(Version.versionMinor, Version.featuresVersionMinor);
+        assertTrue(Version.isCompatible(
+                Version.featuresVersionMajor, Version.featuresVersionMinor, Version.featuresVersionBugfix, false
+        ));
+        assertFalse(Version.isCompatible(major, (byte) (minor + 1), (byte) 0, false));
+        assertFalse(Version.isCompatible((byte) (major + 1), (byte) 0, (byte) 0, false));
+    }
 }
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.descriptor;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bunkr.core.descriptor.DescriptorBuilder;
+import org.bunkr.core.descriptor.IDescriptor;
+import org.bunkr.core.descriptor.PBKDF2Descriptor;
+import org.bunkr.core.descriptor.ScryptDescriptor;
+import org.bunkr.core.exceptions.BaseBunkrException;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryJSON;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.RandomMaker;
+import org.bunkr.core.utils.SimpleBlockCipher;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestWrappedDataKey
+{
+    private UserSecurityProvider makeUSP(String password) throws Exception
+    {
+        PasswordProvider prov = new PasswordProvider();
+        prov.setArchivePassword(password.getBytes());
+        return new UserSecurityProvider(prov);
+    }
+
+    private Inventory makeInventory()
+    {
+        Inventory inventory = new Inventory(new ArrayList<>(), new ArrayList<>(), Encryption.NONE);
+        inventory.addFolder(new FolderInventoryItem("some folder"));
+        return inventory;
+    }
+
+    private IDescriptor reload(IDescriptor descriptor)
+    {
+        return DescriptorBuilder.fromJSON(DescriptorBuilder.toJSON(descriptor));
+    }
+
+    private void checkRoundTrip(IDescriptor descriptor) throws Exception
+    {
+        UserSecurityProvider usp = makeUSP("HunterTwo");
+        byte[] first = descriptor.writeInventoryToBytes(makeInventory(), usp);
+        JSONObject firstParams = descriptor.getParams();
+        assertTrue(firstParams.containsKey("wrappedKey"));
+
+        // the second save reuses the data key, so the salt and the wrapped key stay the same
+        byte[] second = descriptor.writeInventoryToBytes(makeInventory(), usp);
+        JSONObject secondParams = descriptor.getParams();
+        assertFalse(Arrays.equals(first, second));
+        assertThat(secondParams.get("wrappedKey"), is(equalTo(firstParams.get("wrappedKey"))));
+        assertFalse(secondParams.get("inventoryIV").equals(firstParams.get("inventoryIV")));
+
+        Inventory read = reload(descriptor).readInventoryFromBytes(second, usp);
+        assertThat(read.getFolders().get(0).getName(), is(equalTo("some folder")));
+
+        // reading from a stream stops at the end of the inventory
+        byte[] followed = Arrays.copyOf(second, second.length + 2);
+        followed[second.length] = 7;
+        ByteArrayInputStream source = new ByteArrayInputStream(followed);
+        read = reload(descriptor).readInventoryFromStream(source, second.length, usp);
+        assertThat(read.getFolders().get(0).getName(), is(equalTo("some folder")));
+        assertThat(source.read(), is(equalTo(7)));
+
+        try
+        {
+            reload(descriptor).readInventoryFromBytes(second, makeUSP("not the password"));
+            fail("Should not unwrap with the wrong password");
+        }
+        catch (BaseBunkrException ignored) {}
+    }
+
+    @Test
+    public void testPBKDF2RoundTrip() throws Exception
+    {
+        checkRoundTrip(PBKDF2Descriptor.make(Encryption.AES256_CTR, 4096));
+    }
+
+    @Test
+    public void testScryptRoundTrip() throws Exception
+    {
+        checkRoundTrip(ScryptDescriptor.make(Encryption.TWOFISH256_CTR, ScryptDescriptor.MINIMUM_SCRYPT_N));
+    }
+
+    @Test
+    public void testReadOlderPBKDF2Archive() throws Exception
+    {
+        UserSecurityProvider usp = makeUSP("HunterTwo");
+        byte[] salt = RandomMaker.get(PBKDF2Descriptor.SALT_LENGTH);
+
+        // encrypt the inventory the way it was done before the data key existed
+        PKCS5S2ParametersGenerator g = new PKCS5S2ParametersGenerator(new SHA256Digest());
+        g.init(usp.getHashedPassword(), salt, 4096);
+        ParametersWithIV kp = (ParametersWithIV) g.generateDerivedParameters(128, 128);
+        byte[] legacy = SimpleBlockCipher.encrypt(
+                Encryption.AES128_CTR,
+                InventoryJSON.encode(makeInventory()).getBytes(),
+                ((KeyParameter) kp.getParameters()).getKey(),
+                kp.getIV()
+        );
+
+        IDescriptor descriptor = new PBKDF2Descriptor(Encryption.AES128_CTR, 4096, salt);
+        assertFalse(descriptor.getParams().containsKey("wrappedKey"));
+        Inventory read = descriptor.readInventoryFromBytes(legacy, usp);
+        assertThat(read.getFolders().get(0).getName(), is(equalTo("some folder")));
+
+        // the next save moves the archive over to a wrapped data key
+        byte[] upgraded = descriptor.writeInventoryToBytes(read, usp);
+        assertTrue(descriptor.getParams().containsKey("wrappedKey"));
+        read = reload(descriptor).readInventoryFromBytes(upgraded, usp);
+        assertThat(read.getFolders().get(0).getName(), is(equalTo("some folder")));
+    }
+}
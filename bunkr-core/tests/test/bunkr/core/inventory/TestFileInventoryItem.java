@@ -22,6 +22,7 @@
 
 package test.bunkr.core.inventory;
 
+import org.bunkr.core.inventory.Algorithms;
 import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.FileInventoryItemJSON;
 import org.junit.Test;
@@ -53,6 +54,31 @@ public class TestFileInventoryItem
         assertThat(out.getSizeOnDisk(), is(equalTo(fii.getSizeOnDisk())));
         assertThat(out.getActualSize(), is(equalTo(fii.getActualSize())));
         assertThat(out.getEncryptionData(), is(equalTo(fii.getEncryptionData())));
+        assertThat(out.isFramed(), is(equalTo(false)));
+        assertThat(out.getCompression(), is(equalTo(Algorithms.Compression.DEFLATE)));
+
+        fii.setCompression(Algorithms.Compression.NONE);
+        out = FileInventoryItemJSON.decode(FileInventoryItemJSON.encode(fii));
+        assertThat(out.isCompressed(), is(equalTo(false)));
+    }
+
+    @Test
+    public void testFramesJSON() throws IOException
+    {
+        FileInventoryItem fii = new FileInventoryItem("some file");
+        fii.setFrames(1024, new int[] {100, 200, 57});
+
+        FileInventoryItem out = FileInventoryItemJSON.decode(FileInventoryItemJSON.encode(fii));
+        assertThat(out.isFramed(), is(equalTo(true)));
+        assertThat(out.getFrameSize(), is(equalTo(1024)));
+        assertThat(out.getFrameLengths(), is(equalTo(new int[] {100, 200, 57})));
+
+        try
+        {
+            fii.setFrames(1024, null);
+            fail("frame size without frame lengths");
+        }
+        catch (IllegalArgumentException ignored) {}
     }
 
     @Test
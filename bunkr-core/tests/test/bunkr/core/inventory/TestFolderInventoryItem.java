@@ -28,10 +28,16 @@ import org.bunkr.core.inventory.FolderInventoryItemJSON;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created At: 2015-12-13
@@ -65,4 +71,115 @@ public class TestFolderInventoryItem
         assertThat(outFile1.getActualSize(), is(equalTo(file1.getActualSize())));
         assertThat(outFile1.getEncryptionData(), is(equalTo(file1.getEncryptionData())));
     }
+
+    @Test
+    public void testNameIndex()
+    {
+        FolderInventoryItem folder = new FolderInventoryItem("abc");
+        FileInventoryItem file1 = new FileInventoryItem("one");
+        FileInventoryItem file2 = new FileInventoryItem("two");
+        FolderInventoryItem sub = new FolderInventoryItem("sub");
+        folder.addFile(file1);
+        folder.getFiles().add(file2);
+        folder.addFolder(sub);
+
+        assertThat(folder.findFile("one"), is(sameInstance(file1)));
+        assertThat(folder.findFile("two"), is(sameInstance(file2)));
+        assertThat(file2.getParent(), is(sameInstance(folder)));
+        assertThat(folder.findFileOrFolder("sub"), is(sameInstance(sub)));
+        assertNull(folder.findFolder("one"));
+
+        // renaming an item moves it in the index
+        file1.setName("three");
+        assertNull(folder.findFile("one"));
+        assertThat(folder.findFile("three"), is(sameInstance(file1)));
+        sub.setName("other");
+        assertFalse(folder.hasFolder("sub"));
+        assertTrue(folder.hasFolder("other"));
+
+        folder.removeFile(file1);
+        assertNull(folder.findFile("three"));
+        assertNull(file1.getParent());
+        folder.getFolders().remove(sub);
+        assertFalse(folder.hasFolder("other"));
+
+        // items sharing a name are found in list order as they are removed
+        FileInventoryItem dupe1 = new FileInventoryItem("dupe");
+        FileInventoryItem dupe2 = new FileInventoryItem("dupe");
+        FileInventoryItem dupe3 = new FileInventoryItem("dupe");
+        folder.addFile(dupe1);
+        folder.addFile(dupe2);
+        folder.addFile(dupe3);
+        assertThat(folder.findFile("dupe"), is(sameInstance(dupe1)));
+        folder.removeFile(dupe1);
+        assertThat(folder.findFile("dupe"), is(sameInstance(dupe2)));
+        dupe2.setName("unique");
+        assertThat(folder.findFile("dupe"), is(sameInstance(dupe3)));
+        assertThat(folder.findFile("unique"), is(sameInstance(dupe2)));
+        folder.getFiles().removeIf(f -> f.getName().equals("dupe"));
+        assertFalse(folder.hasFile("dupe"));
+
+        folder.getFiles().clear();
+        assertNull(folder.findFile("two"));
+        assertNull(file2.getParent());
+    }
+
+    @Test
+    public void testBulkRemove()
+    {
+        FolderInventoryItem folder = new FolderInventoryItem("big");
+        List<FileInventoryItem> files = new ArrayList<>();
+        for (int i = 0; i < 100000; i++)
+        {
+            FileInventoryItem file = new FileInventoryItem("file" + i);
+            files.add(file);
+            folder.addFile(file);
+        }
+
+        // every other file, front to back, which used to shift the list each time
+        for (int i = 0; i < files.size(); i += 2) folder.removeFile(files.get(i));
+        assertThat(folder.getFiles().size(), is(equalTo(50000)));
+        assertThat(folder.getFiles().get(0), is(sameInstance(files.get(1))));
+        assertThat(folder.getFiles().indexOf(files.get(99999)), is(equalTo(49999)));
+        assertFalse(folder.getFiles().contains(files.get(0)));
+        assertNull(files.get(0).getParent());
+        assertNull(folder.findFile("file0"));
+        assertThat(folder.findFile("file1"), is(sameInstance(files.get(1))));
+
+        folder.addFile(files.get(0));
+        assertThat(folder.getFiles().get(50000), is(sameInstance(files.get(0))));
+    }
+
+    @Test
+    public void testSharedNameRemove()
+    {
+        FolderInventoryItem folder = new FolderInventoryItem("f");
+        FileInventoryItem a = new FileInventoryItem("same");
+        FileInventoryItem b = new FileInventoryItem("same");
+        FileInventoryItem c = new FileInventoryItem("same");
+        folder.addFile(a);
+        folder.addFile(b);
+        folder.addFile(c);
+
+        folder.removeFile(b);
+        assertThat(folder.findFile("same"), is(sameInstance(a)));
+        folder.removeFile(a);
+        assertThat(folder.findFile("same"), is(sameInstance(c)));
+        folder.removeFile(c);
+        assertNull(folder.findFile("same"));
+    }
+
+    @Test
+    public void testSort()
+    {
+        FolderInventoryItem folder = new FolderInventoryItem("f");
+        FileInventoryItem b = new FileInventoryItem("b");
+        FileInventoryItem a = new FileInventoryItem("a");
+        folder.addFile(b);
+        folder.addFile(a);
+        folder.getFiles().sort((x, y) -> x.getName().compareTo(y.getName()));
+        assertThat(folder.getFiles().get(0), is(sameInstance(a)));
+        assertThat(folder.getFiles().indexOf(b), is(equalTo(1)));
+        assertThat(folder.findFile("b"), is(sameInstance(b)));
+    }
 }
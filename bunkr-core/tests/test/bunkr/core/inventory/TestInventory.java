@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.inventory;
+
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryBinary;
+import org.bunkr.core.inventory.InventoryJSON;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestInventory
+{
+    @Test
+    public void testUuidIndex()
+    {
+        FileInventoryItem topFile = new FileInventoryItem("top");
+        Inventory inv = new Inventory(
+                new ArrayList<>(Collections.singletonList(topFile)), new ArrayList<>(), Encryption.NONE
+        );
+        assertThat(inv.findByUuid(topFile.getUuid()), is(sameInstance(topFile)));
+
+        // a subtree built before it is attached is indexed when it is added
+        FolderInventoryItem outer = new FolderInventoryItem("outer");
+        FolderInventoryItem inner = new FolderInventoryItem("inner");
+        FileInventoryItem deepFile = new FileInventoryItem("deep");
+        inner.addFile(deepFile);
+        outer.addFolder(inner);
+        assertNull(inv.findByUuid(deepFile.getUuid()));
+        inv.addFolder(outer);
+        assertThat(inv.findByUuid(outer.getUuid()), is(sameInstance(outer)));
+        assertThat(inv.findByUuid(inner.getUuid()), is(sameInstance(inner)));
+        assertThat(inv.findByUuid(deepFile.getUuid()), is(sameInstance(deepFile)));
+
+        // items added below an attached folder are indexed straight away
+        FileInventoryItem lateFile = new FileInventoryItem("late");
+        inner.addFile(lateFile);
+        assertThat(inv.findByUuid(lateFile.getUuid()), is(sameInstance(lateFile)));
+
+        // moving a folder keeps its subtree indexed, whichever order the add and remove are done in
+        FolderInventoryItem other = new FolderInventoryItem("other");
+        inv.addFolder(other);
+        other.addFolder(inner);
+        outer.removeFolder(inner);
+        assertThat(inner.getParent(), is(sameInstance(other)));
+        assertThat(inv.findByUuid(deepFile.getUuid()), is(sameInstance(deepFile)));
+
+        // removing a folder drops its subtree
+        inv.removeFolder(other);
+        assertNull(inv.findByUuid(inner.getUuid()));
+        assertNull(inv.findByUuid(lateFile.getUuid()));
+        inner.addFile(new FileInventoryItem("detached"));
+        assertThat(inv.findByUuid(outer.getUuid()), is(sameInstance(outer)));
+
+        inv.getFolders().clear();
+        assertNull(inv.findByUuid(outer.getUuid()));
+        assertThat(inv.findByUuid(topFile.getUuid()), is(sameInstance(topFile)));
+    }
+
+    @Test
+    public void testUuidIndexAfterDecode()
+    {
+        Inventory inv = new Inventory(new ArrayList<>(), new ArrayList<>(), Encryption.AES256_CTR);
+        FolderInventoryItem folder = new FolderInventoryItem("folder");
+        FolderInventoryItem sub = new FolderInventoryItem("sub");
+        FileInventoryItem file = new FileInventoryItem("file");
+        inv.addFolder(folder);
+        folder.addFolder(sub);
+        sub.addFile(file);
+
+        Inventory fromBinary = InventoryBinary.decode(InventoryBinary.encode(inv));
+        assertThat(fromBinary.findByUuid(file.getUuid()).getAbsolutePath(), is(equalTo("/folder/sub/file")));
+        assertThat(fromBinary.findByUuid(sub.getUuid()).getName(), is(equalTo("sub")));
+
+        Inventory fromJSON = InventoryJSON.decode(InventoryJSON.encode(inv));
+        assertThat(fromJSON.findByUuid(file.getUuid()).getAbsolutePath(), is(equalTo("/folder/sub/file")));
+    }
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.inventory;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.Algorithms.Compression;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.inventory.FolderInventoryItem;
+import org.bunkr.core.inventory.Inventory;
+import org.bunkr.core.inventory.InventoryBinary;
+import org.bunkr.core.inventory.InventoryJSON;
+import org.bunkr.core.inventory.MediaType;
+import org.bunkr.core.streams.input.BoundedInputStream;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestInventoryBinary
+{
+    private Inventory makeInventory()
+    {
+        Inventory inv = new Inventory(new ArrayList<>(), new ArrayList<>(), Encryption.TWOFISH256_CTR);
+
+        FileInventoryItem plain = new FileInventoryItem("plain.txt");
+        plain.setMediaType(MediaType.TEXT);
+        plain.setCompression(Compression.NONE);
+        plain.setSizeOnDisk(1024);
+        plain.setActualSize(1000);
+        plain.setBlocks(new FragmentedRange(0, 1));
+        inv.addFile(plain);
+
+        FolderInventoryItem outer = new FolderInventoryItem("outer");
+        FolderInventoryItem inner = new FolderInventoryItem("inner \u00e9\u00e8");
+        FolderInventoryItem empty = new FolderInventoryItem("empty");
+        inv.addFolder(outer);
+        outer.addFolder(inner);
+        outer.addFolder(empty);
+
+        FileInventoryItem framed = new FileInventoryItem("framed.bin");
+        framed.setEncryptionAlgorithm(Encryption.AES256_CTR);
+        framed.setEncryptionData(RandomMaker.get(8 * 48));
+        framed.setIntegrityHash(RandomMaker.get(256));
+        FragmentedRange blocks = new FragmentedRange(5, 3);
+        blocks.add(100000, 7);
+        blocks.add(Integer.MAX_VALUE - 2, 2);
+        framed.setBlocks(blocks);
+        framed.setSizeOnDisk(12 * 1024);
+        framed.setActualSize(70000);
+        framed.setFrames(65536, new int[] {4000, 17});
+        inner.addFile(framed);
+
+        FileInventoryItem unknownType = new FileInventoryItem("odd");
+        unknownType.setMediaType("not/a-real-type");
+        unknownType.setModifiedAt(0);
+        outer.addFile(unknownType);
+        return inv;
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        Inventory inv = makeInventory();
+        byte[] encoded = InventoryBinary.encode(inv);
+        assertTrue(InventoryBinary.isBinary(encoded));
+        Inventory decoded = InventoryBinary.decode(encoded);
+
+        // unsupported media types are converted just like InventoryJSON does on decode
+        inv.getFolders().get(0).getFiles().get(0).setMediaType(MediaType.UNKNOWN);
+        assertThat(InventoryJSON.encode(decoded), is(equalTo(InventoryJSON.encode(inv))));
+        assertThat(decoded.getDefaultEncryption(), is(equalTo(Encryption.TWOFISH256_CTR)));
+
+        FileInventoryItem framed = decoded.getFolders().get(0).getFolders().get(0).getFiles().get(0);
+        assertThat(framed.getFrameLengths(), is(equalTo(new int[] {4000, 17})));
+        assertThat(framed.getBlocks().toString(), is(equalTo(
+                inv.getFolders().get(0).getFolders().get(0).getFiles().get(0).getBlocks().toString()
+        )));
+        assertThat(framed.getParent(), is(equalTo(decoded.getFolders().get(0).getFolders().get(0))));
+        assertThat(InventoryBinary.encode(decoded), is(equalTo(encoded)));
+    }
+
+    @Test
+    public void testConversion()
+    {
+        Inventory inv = makeInventory();
+        inv.getFolders().get(0).getFiles().get(0).setMediaType(MediaType.UNKNOWN);
+        String json = InventoryJSON.encode(inv);
+
+        Inventory fromJSON = InventoryBinary.decodeAnyFormat(json.getBytes(StandardCharsets.UTF_8));
+        byte[] binary = InventoryBinary.encode(fromJSON);
+        assertThat(InventoryJSON.encode(InventoryBinary.decodeAnyFormat(binary)), is(equalTo(json)));
+        assertFalse(InventoryBinary.isBinary(json.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(binary.length < json.length());
+    }
+
+    @Test
+    public void testStreamDecode() throws IOException
+    {
+        Inventory inv = makeInventory();
+        inv.getFolders().get(0).getFiles().get(0).setMediaType(MediaType.UNKNOWN);
+        String json = InventoryJSON.encode(inv);
+        byte[] binary = InventoryBinary.encode(inv);
+
+        for (byte[] encoded : Arrays.asList(binary, json.getBytes(StandardCharsets.UTF_8)))
+        {
+            byte[] followed = Arrays.copyOf(encoded, encoded.length + 100);
+            ByteArrayInputStream source = new ByteArrayInputStream(followed);
+            BoundedInputStream section = new BoundedInputStream(source, encoded.length);
+            Inventory decoded = InventoryBinary.decodeAnyFormat(section);
+            section.drain();
+            assertThat(InventoryJSON.encode(decoded), is(equalTo(json)));
+            assertThat(source.available(), is(equalTo(100)));
+        }
+
+        try
+        {
+            InventoryBinary.decode(new ByteArrayInputStream(Arrays.copyOf(binary, binary.length / 2)));
+            fail("truncated inventory should not decode");
+        }
+        catch (EOFException ignored) {}
+    }
+
+    @Test
+    public void testCorrupt()
+    {
+        byte[] encoded = InventoryBinary.encode(makeInventory());
+        try
+        {
+            InventoryBinary.decode(Arrays.copyOf(encoded, encoded.length - 3));
+            fail("truncated inventory should not decode");
+        }
+        catch (IllegalArgumentException ignored) {}
+        try
+        {
+            InventoryBinary.decode(Arrays.copyOf(encoded, encoded.length + 1));
+            fail("trailing data should not decode");
+        }
+        catch (IllegalArgumentException ignored) {}
+
+        byte[] badVersion = encoded.clone();
+        badVersion[InventoryBinary.MAGIC.length] = 9;
+        try
+        {
+            InventoryBinary.decode(badVersion);
+            fail("unknown version should not decode");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertThat(e.getMessage(), is(equalTo("Unsupported binary inventory version 9")));
+        }
+    }
+
+    @Test
+    public void testParallel()
+    {
+        Inventory inv = new Inventory(new ArrayList<>(), new ArrayList<>(), Encryption.AES256_CTR);
+        for (int i = 0; i < 8; i++)
+        {
+            FolderInventoryItem outer = new FolderInventoryItem("outer" + i);
+            inv.addFolder(outer);
+            for (int j = 0; j < 8; j++)
+            {
+                FolderInventoryItem inner = new FolderInventoryItem("inner" + j);
+                outer.addFolder(inner);
+                for (int k = 0; k < 100; k++)
+                {
+                    FileInventoryItem file = new FileInventoryItem("file" + k);
+                    file.setBlocks(new FragmentedRange(k * 10, 3));
+                    file.setSizeOnDisk(k * 1000);
+                    inner.addFile(file);
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        byte[] serial = InventoryBinary.encode(inv);
+        byte[] parallel = InventoryBinary.encode(inv, pool);
+        assertTrue(Arrays.equals(parallel, serial));
+
+        Inventory decoded = InventoryBinary.decode(serial, pool);
+        assertThat(InventoryJSON.encode(decoded), is(equalTo(InventoryJSON.encode(inv))));
+
+        // a folder longer than its contents is caught by the task decoding it
+        byte[] corrupt = InventoryBinary.encode(inv);
+        int lengthPos = Collections.indexOfSubList(
+                bytesList(corrupt), bytesList("outer0".getBytes(StandardCharsets.UTF_8))) + 6 + 16;
+        corrupt[lengthPos + 3]--;
+        try
+        {
+            InventoryBinary.decode(corrupt, pool);
+            fail("corrupt subtree should not decode");
+        }
+        catch (IllegalArgumentException ignored) {}
+    }
+
+    @Test
+    public void testDeepTree() throws IOException
+    {
+        Inventory inv = new Inventory(new ArrayList<>(), new ArrayList<>(), Encryption.AES256_CTR);
+        FolderInventoryItem current = new FolderInventoryItem("0");
+        inv.addFolder(current);
+        for (int i = 1; i < 20000; i++)
+        {
+            FolderInventoryItem next = new FolderInventoryItem(Integer.toString(i));
+            current.addFolder(next);
+            current = next;
+        }
+        current.addFile(new FileInventoryItem("bottom"));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        byte[] encoded = InventoryBinary.encode(inv, pool);
+        assertTrue(Arrays.equals(encoded, InventoryBinary.encode(inv)));
+
+        Inventory decoded = InventoryBinary.decode(new ByteArrayInputStream(encoded), pool);
+        FolderInventoryItem walk = decoded.getFolders().get(0);
+        int depth = 1;
+        while (! walk.getFolders().isEmpty())
+        {
+            walk = walk.getFolders().get(0);
+            depth++;
+        }
+        assertThat(depth, is(equalTo(20000)));
+        assertThat(walk.getName(), is(equalTo("19999")));
+        assertThat(walk.getFiles().get(0).getName(), is(equalTo("bottom")));
+    }
+
+    private static List<Byte> bytesList(byte[] input)
+    {
+        List<Byte> output = new ArrayList<>(input.length);
+        for (byte b : input) output.add(b);
+        return output;
+    }
+
+    @Test
+    public void testVarLong() throws IOException
+    {
+        long[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        for (long v : values) IO.writeVarLong(dos, v);
+        assertThat(bos.toByteArray()[0], is(equalTo((byte) 0)));
+
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        for (long v : values) assertThat(IO.readVarLong(dis), is(equalTo(v)));
+        assertThat(dis.available(), is(equalTo(0)));
+    }
+}
@@ -24,6 +24,7 @@ package test.bunkr.core.scenarios;
 
 import org.bunkr.core.ArchiveBuilder;
 import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.inventory.Algorithms;
 import org.bunkr.core.inventory.Algorithms.Encryption;
 import org.bunkr.core.usersec.UserSecurityProvider;
 import org.bunkr.core.descriptor.PBKDF2Descriptor;
@@ -39,7 +40,9 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.concurrent.ForkJoinPool;
 
+import static junit.framework.TestCase.fail;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -94,6 +97,17 @@ public class TestReadScenarios
             }
         }
 
+        try(MultilayeredInputStream ms = new MultilayeredInputStream(context, fileOne, 2))
+        {
+            byte[] buffer = new byte[1500];
+            assertThat(IO.reliableRead(ms, buffer), is(equalTo(1500)));
+            for (int i = 0; i < 1500; i++)
+            {
+                assertThat((int)buffer[i], is(equalTo(65 + i % 10)));
+            }
+            assertThat(ms.read(), is(equalTo(-1)));
+        }
+
         try(MultilayeredInputStream ms = new MultilayeredInputStream(context, fileTwo))
         {
             byte[] buffer = new byte[50];
@@ -108,6 +122,43 @@ public class TestReadScenarios
         {
             assertThat(ms.read(), is(equalTo(-1)));
         }
+
+        FileInventoryItem fileFour = new FileInventoryItem("d.txt");
+        int fileFourLength = 3 * 1024 * 1024 + 17;
+        {
+            context.getInventory().addFile(fileFour);
+            try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(
+                    context, fileFour, Algorithms.Compression.DEFLATE, 2, ForkJoinPool.commonPool()
+            ))
+            {
+                byte[] buffer = new byte[fileFourLength];
+                for (int i = 0; i < fileFourLength; i++) buffer[i] = (byte) (i % 251);
+                bwos.write(buffer);
+            }
+            MetadataWriter.write(context, uic);
+        }
+
+        try(MultilayeredInputStream ms = new MultilayeredInputStream(context, fileFour))
+        {
+            byte[] buffer = new byte[fileFourLength];
+            assertThat(IO.reliableRead(ms, buffer), is(equalTo(fileFourLength)));
+            for (int i = 0; i < fileFourLength; i++)
+            {
+                if (buffer[i] != (byte) (i % 251)) fail("Mismatch at byte " + i);
+            }
+            assertThat(ms.read(), is(equalTo(-1)));
+        }
+
+        try(MultilayeredInputStream ms = new MultilayeredInputStream(context, fileFour, 2, ForkJoinPool.commonPool()))
+        {
+            byte[] buffer = new byte[fileFourLength];
+            assertThat(IO.reliableRead(ms, buffer), is(equalTo(fileFourLength)));
+            for (int i = 0; i < fileFourLength; i++)
+            {
+                if (buffer[i] != (byte) (i % 251)) fail("Mismatch at byte " + i);
+            }
+            assertThat(ms.read(), is(equalTo(-1)));
+        }
     }
 
     @Test
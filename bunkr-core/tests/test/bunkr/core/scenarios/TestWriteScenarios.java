@@ -228,7 +228,7 @@ public class TestWriteScenarios
 
         FileInventoryItem newFile = new FileInventoryItem("some file.txt");
         folder1.addFile(newFile);
-        MetadataWriter.write(context, usp);
+        MetadataWriter.checkpoint(context, usp);
 
         try(DataInputStream dis = new DataInputStream(new FileInputStream(tempfile)))
         {
@@ -333,4 +333,43 @@ public class TestWriteScenarios
 
         assertThat(readDataLength(context.filePath, usp), is(equalTo(2 * 4096L + 2048L)));
     }
+
+    @Test
+    public void testMultiFrameFileStampsVersion() throws Exception
+    {
+        File tempfile = folder.newFile();
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(tempfile, new PlaintextDescriptor(), usp);
+
+        // a single frame is still one deflate stream, so it leaves the version alone
+        FileInventoryItem small = new FileInventoryItem("small");
+        context.getInventory().addFile(small);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, small))
+        {
+            bwos.write(new byte[1000]);
+        }
+        MetadataWriter.checkpoint(context, usp);
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(tempfile)))
+        {
+            IO.readNByteString(dis, 5);
+            assertEquals(dis.read(), Version.versionMajor);
+            assertEquals(dis.read(), Version.versionMinor);
+            assertEquals(dis.read(), Version.versionBugfix);
+        }
+
+        FileInventoryItem large = new FileInventoryItem("large");
+        context.getInventory().addFile(large);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, large))
+        {
+            bwos.write(new byte[3 * 1024 * 1024]);
+        }
+        MetadataWriter.checkpoint(context, usp);
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(tempfile)))
+        {
+            IO.readNByteString(dis, 5);
+            assertEquals(dis.read(), Version.featuresVersionMajor);
+            assertEquals(dis.read(), Version.featuresVersionMinor);
+            assertEquals(dis.read(), Version.featuresVersionBugfix);
+        }
+    }
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.ArchiveBuilder;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.BlockAllocationManager;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.descriptor.PBKDF2Descriptor;
+import org.bunkr.core.descriptor.PlaintextDescriptor;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.streams.input.AsyncMultilayeredReader;
+import org.bunkr.core.streams.output.BlockWriterOutputStream;
+import org.bunkr.core.streams.output.FramedDeflaterOutputStream;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import test.bunkr.core.XTemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestAsyncMultilayeredReader
+{
+    @Rule
+    public final XTemporaryFolder folder = new XTemporaryFolder();
+
+    private byte[] makeContent(int length)
+    {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) content[i] = (byte) ((i * 17 + i / 13) % 253);
+        return content;
+    }
+
+    private byte[] readAll(AsyncMultilayeredReader reader) throws Exception
+    {
+        List<CompletableFuture<ByteBuffer>> chunks = new ArrayList<>();
+        for (int i = 0; i < reader.getChunkCount(); i++) chunks.add(reader.readChunk(i));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++)
+        {
+            assertThat(reader.getChunkPosition(i), is(equalTo((long) output.size())));
+            ByteBuffer chunk = chunks.get(i).get();
+            output.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testFramed() throws Exception
+    {
+        PasswordProvider prov = new PasswordProvider();
+        prov.setArchivePassword("HunterTwo".getBytes());
+        UserSecurityProvider usp = new UserSecurityProvider(prov);
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(
+                folder.newPrefixedFile("withencrypt"), PBKDF2Descriptor.make(Encryption.AES128_CTR, 10000), usp
+        );
+        context.getInventory().setDefaultEncryption(Encryption.AES256_CTR);
+
+        byte[] content = makeContent(FramedDeflaterOutputStream.DEFAULT_FRAME_SIZE * 2 + 4321);
+        FileInventoryItem file = new FileInventoryItem("a.bin");
+        context.getInventory().addFile(file);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, file))
+        {
+            bwos.write(content);
+        }
+        MetadataWriter.write(context, usp);
+
+        FileInventoryItem empty = new FileInventoryItem("b.bin");
+        context.getInventory().addFile(empty);
+        MetadataWriter.write(context, usp);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (AsyncMultilayeredReader reader = new AsyncMultilayeredReader(context, file, executor))
+        {
+            assertThat(reader.getChunkCount(), is(equalTo(3)));
+            assertThat(readAll(reader), is(equalTo(content)));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        try (AsyncMultilayeredReader reader = new AsyncMultilayeredReader(context, empty))
+        {
+            assertThat(reader.getChunkCount(), is(equalTo(0)));
+        }
+    }
+
+    @Test
+    public void testUnframed() throws Exception
+    {
+        UserSecurityProvider usp = new UserSecurityProvider(new PasswordProvider());
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(
+                folder.newPrefixedFile("plain"), new PlaintextDescriptor(), usp
+        );
+
+        byte[] content = makeContent(AsyncMultilayeredReader.UNFRAMED_CHUNK_SIZE * 2 + 1234);
+        FileInventoryItem file = new FileInventoryItem("legacy.bin");
+        context.getInventory().addFile(file);
+        file.setEncryptionAlgorithm(Encryption.NONE);
+        try (OutputStream os = new DeflaterOutputStream(new BlockWriterOutputStream(
+                context.getMappedRegions(), context.getBlockSize(), file,
+                new BlockAllocationManager(context.getInventory(), file.getBlocks())
+        ), new Deflater(Deflater.BEST_SPEED)))
+        {
+            os.write(content);
+        }
+        file.setActualSize(content.length);
+        MetadataWriter.write(context, usp);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (AsyncMultilayeredReader reader = new AsyncMultilayeredReader(context, file, executor))
+        {
+            assertTrue(reader.isSequential());
+            assertThat(reader.getChunkCount(), is(equalTo(3)));
+            assertThat(readAll(reader), is(equalTo(content)));
+
+            // going back to an earlier chunk inflates the file again from the start
+            ByteBuffer chunk = reader.readChunk(1).get();
+            assertThat(chunk.remaining(), is(equalTo(AsyncMultilayeredReader.UNFRAMED_CHUNK_SIZE)));
+            assertThat(chunk.get(0), is(equalTo(content[AsyncMultilayeredReader.UNFRAMED_CHUNK_SIZE])));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        try (AsyncMultilayeredReader reader = new AsyncMultilayeredReader(context, file))
+        {
+            assertThat(readAll(reader), is(equalTo(content)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.streams.input.BlockExtentReader;
+import org.bunkr.core.streams.input.BlockReaderInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestBlockExtentReader
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File buildFake(int numBlocks, int blockSize) throws IOException
+    {
+        File f = folder.newFile();
+        try(DataOutputStream dos = new DataOutputStream(new FileOutputStream(f)))
+        {
+            dos.write(new byte[(int) BlockReaderInputStream.DATABLOCKS_START]);
+            for (int i = 0; i < numBlocks; i++)
+            {
+                for (int j = 0; j < blockSize; j++) dos.write(i);
+            }
+        }
+        return f;
+    }
+
+    @Test
+    public void testReadsStopAtExtentBoundaries() throws IOException
+    {
+        File f = buildFake(10, 16);
+        FragmentedRange blocks = new FragmentedRange(1, 3);
+        blocks.add(6, 2);
+
+        byte[] buffer = new byte[16 * 8];
+        try (BlockExtentReader reader = new BlockExtentReader(f, 16, blocks))
+        {
+            assertTrue(reader.hasRemaining());
+            assertThat(reader.read(buffer, 0, buffer.length), is(equalTo(16 * 3)));
+            assertThat((int) buffer[0], is(equalTo(1)));
+            assertThat((int) buffer[16 * 3 - 1], is(equalTo(3)));
+
+            assertThat(reader.read(buffer, 0, buffer.length), is(equalTo(16 * 2)));
+            assertThat((int) buffer[0], is(equalTo(6)));
+            assertThat((int) buffer[16 * 2 - 1], is(equalTo(7)));
+
+            assertFalse(reader.hasRemaining());
+            assertThat(reader.read(buffer, 0, buffer.length), is(equalTo(-1)));
+        }
+    }
+
+    @Test
+    public void testLongExtentIsSplitByBuffer() throws IOException
+    {
+        File f = buildFake(10, 16);
+        byte[] buffer = new byte[16 * 4 + 5];
+        try (BlockExtentReader reader = new BlockExtentReader(f, 16, new FragmentedRange(0, 10)))
+        {
+            assertThat(reader.read(buffer, 0, buffer.length), is(equalTo(16 * 4)));
+            assertThat(reader.read(buffer, 5, buffer.length - 5), is(equalTo(16 * 4)));
+            assertThat((int) buffer[5], is(equalTo(4)));
+            assertThat(reader.read(buffer, 0, buffer.length), is(equalTo(16 * 2)));
+            assertThat((int) buffer[16], is(equalTo(9)));
+            assertThat(reader.read(buffer, 0, buffer.length), is(equalTo(-1)));
+        }
+    }
+}
@@ -97,6 +97,33 @@ public class TestBlockReaderInputStream
         assertTrue(bis.doesHashMatch());
     }
 
+    @Test
+    public void testFragmentedReading() throws IOException
+    {
+        File f = folder.newFile();
+        try(DataOutputStream dos = new DataOutputStream(new FileOutputStream(f)))
+        {
+            dos.write(RandomMaker.get((int) BlockReaderInputStream.DATABLOCKS_START * 8));
+            dos.write(content.substring(0, 64).getBytes());
+            dos.write(badSuffixPad.getBytes());
+            dos.write(badSuffixPad.getBytes());
+            dos.write("zz".getBytes());
+            dos.write((content.substring(64) + suffixPad).getBytes());
+        }
+
+        FileInventoryItem fakeFile = new FileInventoryItem("fake");
+        fakeFile.setSizeOnDisk(32 * 4 + 17);
+        FragmentedRange blocks = new FragmentedRange(0, 2);
+        blocks.add(3, 3);
+        fakeFile.setBlocks(blocks);
+        fakeFile.setIntegrityHash(this.hashUp((content + suffixPad).getBytes()));
+        BlockReaderInputStream bis = new BlockReaderInputStream(f, 32, fakeFile);
+        String all = IO.readNByteString(bis, 32 * 4 + 17);
+        assertThat(all, is(equalTo(content)));
+        assertTrue(bis.doesHashMatch());
+        bis.close();
+    }
+
     @Test
     public void testReadingBadHash() throws IOException
     {
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.IBlockAllocationManager;
+import org.bunkr.core.fragmented_range.FragmentedRange;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.streams.input.BlockReaderInputStream;
+import org.bunkr.core.streams.output.BlockWriterOutputStream;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestBlockWriterOutputStream
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Hands out block ids in runs of 3 with a gap of 2 after each run.
+     */
+    private static class GappyAllocationManager implements IBlockAllocationManager
+    {
+        private FragmentedRange allocation = new FragmentedRange();
+        private int next = 0;
+        private int highest = 0;
+
+        @Override
+        public FragmentedRange getCurrentAllocation()
+        {
+            return allocation;
+        }
+
+        @Override
+        public void clearAllocation()
+        {
+            allocation = new FragmentedRange();
+        }
+
+        @Override
+        public int getTotalBlocks()
+        {
+            return highest;
+        }
+
+        @Override
+        public int getNextAllocatableBlockId()
+        {
+            return next;
+        }
+
+        @Override
+        public int allocateBlock(int blockId)
+        {
+            allocation.add(blockId);
+            highest = Math.max(highest, blockId + 1);
+            next = (blockId % 5 == 2) ? blockId + 3 : blockId + 1;
+            return blockId;
+        }
+    }
+
+    @Test
+    public void testFragmentedWriting() throws IOException
+    {
+        this.writeFragmented(-1);
+    }
+
+    @Test
+    public void testReserveTooSmall() throws IOException
+    {
+        // the staging buffer starts at 3 blocks and has to grow to its full size
+        this.writeFragmented(3 * 1024);
+    }
+
+    private void writeFragmented(long reserveBytes) throws IOException
+    {
+        File f = folder.newFile();
+        try(DataOutputStream dos = new DataOutputStream(new FileOutputStream(f)))
+        {
+            dos.write(new byte[(int) BlockReaderInputStream.DATABLOCKS_START]);
+        }
+
+        // more than one staging buffer worth of blocks, ending in a partial block
+        int blockSize = 1024;
+        byte[] content = RandomMaker.get((BlockWriterOutputStream.DEFAULT_STAGING_SIZE * 2 + 3 * blockSize + 100) * 8);
+        FileInventoryItem file = new FileInventoryItem("fake");
+        GappyAllocationManager allocator = new GappyAllocationManager();
+        try (BlockWriterOutputStream bwos = new BlockWriterOutputStream(f, blockSize, file, allocator))
+        {
+            if (reserveBytes >= 0) bwos.reserve(reserveBytes);
+            bwos.write(content, 0, 77);
+            bwos.write(content, 77, content.length - 77);
+        }
+
+        int expectedBlocks = (content.length + blockSize - 1) / blockSize;
+        assertThat(file.getBlocks().size(), is(equalTo(expectedBlocks)));
+        assertThat(file.getSizeOnDisk(), is(equalTo((long) content.length)));
+        assertThat(f.length(), is(equalTo(BlockReaderInputStream.DATABLOCKS_START + ((long) allocator.getTotalBlocks()) * blockSize)));
+
+        try (BlockReaderInputStream bris = new BlockReaderInputStream(f, blockSize, file))
+        {
+            byte[] output = new byte[content.length];
+            assertThat(IO.reliableRead(bris, output), is(equalTo(content.length)));
+            assertThat(output, is(equalTo(content)));
+            assertTrue(bris.doesHashMatch());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.streams.input.FramedInflaterInputStream;
+import org.bunkr.core.streams.output.FramedDeflaterOutputStream;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestFramedDeflaterOutputStream
+{
+    private byte[] makeContent()
+    {
+        // half random, half repetitive so that frames compress to different lengths
+        byte[] content = new byte[10 * 1000 + 123];
+        byte[] noise = RandomMaker.get(content.length * 4);
+        System.arraycopy(noise, 0, content, 0, content.length / 2);
+        for (int i = content.length / 2; i < content.length; i++) content[i] = (byte) (i % 13);
+        return content;
+    }
+
+    @Test
+    public void testParallelMatchesSerial() throws IOException
+    {
+        byte[] content = makeContent();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            ByteArrayOutputStream serialOut = new ByteArrayOutputStream();
+            FramedDeflaterOutputStream serial = new FramedDeflaterOutputStream(serialOut, 1000, Deflater.BEST_SPEED);
+            serial.write(content);
+            serial.close();
+
+            ByteArrayOutputStream parallelOut = new ByteArrayOutputStream();
+            FramedDeflaterOutputStream parallel = new FramedDeflaterOutputStream(
+                    parallelOut, 1000, Deflater.BEST_SPEED, pool, 3
+            );
+            parallel.write(content);
+            parallel.close();
+
+            assertThat(parallelOut.toByteArray(), is(equalTo(serialOut.toByteArray())));
+            assertThat(parallel.getFrameLengths(), is(equalTo(serial.getFrameLengths())));
+            assertThat(parallel.getFrameLengths().length, is(equalTo(11)));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelRoundTrip() throws IOException
+    {
+        byte[] content = makeContent();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FramedDeflaterOutputStream fdos = new FramedDeflaterOutputStream(out, 1000, Deflater.BEST_SPEED, pool, 3);
+            fdos.write(content, 0, 17);
+            fdos.write(content[17]);
+            fdos.write(content, 18, content.length - 18);
+            fdos.close();
+
+            FramedInflaterInputStream fiis = new FramedInflaterInputStream(
+                    new ByteArrayInputStream(out.toByteArray()), 1000, fdos.getFrameLengths(), pool, 2
+            );
+            byte[] output = new byte[content.length];
+            assertThat(fiis.read(), is(equalTo(content[0] & 0xFF)));
+            assertThat(fiis.skip(99), is(equalTo(99L)));
+            assertThat(IO.reliableRead(fiis, output, 100, content.length - 100), is(equalTo(content.length - 100)));
+            System.arraycopy(content, 0, output, 0, 100);
+            assertThat(output, is(equalTo(content)));
+            assertThat(fiis.read(), is(equalTo(-1)));
+            fiis.close();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReserveDoesNotChangeFrames() throws IOException
+    {
+        byte[] content = makeContent();
+        ByteArrayOutputStream plainOut = new ByteArrayOutputStream();
+        FramedDeflaterOutputStream plain = new FramedDeflaterOutputStream(plainOut, 1000, Deflater.BEST_SPEED);
+        plain.write(content);
+        plain.close();
+
+        // a hint that is too small, the frame buffer has to grow to the frame size
+        ByteArrayOutputStream smallOut = new ByteArrayOutputStream();
+        FramedDeflaterOutputStream small = new FramedDeflaterOutputStream(smallOut, 1000, Deflater.BEST_SPEED);
+        small.reserve(10);
+        small.write(content[0]);
+        small.write(content, 1, content.length - 1);
+        small.close();
+
+        assertThat(smallOut.toByteArray(), is(equalTo(plainOut.toByteArray())));
+        assertThat(small.getFrameLengths(), is(equalTo(plain.getFrameLengths())));
+    }
+}
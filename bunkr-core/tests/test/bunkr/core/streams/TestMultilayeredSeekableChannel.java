@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.ArchiveBuilder;
+import org.bunkr.core.ArchiveInfoContext;
+import org.bunkr.core.BlockAllocationManager;
+import org.bunkr.core.MetadataWriter;
+import org.bunkr.core.descriptor.PBKDF2Descriptor;
+import org.bunkr.core.descriptor.PlaintextDescriptor;
+import org.bunkr.core.inventory.Algorithms.Compression;
+import org.bunkr.core.inventory.Algorithms.Encryption;
+import org.bunkr.core.inventory.FileInventoryItem;
+import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.input.MultilayeredSeekableChannel;
+import org.bunkr.core.streams.output.BlockWriterOutputStream;
+import org.bunkr.core.streams.output.FramedDeflaterOutputStream;
+import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.usersec.PasswordProvider;
+import org.bunkr.core.usersec.UserSecurityProvider;
+import org.bunkr.core.utils.IO;
+import org.junit.Rule;
+import org.junit.Test;
+import test.bunkr.core.XTemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestMultilayeredSeekableChannel
+{
+    @Rule
+    public final XTemporaryFolder folder = new XTemporaryFolder();
+
+    private byte[] makeContent(int length)
+    {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) content[i] = (byte) ((i * 31 + i / 7) % 251);
+        return content;
+    }
+
+    private UserSecurityProvider makeUSP() throws Exception
+    {
+        PasswordProvider prov = new PasswordProvider();
+        prov.setArchivePassword("HunterTwo".getBytes());
+        return new UserSecurityProvider(prov);
+    }
+
+    private void checkRandomReads(ArchiveInfoContext context, FileInventoryItem file, byte[] content) throws Exception
+    {
+        Random r = new Random(42);
+        try (MultilayeredSeekableChannel channel = new MultilayeredSeekableChannel(context, file))
+        {
+            assertThat(channel.size(), is(equalTo((long) content.length)));
+            for (int i = 0; i < 40; i++)
+            {
+                int position = r.nextInt(content.length);
+                int length = Math.min(content.length - position, 1 + r.nextInt(300000));
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                channel.position(position);
+                while (buffer.hasRemaining()) channel.read(buffer);
+                assertThat(channel.position(), is(equalTo((long) position + length)));
+                assertThat(buffer.array(), is(equalTo(Arrays.copyOfRange(content, position, position + length))));
+            }
+
+            channel.position(content.length);
+            assertThat(channel.read(ByteBuffer.allocate(10)), is(equalTo(-1)));
+        }
+    }
+
+    private void runOnContext(ArchiveInfoContext context, UserSecurityProvider usp) throws Exception
+    {
+        byte[] content = makeContent(FramedDeflaterOutputStream.DEFAULT_FRAME_SIZE * 3 + 12345);
+        FileInventoryItem file = new FileInventoryItem("a.bin");
+        context.getInventory().addFile(file);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, file))
+        {
+            bwos.write(content);
+        }
+        MetadataWriter.write(context, usp);
+
+        assertThat(file.isFramed(), is(equalTo(true)));
+        assertThat(file.getFrameLengths().length, is(equalTo(4)));
+        checkRandomReads(context, file, content);
+
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, file))
+        {
+            assertThat(IO.readNBytes(ms, content.length), is(equalTo(content)));
+            assertThat(ms.read(), is(equalTo(-1)));
+        }
+    }
+
+    @Test
+    public void testSeekingPlain() throws Exception
+    {
+        UserSecurityProvider usp = makeUSP();
+        File tempfile = folder.newPrefixedFile("plain");
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(tempfile, new PlaintextDescriptor(), usp);
+        runOnContext(context, usp);
+    }
+
+    @Test
+    public void testSeekingAES256() throws Exception
+    {
+        UserSecurityProvider usp = makeUSP();
+        File tempfile = folder.newPrefixedFile("withencrypt");
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(tempfile, PBKDF2Descriptor.make(
+                Encryption.AES128_CTR, 10000), usp);
+        context.getInventory().setDefaultEncryption(Encryption.AES256_CTR);
+        runOnContext(context, usp);
+    }
+
+    @Test
+    public void testSeekingTWOFISH128() throws Exception
+    {
+        UserSecurityProvider usp = makeUSP();
+        File tempfile = folder.newPrefixedFile("withencrypt");
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(tempfile, PBKDF2Descriptor.make(
+                Encryption.AES128_CTR, 10000), usp);
+        context.getInventory().setDefaultEncryption(Encryption.TWOFISH128_CTR);
+        runOnContext(context, usp);
+    }
+
+    @Test
+    public void testSeekingStored() throws Exception
+    {
+        UserSecurityProvider usp = makeUSP();
+        File tempfile = folder.newPrefixedFile("withencrypt");
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(tempfile, PBKDF2Descriptor.make(
+                Encryption.AES128_CTR, 10000), usp);
+        context.getInventory().setDefaultEncryption(Encryption.AES256_CTR);
+
+        byte[] content = makeContent(FramedDeflaterOutputStream.DEFAULT_FRAME_SIZE * 2 + 999);
+        FileInventoryItem file = new FileInventoryItem("stored.bin");
+        context.getInventory().addFile(file);
+        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(context, file, Compression.NONE))
+        {
+            bwos.write(content);
+        }
+        MetadataWriter.write(context, usp);
+
+        assertThat(file.isCompressed(), is(equalTo(false)));
+        assertThat(file.getSizeOnDisk(), is(equalTo((long) content.length)));
+        checkRandomReads(context, file, content);
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(context, file))
+        {
+            byte[] buffer = new byte[content.length];
+            assertThat(IO.reliableRead(ms, buffer), is(equalTo(content.length)));
+            assertThat(buffer, is(equalTo(content)));
+        }
+    }
+
+    @Test
+    public void testSeekingUnframed() throws Exception
+    {
+        UserSecurityProvider usp = makeUSP();
+        File tempfile = folder.newPrefixedFile("plain");
+        ArchiveInfoContext context = ArchiveBuilder.createNewEmptyArchive(tempfile, new PlaintextDescriptor(), usp);
+
+        // a file as it was written before compression frames were introduced
+        byte[] content = makeContent(500000);
+        FileInventoryItem file = new FileInventoryItem("legacy.bin");
+        context.getInventory().addFile(file);
+        file.setEncryptionAlgorithm(Encryption.NONE);
+        try (OutputStream os = new DeflaterOutputStream(new BlockWriterOutputStream(
+                context.getMappedRegions(), context.getBlockSize(), file,
+                new BlockAllocationManager(context.getInventory(), file.getBlocks())
+        ), new Deflater(Deflater.BEST_SPEED)))
+        {
+            os.write(content);
+        }
+        file.setActualSize(content.length);
+        MetadataWriter.write(context, usp);
+
+        assertThat(file.isFramed(), is(equalTo(false)));
+        checkRandomReads(context, file, content);
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.streams.output.PipelinedOutputStream;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestPipelinedOutputStream
+{
+    @Test
+    public void testWriting() throws IOException
+    {
+        byte[] content = RandomMaker.get(8 * 10000);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (PipelinedOutputStream pos = new PipelinedOutputStream(sink, 64, 2))
+        {
+            pos.write(content[0]);
+            int offset = 1;
+            int step = 1;
+            while (offset < content.length)
+            {
+                int n = Math.min(step, content.length - offset);
+                pos.write(content, offset, n);
+                offset += n;
+                step = (step * 7) % 301 + 1;
+            }
+        }
+        assertThat(sink.toByteArray(), is(equalTo(content)));
+    }
+
+    @Test
+    public void testFlush() throws IOException
+    {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        PipelinedOutputStream pos = new PipelinedOutputStream(sink, 64, 2);
+        pos.write(new byte[100]);
+        pos.flush();
+        assertThat(sink.size(), is(equalTo(100)));
+        pos.write(new byte[10]);
+        pos.close();
+        assertThat(sink.size(), is(equalTo(110)));
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        new PipelinedOutputStream(sink, 64, 2).close();
+        assertThat(sink.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testErrorPropagation() throws IOException
+    {
+        final boolean[] closed = {false};
+        OutputStream failing = new OutputStream()
+        {
+            private int count = 0;
+
+            @Override
+            public void write(int b) throws IOException
+            {
+                if (count++ >= 100) throw new IOException("disk full");
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                closed[0] = true;
+            }
+        };
+
+        PipelinedOutputStream pos = new PipelinedOutputStream(failing, 16, 2);
+        try
+        {
+            for (int i = 0; i < 10000; i++) pos.write(new byte[16]);
+            pos.close();
+            fail("Should have raised the sink's exception");
+        }
+        catch (IOException e)
+        {
+            assertThat(e.getMessage(), is(equalTo("disk full")));
+        }
+
+        // the error is raised again on close, after the sink has been closed
+        try
+        {
+            pos.close();
+            fail("Should have raised the sink's exception on close");
+        }
+        catch (IOException e)
+        {
+            assertThat(e.getMessage(), is(equalTo("disk full")));
+        }
+        assertTrue(closed[0]);
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2016 Bunkr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package test.bunkr.core.streams;
+
+import org.bunkr.core.exceptions.IntegrityHashError;
+import org.bunkr.core.streams.input.PrefetchingInputStream;
+import org.bunkr.core.utils.IO;
+import org.bunkr.core.utils.RandomMaker;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * Created At: 2026-10-17
+ */
+public class TestPrefetchingInputStream
+{
+    @Test
+    public void testReading() throws IOException
+    {
+        byte[] content = RandomMaker.get(8 * 10000);
+        try (PrefetchingInputStream pis = new PrefetchingInputStream(new ByteArrayInputStream(content), 64, 3))
+        {
+            byte[] output = new byte[content.length];
+            assertThat(pis.read(), is(equalTo(content[0] & 0xFF)));
+            assertThat(IO.reliableRead(pis, output, 1, content.length - 1), is(equalTo(content.length - 1)));
+            output[0] = content[0];
+            assertThat(output, is(equalTo(content)));
+            assertThat(pis.read(), is(equalTo(-1)));
+            assertThat(pis.read(output, 0, 10), is(equalTo(-1)));
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        try (PrefetchingInputStream pis = new PrefetchingInputStream(new ByteArrayInputStream(new byte[0]), 64, 3))
+        {
+            assertThat(pis.read(), is(equalTo(-1)));
+        }
+    }
+
+    @Test
+    public void testErrorPropagation() throws IOException
+    {
+        InputStream failing = new InputStream()
+        {
+            private int count = 0;
+
+            @Override
+            public int read() throws IOException
+            {
+                if (count++ < 100) return 7;
+                throw new IntegrityHashError("bad hash");
+            }
+        };
+
+        try (PrefetchingInputStream pis = new PrefetchingInputStream(failing, 16, 2))
+        {
+            byte[] output = new byte[100];
+            assertThat(IO.reliableRead(pis, output), is(equalTo(100)));
+            try
+            {
+                pis.read();
+                fail("Should have raised integrityhasherror");
+            }
+            catch (IntegrityHashError ignored) {}
+        }
+    }
+
+    @Test
+    public void testCloseEarly() throws IOException
+    {
+        PrefetchingInputStream pis = new PrefetchingInputStream(new InputStream()
+        {
+            @Override
+            public int read() throws IOException
+            {
+                return 1;
+            }
+        }, 16, 2);
+        assertThat(pis.read(), is(equalTo(1)));
+        pis.close();
+        try
+        {
+            pis.read();
+            fail("Should not read from closed stream");
+        }
+        catch (IOException ignored) {}
+    }
+}
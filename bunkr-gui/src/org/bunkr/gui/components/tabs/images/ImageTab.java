@@ -181,7 +181,9 @@ public class ImageTab extends Tab implements IOpenedFileTab
     {
         Image loadingImage;
         // Construct the image from the block stream.
-        try (MultilayeredInputStream ms = new MultilayeredInputStream(this.archive, this.file))
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(
+                this.archive, this.file, 0, null, this.archive.getBlockCache()
+        ))
         {
             loadingImage = new Image(ms);
         }
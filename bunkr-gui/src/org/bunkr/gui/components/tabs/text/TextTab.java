@@ -140,7 +140,9 @@ public class TextTab extends Tab implements IOpenedFileTab
         if (this.subject.getParent() == null) throw new RuntimeException("Orphaned file tab found");
 
         StringBuilder content = new StringBuilder();
-        try (MultilayeredInputStream ms = new MultilayeredInputStream(this.archive, this.subject))
+        try (MultilayeredInputStream ms = new MultilayeredInputStream(
+                this.archive, this.subject, 0, null, this.archive.getBlockCache()
+        ))
         {
             ms.setCheckHashOnFinish(true);
             byte[] buffer = new byte[(int) Units.MEBIBYTE];
@@ -30,7 +30,9 @@ import org.bunkr.core.exceptions.TraversalException;
 import org.bunkr.core.inventory.*;
 
 import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -39,6 +41,8 @@ import java.util.UUID;
 public class InventoryTreeView extends TreeView<InventoryTreeData>
 {
     private final ArchiveInfoContext archive;
+    // every tree item except the root, by the uuid of the inventory item it shows
+    private final Map<UUID, TreeItem<InventoryTreeData>> itemsByUuid = new HashMap<>();
 
     public InventoryTreeView(ArchiveInfoContext archive)
     {
@@ -52,6 +56,7 @@ public class InventoryTreeView extends TreeView<InventoryTreeData>
     public void refreshAll()
     {
         TreeItem<InventoryTreeData> root = new TreeItem<>(InventoryTreeData.makeRoot());
+        this.itemsByUuid.clear();
         genFolder(root, this.archive.getInventory());
         root.setExpanded(true);
         this.setRoot(root);
@@ -68,7 +73,9 @@ public class InventoryTreeView extends TreeView<InventoryTreeData>
         }
         for (FileInventoryItem subfile : mirror.getFiles())
         {
-            parent.getChildren().add(new TreeItem<>(new InventoryTreeData(subfile)));
+            TreeItem<InventoryTreeData> fileItem = new TreeItem<>(new InventoryTreeData(subfile));
+            this.itemsByUuid.put(subfile.getUuid(), fileItem);
+            parent.getChildren().add(fileItem);
         }
 
         parent.getChildren().sort((o1, o2) -> o1.getValue().compareTo(o2.getValue()));
@@ -79,7 +86,42 @@ public class InventoryTreeView extends TreeView<InventoryTreeData>
      */
     private TreeItem<InventoryTreeData> genFolder(FolderInventoryItem folder)
     {
-        return genFolder(new TreeItem<>(new InventoryTreeData(folder)), folder);
+        TreeItem<InventoryTreeData> folderItem = new TreeItem<>(new InventoryTreeData(folder));
+        this.itemsByUuid.put(folder.getUuid(), folderItem);
+        return genFolder(folderItem, folder);
+    }
+
+    /**
+     * Add a tree item, and any items beneath it, to the children of 'parent' so that search() can find them. An item
+     * that was already in the tree with the same uuid is replaced in the index but must be removed by the caller.
+     */
+    public void addTreeItem(TreeItem<InventoryTreeData> parent, TreeItem<InventoryTreeData> item)
+    {
+        parent.getChildren().add(item);
+        Deque<TreeItem<InventoryTreeData>> queue = new ArrayDeque<>();
+        queue.add(item);
+        while (! queue.isEmpty())
+        {
+            TreeItem<InventoryTreeData> current = queue.poll();
+            this.itemsByUuid.put(current.getValue().getUuid(), current);
+            queue.addAll(current.getChildren());
+        }
+    }
+
+    /**
+     * Remove a tree item, and any items beneath it, from the tree and from the uuid index.
+     */
+    public void removeTreeItem(TreeItem<InventoryTreeData> item)
+    {
+        item.getParent().getChildren().remove(item);
+        Deque<TreeItem<InventoryTreeData>> queue = new ArrayDeque<>();
+        queue.add(item);
+        while (! queue.isEmpty())
+        {
+            TreeItem<InventoryTreeData> current = queue.poll();
+            this.itemsByUuid.remove(current.getValue().getUuid(), current);
+            queue.addAll(current.getChildren());
+        }
     }
 
     public String getPathForTreeItem(TreeItem<InventoryTreeData> o)
@@ -122,19 +164,16 @@ public class InventoryTreeView extends TreeView<InventoryTreeData>
         return current;
     }
 
+    /**
+     * Find the TreeItem for the inventory item with the given uuid. Items are indexed by uuid as they are added to the
+     * tree, so this neither walks the tree nor depends on the names shown in it.
+     */
     public TreeItem<InventoryTreeData> search(UUID uuid) throws TraversalException
     {
         if (uuid == null) return getRoot();
-        final Queue<TreeItem<InventoryTreeData>> queue = new ArrayDeque<>();
-        queue.add(this.getRoot());
-
-        while (! queue.isEmpty())
-        {
-            TreeItem<InventoryTreeData> item = queue.poll();
-            if (item.getValue().getUuid() == uuid) return item;
-            queue.addAll(item.getChildren());
-        }
-        throw new TraversalException(String.format("Could not find TreeItem with uuid: %s", uuid));
+        TreeItem<InventoryTreeData> item = this.itemsByUuid.get(uuid);
+        if (item == null) throw new TraversalException(String.format("Could not find TreeItem with uuid: %s", uuid));
+        return item;
     }
 
     public TreeItem<InventoryTreeData> getSelectedTreeItem() throws BaseBunkrException
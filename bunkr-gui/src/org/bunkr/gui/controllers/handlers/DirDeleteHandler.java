@@ -78,7 +78,7 @@ public class DirDeleteHandler implements EventHandler<ActionEvent>
             IFFTraversalTarget target = parentContainer.findFileOrFolder(selected.getValue().getName());
             if (target instanceof FolderInventoryItem)
             {
-                parent.getChildren().remove(selected);
+                this.tree.removeTreeItem(selected);
 
                 FolderInventoryItem targetFolder = (FolderInventoryItem) target;
 
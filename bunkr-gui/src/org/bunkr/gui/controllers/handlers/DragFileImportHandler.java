@@ -28,6 +28,7 @@ import javafx.util.Pair;
 import org.bunkr.core.ArchiveInfoContext;
 import org.bunkr.core.inventory.*;
 import org.bunkr.core.streams.output.MultilayeredOutputStream;
+import org.bunkr.core.streams.output.PipelinedOutputStream;
 import org.bunkr.core.utils.Units;
 import org.bunkr.gui.ProgressTask;
 import org.bunkr.gui.components.treeview.InventoryTreeData;
@@ -115,8 +116,11 @@ public class DragFileImportHandler implements Consumer<Pair<UUID, File>>
                     long bytesDone = 0;
                     try (InputStream fis = Channels.newInputStream(fc))
                     {
-                        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(archive, newFile))
+                        try (MultilayeredOutputStream bwos = new MultilayeredOutputStream(
+                                archive, newFile, Algorithms.Compression.DEFLATE, PipelinedOutputStream.DEFAULT_DEPTH
+                        ))
                         {
+                            bwos.reserve(bytesTotal);
                             this.updateMessage("Importing bytes...");
                             byte[] buffer = new byte[(int) Units.MEBIBYTE];
                             int n;
@@ -155,7 +159,7 @@ public class DragFileImportHandler implements Consumer<Pair<UUID, File>>
                     {
                         selected.getChildren().removeIf(i -> i.getValue().getName().equals(newName));
                     }
-                    selected.getChildren().add(newItem);
+                    tree.addTreeItem(selected, newItem);
                     selected.getChildren().sort((o1, o2) -> o1.getValue().compareTo(o2.getValue()));
                     selected.setExpanded(true);
                     Event.fireEvent(selected,
@@ -78,7 +78,7 @@ public class FileDeleteHandler implements EventHandler<ActionEvent>
             IFFTraversalTarget target = parentContainer.findFileOrFolder(selected.getValue().getName());
             if (target instanceof FileInventoryItem)
             {
-                parent.getChildren().remove(selected);
+                this.tree.removeTreeItem(selected);
 
                 FileInventoryItem targetFile = (FileInventoryItem) target;
                 FragmentedRange wipeblocks = targetFile.getBlocks();
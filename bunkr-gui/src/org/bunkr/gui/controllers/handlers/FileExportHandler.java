@@ -31,6 +31,8 @@ import org.bunkr.core.inventory.FileInventoryItem;
 import org.bunkr.core.inventory.IFFTraversalTarget;
 import org.bunkr.core.inventory.InventoryPather;
 import org.bunkr.core.streams.input.MultilayeredInputStream;
+import org.bunkr.core.streams.input.PrefetchingInputStream;
+import org.bunkr.core.streams.input.StoredFileTransfer;
 import org.bunkr.core.utils.Units;
 import org.bunkr.gui.ProgressTask;
 import org.bunkr.gui.components.treeview.InventoryTreeData;
@@ -44,6 +46,7 @@ import java.io.RandomAccessFile;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created At: 2016-01-17
@@ -108,9 +111,23 @@ public class FileExportHandler implements EventHandler<ActionEvent>
                     FileChannel fc = new RandomAccessFile(exportedFile, "rw").getChannel();
                     long bytesTotal = selectedFile.getActualSize();
                     long bytesDone = 0;
+                    if (StoredFileTransfer.isTransferable(selectedFile))
+                    {
+                        this.updateMessage("Exporting bytes...");
+                        AtomicLong transferred = new AtomicLong(0);
+                        try (FileChannel contentChannel = fc)
+                        {
+                            StoredFileTransfer.transfer(archive, selectedFile, contentChannel, true, n ->
+                                    this.updateProgress(transferred.addAndGet(n), bytesTotal));
+                        }
+                        this.updateMessage("Finished.");
+                        return null;
+                    }
                     try (OutputStream contentOutputStream = Channels.newOutputStream(fc))
                     {
-                        try (MultilayeredInputStream ms = new MultilayeredInputStream(archive, selectedFile))
+                        try (MultilayeredInputStream ms = new MultilayeredInputStream(
+                                archive, selectedFile, PrefetchingInputStream.DEFAULT_DEPTH
+                        ))
                         {
                             this.updateMessage("Exporting bytes...");
                             byte[] buffer = new byte[(int) Units.MEBIBYTE];
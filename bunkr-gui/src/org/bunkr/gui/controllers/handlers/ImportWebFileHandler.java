@@ -147,7 +147,7 @@ public class ImportWebFileHandler implements EventHandler<ActionEvent>
 
                     TreeItem<InventoryTreeData> newItem = new TreeItem<>(new InventoryTreeData(newFile));
                     if (target != null) selected.getChildren().removeIf(i -> i.getValue().getName().equals(newName));
-                    selected.getChildren().add(newItem);
+                    tree.addTreeItem(selected, newItem);
                     selected.getChildren().sort((o1, o2) -> o1.getValue().compareTo(o2.getValue()));
                     selected.setExpanded(true);
                     Event.fireEvent(selected,
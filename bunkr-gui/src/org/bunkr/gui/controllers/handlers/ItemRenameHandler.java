@@ -146,6 +146,7 @@ public class ItemRenameHandler implements EventHandler<ActionEvent>
                     newParentContainer.addFile((FileInventoryItem) renameSubject);
                 }
             }
+            // the tree item is moved rather than recreated, so the tree's uuid index still points at it
             if (oldParentItem != newParentItem)
             {
                 oldParentItem.getChildren().remove(selected);
@@ -87,7 +87,7 @@ public class NewFileHandler implements EventHandler<ActionEvent>
             // create the new tree item
             InventoryTreeData newValue = new InventoryTreeData(newFile);
             TreeItem<InventoryTreeData> newItem = new TreeItem<>(newValue);
-            selected.getChildren().add(newItem);
+            this.tree.addTreeItem(selected, newItem);
             selected.getChildren().sort((o1, o2) -> o1.getValue().compareTo(o2.getValue()));
             selected.setExpanded(true);
 
@@ -19,7 +19,7 @@ public class WipeBlocksWorkflow
         {
             if (QuickDialogs.confirm("Do you want to securely wipe the data blocks used by the file you deleted?"))
             {
-                WipeBlocksOp op = new WipeBlocksOp(archive.filePath, archive.getBlockSize(), wipeblocks, true);
+                WipeBlocksOp op = new WipeBlocksOp(archive, wipeblocks, true);
                 ProgressTask<Void> progressTask = new ProgressTask<Void>()
                 {
                     @Override
@@ -219,7 +219,9 @@ public class BlockDistributionWindow extends BaseWindow
                 {
                     try (MultilayeredInputStream mis = new MultilayeredInputStream(archive, subject))
                     {
-                        try (MultilayeredOutputStream mos = new MultilayeredOutputStream(archive, subject))
+                        try (MultilayeredOutputStream mos = new MultilayeredOutputStream(
+                                archive, subject, subject.getCompression()
+                        ))
                         {
                             this.updateMessage("Re-encrypting file bytes..");
                             long bytesTotal = subject.getActualSize();
@@ -206,7 +206,9 @@ public class FileInfoWindow extends BaseWindow
                 {
                     try (MultilayeredInputStream mis = new MultilayeredInputStream(archive, item))
                     {
-                        try (MultilayeredOutputStream mos = new MultilayeredOutputStream(archive, item))
+                        try (MultilayeredOutputStream mos = new MultilayeredOutputStream(
+                                archive, item, item.getCompression()
+                        ))
                         {
                             this.updateMessage("Re-encrypting file bytes..");
                             long bytesTotal = item.getActualSize();
@@ -201,7 +201,9 @@ public class FileSecAuditWindow extends BaseWindow
                     FileInventoryItem currentFile = files.get(i);
                     try (MultilayeredInputStream mis = new MultilayeredInputStream(archive, currentFile))
                     {
-                        try (MultilayeredOutputStream mos = new MultilayeredOutputStream(archive, currentFile))
+                        try (MultilayeredOutputStream mos = new MultilayeredOutputStream(
+                                archive, currentFile, currentFile.getCompression()
+                        ))
                         {
                             this.updateMessage("Re-encrypting file %d of %d..", i + 1, totalFiles);
                             byte[] buffer = new byte[(int) Units.MEBIBYTE];
@@ -149,7 +149,7 @@ public class LandingWindow extends BaseWindow
                     popup.setOnSaveMetadataRequest(r -> {
                         try
                         {
-                            MetadataWriter.write(archive, usp);
+                            MetadataWriter.checkpoint(archive, usp);
                         }
                         catch (IOException | BaseBunkrException e)
                         {
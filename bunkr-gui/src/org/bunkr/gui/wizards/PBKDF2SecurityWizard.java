@@ -114,7 +114,7 @@ public class PBKDF2SecurityWizard extends WizardWindow
             archive.getInventory().setDefaultEncryption(filesecpanel.getSelectedValue());
 
             // save!
-            MetadataWriter.write(archive, securityProvider);
+            MetadataWriter.checkpoint(archive, securityProvider);
         }
         catch (IllegalPasswordException e)
         {
@@ -116,7 +116,7 @@ public class ScryptSecurityWizard extends WizardWindow
             archive.getInventory().setDefaultEncryption(filesecpanel.getSelectedValue());
 
             // save!
-            MetadataWriter.write(archive, securityProvider);
+            MetadataWriter.checkpoint(archive, securityProvider);
         }
         catch (IllegalPasswordException e)
         {